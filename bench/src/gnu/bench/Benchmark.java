@@ -0,0 +1,107 @@
+/* gnu.bench.Benchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import java.io.File;
+
+/**
+ * A benchmark run by {@link Harness}.  The harness calls
+ * {@link #setUp()} once, then {@link #run()} repeatedly for the warmup and
+ * measurement iterations, then {@link #tearDown()}.  Only the calls to
+ * {@link #run()} are timed, and only they are counted by the GC profiler.
+ */
+public abstract class Benchmark
+{
+  private File fixtureJar;
+  private File dataDirectory;
+  private File tempDirectory;
+
+  /**
+   * Called by the harness before {@link #setUp()}.
+   */
+  final void init(File fixtureJar, File dataDirectory, File tempDirectory)
+  {
+    this.fixtureJar = fixtureJar;
+    this.dataDirectory = dataDirectory;
+    this.tempDirectory = tempDirectory;
+  }
+
+  /**
+   * @return the name by which the benchmark is reported and selected
+   */
+  public abstract String getName();
+
+  /**
+   * @return true if the benchmark works on the fixture jar, which must
+   *         then be given to the harness.  The default is false.
+   */
+  public boolean usesFixtureJar()
+  {
+    return false;
+  }
+
+  /**
+   * Prepares the benchmark.  The default does nothing.
+   */
+  protected void setUp() throws Exception
+  {
+  }
+
+  /**
+   * Performs one operation.
+   * 
+   * @return a value depending on the work done, which the harness consumes
+   *         so that the work cannot be optimized away
+   */
+  protected abstract Object run() throws Exception;
+
+  /**
+   * Releases what {@link #setUp()} acquired.  The default does nothing.
+   */
+  protected void tearDown() throws Exception
+  {
+  }
+
+  /**
+   * @return the jar of class files the class benchmarks work on
+   */
+  protected final File getFixtureJar()
+  {
+    return fixtureJar;
+  }
+
+  /**
+   * @return the directory of LDML samples, holding xx.xml and
+   *         collation/xx.xml
+   */
+  protected final File getDataDirectory()
+  {
+    return dataDirectory;
+  }
+
+  /**
+   * @return an empty directory for the benchmark's output, deleted when it
+   *         has finished
+   */
+  protected final File getTempDirectory()
+  {
+    return tempDirectory;
+  }
+}
@@ -0,0 +1,87 @@
+/* gnu.bench.ClassDecodingBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.classpath.tools.ClassSummary;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Decodes each class of the fixture jar in turn from bytes already in
+ * memory, down to the signatures of its members.
+ */
+public class ClassDecodingBenchmark extends Benchmark
+{
+  private List<byte[]> classes = new ArrayList<byte[]>();
+  private int next;
+
+  public String getName()
+  {
+    return "class.decode";
+  }
+
+  public boolean usesFixtureJar()
+  {
+    return true;
+  }
+
+  protected void setUp() throws Exception
+  {
+    ZipFile zip = new ZipFile(getFixtureJar());
+    try
+      {
+        Enumeration<? extends ZipEntry> e = zip.entries();
+        while (e.hasMoreElements())
+          {
+            ZipEntry entry = e.nextElement();
+            if (!entry.getName().endsWith(".class"))
+              continue;
+            InputStream in = zip.getInputStream(entry);
+            try
+              {
+                classes.add(ClassSummary.readBytes(in));
+              }
+            finally
+              {
+                in.close();
+              }
+          }
+      }
+    finally
+      {
+        zip.close();
+      }
+  }
+
+  protected Object run() throws Exception
+  {
+    ClassSummary summary = ClassSummary.read(classes.get(next++
+                                                         % classes.size()));
+    List<ClassSummary.Member> methods = summary.getMethods();
+    int n = 0;
+    for (int i = 0; i < methods.size(); i++)
+      n += methods.get(i).getSignature().length();
+    return Integer.valueOf(n + summary.getFields().size());
+  }
+}
@@ -0,0 +1,67 @@
+/* gnu.bench.ClassLookupBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.classpath.tools.Util;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds each class of the fixture jar in turn with
+ * {@link Util#findClass(String)}, as the tools do for every class named
+ * to them.
+ */
+public class ClassLookupBenchmark extends Benchmark
+{
+  private Util util;
+  private List<String> classes;
+  private int next;
+
+  public String getName()
+  {
+    return "class.lookup";
+  }
+
+  public boolean usesFixtureJar()
+  {
+    return true;
+  }
+
+  protected void setUp() throws Exception
+  {
+    util = new Util();
+    util.setClasspath(getFixtureJar().getPath());
+    List<String> none = Collections.emptyList();
+    classes = util.listClasses(getFixtureJar().getPath(), none, none);
+  }
+
+  protected Object run() throws Exception
+  {
+    InputStream in = util.findClass(classes.get(next++ % classes.size()));
+    in.close();
+    return in;
+  }
+
+  protected void tearDown()
+  {
+    util.close();
+  }
+}
@@ -0,0 +1,63 @@
+/* gnu.bench.CollationBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.ldml.Analyzer;
+import gnu.ldml.Element;
+import gnu.ldml.ListDataElement;
+import gnu.ldml.OrderedListElement;
+import gnu.localegen.CollationInterpreter;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the RuleBasedCollator rules from the parsed LDML collation
+ * sample.
+ */
+public class CollationBenchmark extends Benchmark
+{
+  private List<Element> rules;
+
+  public String getName()
+  {
+    return "collation.rules";
+  }
+
+  protected void setUp() throws Exception
+  {
+    File f = new File(getDataDirectory(), "collation/xx.xml");
+    Analyzer analyzer = new Analyzer(f.toURI().toURL());
+    ListDataElement collations = (ListDataElement) Analyzer
+      .getSingleElement(analyzer.flattenTree().get("ldml.collations"));
+    Map<String,List<Element>> table = collations.flattenLeaf("standard");
+    OrderedListElement list = (OrderedListElement) Analyzer
+      .getSingleElement(table.get("collation.rules"));
+    rules = list.listData;
+  }
+
+  protected Object run()
+  {
+    CollationInterpreter interp = new CollationInterpreter(new ArrayList<Element>(rules));
+    interp.compute();
+    return interp.toCollationRule();
+  }
+}
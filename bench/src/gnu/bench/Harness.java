@@ -0,0 +1,421 @@
+/* gnu.bench.Harness
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the cp-tools benchmarks.  Each benchmark is warmed up for a number
+ * of timed iterations, then measured for more, and its throughput
+ * reported with the 99.9% confidence interval over the measured
+ * iterations.  With <code>-prof gc</code> the bytes allocated by each
+ * operation and the collections during the measurement are reported as
+ * well.
+ * 
+ * Benchmarks whose classes cannot be loaded, such as the class file tools
+ * when cp-tools was built without gnu.bytecode, are skipped.
+ */
+public class Harness
+{
+  private static final String[] BENCHMARKS = {
+    "gnu.bench.ClassLookupBenchmark",
+    "gnu.bench.ClassDecodingBenchmark",
+    "gnu.bench.JavapBenchmark",
+    "gnu.bench.HeaderBenchmark",
+    "gnu.bench.ParserBenchmark",
+    "gnu.bench.TreeCacheBenchmark",
+    "gnu.ldml.FlattenBenchmark",
+    "gnu.bench.CollationBenchmark",
+    "gnu.bench.PropertiesBenchmark"
+  };
+
+  /**
+   * The 99.95% quantiles of Student's t distribution, by degrees of
+   * freedom; the normal quantile is used beyond the table.
+   */
+  private static final double[] T_QUANTILES = { 636.619, 31.599, 12.924,
+                                               8.610, 6.869, 5.959, 5.408,
+                                               5.041, 4.781, 4.587, 4.437,
+                                               4.318, 4.221, 4.140, 4.073,
+                                               4.015, 3.965, 3.922, 3.883,
+                                               3.850, 3.819, 3.792, 3.768,
+                                               3.745, 3.725, 3.707, 3.690,
+                                               3.674, 3.659, 3.646 };
+
+  /**
+   * Consumes the results of the operations.
+   */
+  private static volatile int sink;
+
+  private int warmupIterations = 5;
+  private int iterations = 5;
+  private long iterationTime = 1000;
+  private boolean profileGC;
+  private long opsDone;
+  private File fixtureJar;
+  private File dataDirectory = new File("bench/data");
+  private final List<String> results = new ArrayList<String>();
+
+  public static void main(String[] args)
+  {
+    Harness h = new Harness();
+    List<Pattern> patterns = new ArrayList<Pattern>();
+    boolean list = false;
+    try
+      {
+        for (int i = 0; i < args.length; i++)
+          {
+            if (args[i].equals("-w"))
+              h.warmupIterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-i"))
+              h.iterations = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-r"))
+              h.iterationTime = Long.parseLong(args[++i]);
+            else if (args[i].equals("-prof"))
+              {
+                if (!args[++i].equals("gc"))
+                  usage("Unknown profiler: " + args[i]);
+                h.profileGC = true;
+              }
+            else if (args[i].equals("-jar"))
+              h.fixtureJar = new File(args[++i]);
+            else if (args[i].equals("-data"))
+              h.dataDirectory = new File(args[++i]);
+            else if (args[i].equals("-l"))
+              list = true;
+            else if (args[i].equals("-help"))
+              usage(null);
+            else if (args[i].startsWith("-"))
+              usage("Invalid flag: " + args[i]);
+            else
+              patterns.add(Pattern.compile(args[i]));
+          }
+      }
+    catch (ArrayIndexOutOfBoundsException e)
+      {
+        usage("Missing argument for " + args[args.length - 1]);
+      }
+    catch (NumberFormatException e)
+      {
+        usage("Invalid number: " + e.getMessage());
+      }
+    if (h.iterations < 1 || h.warmupIterations < 0 || h.iterationTime < 1)
+      usage("Invalid iteration settings");
+    List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+    for (int i = 0; i < BENCHMARKS.length; i++)
+      {
+        Benchmark b;
+        try
+          {
+            b = (Benchmark) Class.forName(BENCHMARKS[i]).newInstance();
+          }
+        catch (Throwable t)
+          {
+            System.out.println("# Skipping " + BENCHMARKS[i] + ": " + t);
+            continue;
+          }
+        if (matches(b.getName(), patterns))
+          benchmarks.add(b);
+      }
+    if (list)
+      {
+        for (Iterator<Benchmark> i = benchmarks.iterator(); i.hasNext();)
+          System.out.println(i.next().getName());
+        return;
+      }
+    if (h.fixtureJar == null)
+      for (Iterator<Benchmark> i = benchmarks.iterator(); i.hasNext();)
+        if (i.next().usesFixtureJar())
+          usage("No fixture jar given with -jar");
+    for (Iterator<Benchmark> i = benchmarks.iterator(); i.hasNext();)
+      h.run(i.next());
+    h.printResults();
+  }
+
+  private static boolean matches(String name, List<Pattern> patterns)
+  {
+    if (patterns.isEmpty())
+      return true;
+    for (Iterator<Pattern> i = patterns.iterator(); i.hasNext();)
+      if (i.next().matcher(name).find())
+        return true;
+    return false;
+  }
+
+  private static void usage(String error)
+  {
+    if (error != null)
+      System.err.println(error);
+    System.out.println("Usage: gnu.bench.Harness [OPTION]... [REGEXP]...");
+    System.out.println("Run the benchmarks whose names match any REGEXP.");
+    System.out.println("");
+    System.out
+      .println("   -data DIR      Directory holding the LDML samples (default bench/data)");
+    System.out
+      .println("   -help          Print this usage message");
+    System.out
+      .println("   -i N           Measurement iterations (default 5)");
+    System.out
+      .println("   -jar FILE      Jar of class files for the class benchmarks");
+    System.out.println("   -l             List the benchmarks and exit");
+    System.out
+      .println("   -prof gc       Report allocation and collections");
+    System.out
+      .println("   -r MS          Time of each iteration (default 1000)");
+    System.out
+      .println("   -w N           Warmup iterations (default 5)");
+    System.exit(error == null ? 0 : 1);
+  }
+
+  /**
+   * Runs one benchmark and records its results.
+   */
+  private void run(Benchmark b)
+  {
+    System.out.println("# Benchmark: " + b.getName());
+    File temp = null;
+    try
+      {
+        temp = createTempDirectory();
+        b.init(fixtureJar, dataDirectory, temp);
+        b.setUp();
+        try
+          {
+            for (int i = 0; i < warmupIterations; i++)
+              System.out.println("# Warmup iteration " + (i + 1) + ": "
+                                 + format(iterate(b)) + " ops/s");
+            double[] scores = new double[iterations];
+            Snapshot before = profileGC ? new Snapshot() : null;
+            long ops = 0;
+            for (int i = 0; i < iterations; i++)
+              {
+                long start = opsDone;
+                scores[i] = iterate(b);
+                ops += opsDone - start;
+                System.out.println("Iteration " + (i + 1) + ": "
+                                   + format(scores[i]) + " ops/s");
+              }
+            record(b.getName(), scores, "ops/s");
+            if (before != null)
+              recordGC(b.getName(), before, new Snapshot(), ops);
+          }
+        finally
+          {
+            b.tearDown();
+          }
+      }
+    catch (Throwable t)
+      {
+        System.out.println("# " + b.getName() + " failed: " + t);
+        t.printStackTrace();
+      }
+    finally
+      {
+        if (temp != null)
+          delete(temp);
+      }
+    System.out.println();
+  }
+
+  /**
+   * Runs operations for one iteration.
+   * 
+   * @return the operations per second
+   */
+  private double iterate(Benchmark b) throws Exception
+  {
+    long ops = 0;
+    long start = System.nanoTime();
+    long end = start + iterationTime * 1000000L;
+    long now;
+    int consumed = 0;
+    do
+      {
+        Object result = b.run();
+        if (result != null)
+          consumed += System.identityHashCode(result);
+        ops++;
+        now = System.nanoTime();
+      }
+    while (now < end);
+    sink += consumed;
+    opsDone += ops;
+    return ops * 1e9 / (now - start);
+  }
+
+  private void record(String name, double[] scores, String unit)
+  {
+    double mean = 0;
+    for (int i = 0; i < scores.length; i++)
+      mean += scores[i];
+    mean /= scores.length;
+    String error = "";
+    if (scores.length > 1)
+      {
+        double variance = 0;
+        for (int i = 0; i < scores.length; i++)
+          variance += (scores[i] - mean) * (scores[i] - mean);
+        variance /= scores.length - 1;
+        int df = scores.length - 1;
+        double t = df <= T_QUANTILES.length ? T_QUANTILES[df - 1] : 3.291;
+        error = "+- " + format(t * Math.sqrt(variance / scores.length));
+      }
+    results.add(pad(name, 40) + pad(Integer.toString(scores.length), -4)
+                + pad(format(mean), -16) + pad(error, -16) + "  " + unit);
+  }
+
+  private void recordGC(String name, Snapshot before, Snapshot after,
+                        long ops)
+  {
+    double seconds = (after.time - before.time) / 1e9;
+    if (before.allocated >= 0 && after.allocated >= 0 && ops > 0)
+      {
+        long allocated = after.allocated - before.allocated;
+        recordValue(name + ":gc.alloc.rate", allocated / seconds
+                                             / (1024 * 1024), "MB/sec");
+        recordValue(name + ":gc.alloc.rate.norm", (double) allocated / ops,
+                    "B/op");
+      }
+    recordValue(name + ":gc.count", after.gcCount - before.gcCount,
+                "counts");
+    recordValue(name + ":gc.time", after.gcTime - before.gcTime, "ms");
+  }
+
+  private void recordValue(String name, double value, String unit)
+  {
+    results.add(pad(name, 40) + pad("", -4) + pad(format(value), -16)
+                + pad("", -16) + "  " + unit);
+  }
+
+  private void printResults()
+  {
+    System.out.println(pad("Benchmark", 40) + pad("Cnt", -4)
+                       + pad("Score", -16) + pad("Error", -16) + "  Units");
+    for (Iterator<String> i = results.iterator(); i.hasNext();)
+      System.out.println(i.next());
+  }
+
+  private static String format(double d)
+  {
+    return String.format("%.3f", new Object[] { Double.valueOf(d) });
+  }
+
+  /**
+   * Pads a string with spaces to a width, on the right for a positive
+   * width and on the left for a negative one.
+   */
+  private static String pad(String s, int width)
+  {
+    StringBuilder b = new StringBuilder();
+    int n = Math.abs(width) - s.length();
+    if (width > 0)
+      b.append(s);
+    for (int i = 0; i < n; i++)
+      b.append(' ');
+    if (width < 0)
+      b.append(s);
+    return b.toString();
+  }
+
+  private static File createTempDirectory() throws IOException
+  {
+    File f = File.createTempFile("cpbench", "");
+    if (!f.delete() || !f.mkdir())
+      throw new IOException("Unable to create " + f);
+    return f;
+  }
+
+  private static void delete(File f)
+  {
+    File[] files = f.listFiles();
+    if (files != null)
+      for (int i = 0; i < files.length; i++)
+        delete(files[i]);
+    f.delete();
+  }
+
+  /**
+   * The allocation and collection counters at one moment.  The bytes
+   * allocated by the current thread come from the HotSpot extension of
+   * ThreadMXBean, and are -1 where it is not available.
+   */
+  private static final class Snapshot
+  {
+    private static Method allocatedBytes;
+
+    static
+    {
+      try
+        {
+          Class<?> c = Class.forName("com.sun.management.ThreadMXBean");
+          if (c.isInstance(ManagementFactory.getThreadMXBean()))
+            allocatedBytes = c.getMethod("getThreadAllocatedBytes",
+                                         new Class[] { Long.TYPE });
+        }
+      catch (Exception e)
+        {
+        }
+    }
+
+    final long time = System.nanoTime();
+    final long allocated;
+    final long gcCount;
+    final long gcTime;
+
+    Snapshot()
+    {
+      long bytes = -1;
+      if (allocatedBytes != null)
+        {
+          ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+          try
+            {
+              Object[] id = { Long.valueOf(Thread.currentThread().getId()) };
+              bytes = ((Long) allocatedBytes.invoke(threads, id)).longValue();
+            }
+          catch (Exception e)
+            {
+            }
+        }
+      allocated = bytes;
+      long count = 0;
+      long millis = 0;
+      Iterator<GarbageCollectorMXBean> i = ManagementFactory
+        .getGarbageCollectorMXBeans().iterator();
+      while (i.hasNext())
+        {
+          GarbageCollectorMXBean gc = i.next();
+          count += Math.max(0, gc.getCollectionCount());
+          millis += Math.max(0, gc.getCollectionTime());
+        }
+      gcCount = count;
+      gcTime = millis;
+    }
+  }
+}
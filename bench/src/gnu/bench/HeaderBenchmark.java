@@ -0,0 +1,67 @@
+/* gnu.bench.HeaderBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.classpath.tools.javah.Javah;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates the JNI header of each class of the fixture jar in turn into
+ * a temporary directory, as javah -d does.
+ */
+public class HeaderBenchmark extends Benchmark
+{
+  private Javah javah;
+  private List<String> classes;
+  private PrintStream out = new PrintStream(new CountingOutputStream());
+  private int next;
+
+  public String getName()
+  {
+    return "javah.header";
+  }
+
+  public boolean usesFixtureJar()
+  {
+    return true;
+  }
+
+  protected void setUp() throws Exception
+  {
+    javah = Javah.getInstance();
+    javah.setClasspath(getFixtureJar().getPath());
+    javah.setOutputDirectory(getTempDirectory().getPath());
+    List<String> none = Collections.emptyList();
+    classes = javah.listClasses(getFixtureJar().getPath(), none, none);
+  }
+
+  protected Object run() throws Exception
+  {
+    javah.printClassFile(classes.get(next++ % classes.size()), out);
+    return null;
+  }
+
+  protected void tearDown()
+  {
+    javah.close();
+  }
+}
@@ -0,0 +1,68 @@
+/* gnu.bench.JavapBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.classpath.tools.javap.Javap;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Prints each class of the fixture jar in turn with javap's default
+ * options, discarding the output.
+ */
+public class JavapBenchmark extends Benchmark
+{
+  private Javap javap;
+  private List<String> classes;
+  private CountingOutputStream bytes = new CountingOutputStream();
+  private PrintStream out = new PrintStream(bytes);
+  private int next;
+
+  public String getName()
+  {
+    return "javap.print";
+  }
+
+  public boolean usesFixtureJar()
+  {
+    return true;
+  }
+
+  protected void setUp() throws Exception
+  {
+    javap = Javap.getInstance();
+    javap.setClasspath(getFixtureJar().getPath());
+    List<String> none = Collections.emptyList();
+    classes = javap.listClasses(getFixtureJar().getPath(), none, none);
+  }
+
+  protected Object run() throws Exception
+  {
+    javap.printClassFile(classes.get(next++ % classes.size()), out);
+    out.flush();
+    return Long.valueOf(bytes.getCount());
+  }
+
+  protected void tearDown()
+  {
+    javap.close();
+  }
+}
@@ -0,0 +1,56 @@
+/* gnu.bench.ParserBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.ldml.Parser;
+import java.io.File;
+import java.net.URL;
+import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.XMLReader;
+
+/**
+ * Parses the LDML locale sample into an element tree.
+ */
+public class ParserBenchmark extends Benchmark
+{
+  private XMLReader reader;
+  private URL url;
+
+  public String getName()
+  {
+    return "ldml.parse";
+  }
+
+  protected void setUp() throws Exception
+  {
+    SAXParserFactory factory = SAXParserFactory.newInstance();
+    factory.setNamespaceAware(true);
+    reader = factory.newSAXParser().getXMLReader();
+    url = new File(getDataDirectory(), "xx.xml").toURI().toURL();
+  }
+
+  protected Object run() throws Exception
+  {
+    Parser parser = new Parser();
+    parser.setURL(url);
+    parser.parse(reader);
+    return parser.rootElement;
+  }
+}
@@ -0,0 +1,55 @@
+/* gnu.bench.PropertiesBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.ldml.Analyzer;
+import gnu.localegen.PropertiesGenerator;
+import java.io.File;
+import java.util.Collections;
+
+/**
+ * Generates the locale properties file for the LDML locale sample into a
+ * temporary directory.
+ */
+public class PropertiesBenchmark extends Benchmark
+{
+  private Analyzer analyzer;
+
+  public String getName()
+  {
+    return "properties.generate";
+  }
+
+  protected void setUp() throws Exception
+  {
+    File f = new File(getDataDirectory(), "xx.xml");
+    analyzer = new Analyzer(f.toURI().toURL());
+  }
+
+  protected Object run() throws Exception
+  {
+    PropertiesGenerator generator = new PropertiesGenerator("gnu.java.locale",
+                                                            Collections
+                                                              .singletonList(analyzer),
+                                                            "xx");
+    generator.generate(getTempDirectory().getPath());
+    return generator;
+  }
+}
@@ -0,0 +1,53 @@
+/* gnu.bench.TreeCacheBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.bench;
+
+import gnu.ldml.Parser;
+import gnu.ldml.TreeCache;
+import java.io.File;
+import java.net.URL;
+
+/**
+ * Loads the LDML locale sample from a tree cache filled in advance, as a
+ * rerun of localegen does for unchanged files.
+ */
+public class TreeCacheBenchmark extends Benchmark
+{
+  private TreeCache cache;
+  private URL url;
+
+  public String getName()
+  {
+    return "ldml.load";
+  }
+
+  protected void setUp() throws Exception
+  {
+    cache = new TreeCache(getTempDirectory());
+    url = new File(getDataDirectory(), "xx.xml").toURI().toURL();
+    cache.load(url);
+  }
+
+  protected Object run() throws Exception
+  {
+    Parser parser = cache.load(url);
+    return parser.rootElement;
+  }
+}
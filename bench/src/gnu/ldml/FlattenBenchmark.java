@@ -0,0 +1,54 @@
+/* gnu.ldml.FlattenBenchmark
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.ldml;
+
+import gnu.bench.Benchmark;
+import java.io.File;
+import javax.xml.parsers.SAXParserFactory;
+
+/**
+ * Flattens the element tree of the LDML locale sample into the table of
+ * elements by full name.  This benchmark is in gnu.ldml to reach
+ * {@link Analyzer#flattenBranch(Element)}.
+ */
+public class FlattenBenchmark extends Benchmark
+{
+  private Element root;
+
+  public String getName()
+  {
+    return "ldml.flatten";
+  }
+
+  protected void setUp() throws Exception
+  {
+    SAXParserFactory factory = SAXParserFactory.newInstance();
+    factory.setNamespaceAware(true);
+    Parser parser = new Parser();
+    parser.setURL(new File(getDataDirectory(), "xx.xml").toURI().toURL());
+    parser.parse(factory.newSAXParser().getXMLReader());
+    root = parser.rootElement;
+  }
+
+  protected Object run()
+  {
+    return Analyzer.flattenBranch(root);
+  }
+}
@@ -0,0 +1,231 @@
+/* gnu.classpath.tools.AtomicOutputStream
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A stream which replaces a file as a whole.  Nothing is visible at the
+ * target until the stream is closed, when the new contents are renamed
+ * over it in one step, so a crash or a concurrent reader never sees a
+ * partly written file, and several processes may write different files
+ * in the same directory at once.  Where a rename cannot replace a file,
+ * the old one is moved aside first and put back if the new one cannot
+ * take its place, so a reader may briefly find no file at all.
+ * 
+ * The contents are kept in memory, and only moved to a temporary file in
+ * the target's directory if they grow large, so that a small file costs
+ * one create, one write and one rename.  If the
+ * gnu.classpath.tools.syncOutput system property is true, the data is
+ * also forced to disk before the rename.
+ * 
+ * A stream which is not to be used should be passed to {@link #discard()}
+ * rather than closed, to leave the target untouched:
+ * 
+ * <pre>
+ * AtomicOutputStream out = new AtomicOutputStream(file);
+ * try
+ *   {
+ *     ... write ...
+ *     out.close();
+ *   }
+ * finally
+ *   {
+ *     out.discard();
+ *   }
+ * </pre>
+ */
+public class AtomicOutputStream extends OutputStream
+{
+  private static final String SYNC_OUTPUT = "gnu.classpath.tools.syncOutput";
+  private static final int SPILL_SIZE = 1 << 20;
+  private final File target;
+  private final boolean sync;
+  private ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+  private File tmp;
+  private FileOutputStream out;
+  private boolean done;
+
+  /**
+   * Starts replacing a file, forcing it to disk if the
+   * gnu.classpath.tools.syncOutput property is true.
+   * 
+   * @param target the file to replace
+   */
+  public AtomicOutputStream(File target)
+  {
+    this(target, Boolean.getBoolean(SYNC_OUTPUT));
+  }
+
+  /**
+   * Starts replacing a file.
+   * 
+   * @param target the file to replace
+   * @param sync true if the new contents should be forced to disk before
+   *          they replace the file
+   */
+  public AtomicOutputStream(File target, boolean sync)
+  {
+    this.target = target;
+    this.sync = sync;
+  }
+
+  /**
+   * @return the file being replaced
+   */
+  public File getTarget()
+  {
+    return target;
+  }
+
+  private void ensureOpen() throws IOException
+  {
+    if (done)
+      throw new IOException("Stream closed");
+  }
+
+  /**
+   * Moves the contents written so far to a temporary file.
+   */
+  private void spill() throws IOException
+  {
+    tmp = createTempFile();
+    out = new FileOutputStream(tmp);
+    buffer.writeTo(out);
+    buffer = null;
+  }
+
+  private File createTempFile() throws IOException
+  {
+    File dir = target.getAbsoluteFile().getParentFile();
+    return File.createTempFile("." + target.getName() + ".", ".tmp", dir);
+  }
+
+  public void write(int b) throws IOException
+  {
+    ensureOpen();
+    if (out != null)
+      out.write(b);
+    else
+      buffer.write(b);
+  }
+
+  public void write(byte[] b, int off, int len) throws IOException
+  {
+    ensureOpen();
+    if (out == null && buffer.size() + len > SPILL_SIZE)
+      spill();
+    if (out != null)
+      out.write(b, off, len);
+    else
+      buffer.write(b, off, len);
+  }
+
+  /**
+   * Replaces the target with what has been written.  If this fails, the
+   * target is left as it was.
+   * 
+   * @throws IOException if the target could not be replaced
+   */
+  public void close() throws IOException
+  {
+    if (done)
+      return;
+    done = true;
+    boolean replaced = false;
+    try
+      {
+        if (out == null)
+          {
+            tmp = createTempFile();
+            out = new FileOutputStream(tmp);
+            buffer.writeTo(out);
+            buffer = null;
+          }
+        if (sync)
+          {
+            out.flush();
+            out.getFD().sync();
+          }
+        out.close();
+        out = null;
+        if (!tmp.renameTo(target) && !replaceAside())
+          throw new IOException("The file " + target.getPath()
+                                + " could not be replaced.");
+        tmp = null;
+        replaced = true;
+      }
+    finally
+      {
+        if (!replaced)
+          discard();
+      }
+  }
+
+  /**
+   * Replaces the target where File.renameTo will not replace an existing
+   * file, as on Windows: the target is moved aside, and moved back if the
+   * new contents cannot take its place.  A reader may briefly find no
+   * file, but never a partly written one.
+   */
+  private boolean replaceAside()
+  {
+    File old = new File(tmp.getPath() + ".old");
+    if (!target.renameTo(old))
+      return false;
+    if (tmp.renameTo(target))
+      {
+        old.delete();
+        return true;
+      }
+    old.renameTo(target);
+    return false;
+  }
+
+  /**
+   * Abandons the new contents, leaving the target untouched.  This does
+   * nothing once the stream has been closed successfully.
+   */
+  public void discard()
+  {
+    done = true;
+    buffer = null;
+    if (out != null)
+      {
+        try
+          {
+            out.close();
+          }
+        catch (IOException ioe)
+          {
+          }
+        out = null;
+      }
+    if (tmp != null)
+      {
+        tmp.delete();
+        tmp = null;
+      }
+  }
+}
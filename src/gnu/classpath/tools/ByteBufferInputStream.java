@@ -0,0 +1,86 @@
+/* gnu.classpath.tools.ByteBufferInputStream
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An input stream reading directly from a byte buffer, such as a slice of
+ * a memory-mapped archive.  The buffer is not copied.
+ */
+class ByteBufferInputStream extends InputStream
+{
+  private final ByteBuffer buf;
+
+  ByteBufferInputStream(ByteBuffer buf)
+  {
+    this.buf = buf;
+  }
+
+  public int available()
+  {
+    return buf.remaining();
+  }
+
+  public synchronized void mark(int readlimit)
+  {
+    buf.mark();
+  }
+
+  public boolean markSupported()
+  {
+    return true;
+  }
+
+  public int read()
+  {
+    if (!buf.hasRemaining())
+      return -1;
+    return buf.get() & 0xFF;
+  }
+
+  public int read(byte[] b, int off, int len)
+  {
+    if (len == 0)
+      return 0;
+    int remaining = buf.remaining();
+    if (remaining == 0)
+      return -1;
+    if (len > remaining)
+      len = remaining;
+    buf.get(b, off, len);
+    return len;
+  }
+
+  public synchronized void reset()
+  {
+    buf.reset();
+  }
+
+  public long skip(long n)
+  {
+    if (n <= 0)
+      return 0;
+    int skipped = (int) Math.min(n, buf.remaining());
+    buf.position(buf.position() + skipped);
+    return skipped;
+  }
+}
@@ -0,0 +1,238 @@
+/* gnu.classpath.tools.ChannelWriter
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A buffered writer which encodes characters straight into a byte channel.
+ * Unlike the writers in java.io, it does no locking and it can append
+ * integers and lines without creating intermediate strings, so a single
+ * instance can be reused for a large amount of output from one thread.
+ */
+public class ChannelWriter extends Writer
+{
+  private static final String LINE_SEPARATOR = System
+    .getProperty("line.separator");
+  private static final int BUFFER_SIZE = 8192;
+  private final WritableByteChannel channel;
+  private final OutputStream out;
+  private final CharsetEncoder encoder;
+  private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+  private final ByteBuffer bytes;
+  private final char[] digits = new char[20];
+
+  /**
+   * Creates a writer encoding to the given channel.
+   * 
+   * @param channel the channel to write to
+   * @param charset the character set to encode with
+   */
+  public ChannelWriter(WritableByteChannel channel, Charset charset)
+  {
+    this(channel, charset, null);
+  }
+
+  /**
+   * Creates a writer encoding to the given stream with the platform's
+   * default character set.  The stream is flushed whenever this writer is.
+   * 
+   * @param out the stream to write to
+   */
+  public ChannelWriter(OutputStream out)
+  {
+    this(Channels.newChannel(out), Charset.defaultCharset(), out);
+  }
+
+  private ChannelWriter(WritableByteChannel channel, Charset charset,
+                        OutputStream out)
+  {
+    this.channel = channel;
+    this.out = out;
+    encoder = charset.newEncoder();
+    encoder.onMalformedInput(CodingErrorAction.REPLACE);
+    encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+    bytes = ByteBuffer.allocate((int) (BUFFER_SIZE * encoder.maxBytesPerChar()));
+  }
+
+  public ChannelWriter append(char c) throws IOException
+  {
+    if (!chars.hasRemaining())
+      drain(false);
+    chars.put(c);
+    return this;
+  }
+
+  public ChannelWriter append(CharSequence csq) throws IOException
+  {
+    if (csq == null)
+      csq = "null";
+    return append(csq, 0, csq.length());
+  }
+
+  public ChannelWriter append(CharSequence csq, int start, int end)
+    throws IOException
+  {
+    if (csq == null)
+      csq = "null";
+    if (csq instanceof String)
+      {
+        write((String) csq, start, end - start);
+        return this;
+      }
+    for (int i = start; i < end; i++)
+      append(csq.charAt(i));
+    return this;
+  }
+
+  /**
+   * Appends the decimal representation of an integer.
+   * 
+   * @param value the integer
+   * @return this writer
+   */
+  public ChannelWriter append(int value) throws IOException
+  {
+    return append((long) value);
+  }
+
+  /**
+   * Appends the decimal representation of a long integer.
+   * 
+   * @param value the integer
+   * @return this writer
+   */
+  public ChannelWriter append(long value) throws IOException
+  {
+    if (value == Long.MIN_VALUE)
+      return append(Long.toString(value));
+    boolean negative = value < 0;
+    if (negative)
+      value = -value;
+    int pos = digits.length;
+    do
+      {
+        digits[--pos] = (char) ('0' + (value % 10));
+        value /= 10;
+      }
+    while (value != 0);
+    if (negative)
+      digits[--pos] = '-';
+    write(digits, pos, digits.length - pos);
+    return this;
+  }
+
+  /**
+   * Ends the current line.
+   * 
+   * @return this writer
+   */
+  public ChannelWriter newLine() throws IOException
+  {
+    return append(LINE_SEPARATOR);
+  }
+
+  public void write(int c) throws IOException
+  {
+    append((char) c);
+  }
+
+  public void write(char[] cbuf, int off, int len) throws IOException
+  {
+    while (len > 0)
+      {
+        if (!chars.hasRemaining())
+          drain(false);
+        int n = Math.min(len, chars.remaining());
+        chars.put(cbuf, off, n);
+        off += n;
+        len -= n;
+      }
+  }
+
+  public void write(String str, int off, int len) throws IOException
+  {
+    while (len > 0)
+      {
+        if (!chars.hasRemaining())
+          drain(false);
+        int n = Math.min(len, chars.remaining());
+        chars.put(str, off, off + n);
+        off += n;
+        len -= n;
+      }
+  }
+
+  /**
+   * Encodes the buffered characters and writes them to the channel.  A
+   * trailing high surrogate is kept back until its pair arrives, unless
+   * <code>endOfInput</code> is true.
+   */
+  private void drain(boolean endOfInput) throws IOException
+  {
+    chars.flip();
+    while (true)
+      {
+        CoderResult result = encoder.encode(chars, bytes, endOfInput);
+        if (result.isOverflow() || bytes.position() > 0)
+          writeBytes();
+        if (!result.isOverflow())
+          break;
+      }
+    if (endOfInput)
+      {
+        encoder.flush(bytes);
+        writeBytes();
+        encoder.reset();
+      }
+    chars.compact();
+  }
+
+  private void writeBytes() throws IOException
+  {
+    bytes.flip();
+    while (bytes.hasRemaining())
+      channel.write(bytes);
+    bytes.clear();
+  }
+
+  public void flush() throws IOException
+  {
+    drain(true);
+    if (out != null)
+      out.flush();
+  }
+
+  public void close() throws IOException
+  {
+    flush();
+    channel.close();
+  }
+}
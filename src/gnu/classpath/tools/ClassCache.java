@@ -0,0 +1,171 @@
+/* gnu.classpath.tools.ClassCache
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A directory of {@link ClassSummary} objects saved by earlier runs, so
+ * that classes in unchanged archives need not be parsed again.
+ * 
+ * Each summary is stored under a key made up of the path and modification
+ * time of the container it came from, the file name within the container
+ * and the checksum of that entry, so a summary is no longer found once the
+ * archive or class file changes.  The file holding a summary is named
+ * after a digest of the key, and the key itself is stored at the start of
+ * the file and checked on reading.
+ * 
+ * Stale files are never removed; the directory can simply be deleted.
+ * Errors reading or writing the cache are ignored, in which case the
+ * class is parsed as if there were no cache.
+ */
+public class ClassCache
+{
+  private static final int MAGIC = 0x47435331; // GCS1
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+  private final File dir;
+
+  /**
+   * @param dir the cache directory, which is created if needed
+   */
+  public ClassCache(File dir)
+  {
+    this.dir = dir;
+  }
+
+  public File getDirectory()
+  {
+    return dir;
+  }
+
+  /**
+   * Builds the key for a file in a container.
+   * 
+   * @param container the container holding the file
+   * @param filename a class file name of the form a/b/C.class
+   * @return the key, or <code>null</code> if the file cannot be found
+   * @throws IOException if the container cannot be read
+   */
+  static String getKey(ClassContainer container, String filename)
+    throws IOException
+  {
+    long checksum = container.getChecksum(filename);
+    if (checksum == -1)
+      return null;
+    File f = container.getFile();
+    StringBuilder buf = new StringBuilder();
+    buf.append(f.getAbsolutePath()).append('\0');
+    buf.append(Long.toHexString(f.lastModified())).append('\0');
+    buf.append(filename).append('\0');
+    buf.append(Long.toHexString(checksum));
+    return buf.toString();
+  }
+
+  private File getFile(String key)
+  {
+    byte[] digest;
+    try
+      {
+        digest = MessageDigest.getInstance("SHA-1").digest(key
+          .getBytes("UTF-8"));
+      }
+    catch (NoSuchAlgorithmException e)
+      {
+        throw new Error("SHA-1 not supported", e);
+      }
+    catch (IOException e)
+      {
+        throw new Error("UTF-8 not supported", e);
+      }
+    char[] name = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++)
+      {
+        name[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+        name[i * 2 + 1] = HEX[digest[i] & 0xF];
+      }
+    return new File(dir, new String(name));
+  }
+
+  /**
+   * @param key the key built by {@link #getKey}
+   * @return the saved summary, or <code>null</code> if there is none
+   */
+  public ClassSummary get(String key)
+  {
+    File f = getFile(key);
+    if (!f.isFile())
+      return null;
+    try
+      {
+        DataInputStream in = new DataInputStream(
+          new BufferedInputStream(new FileInputStream(f)));
+        try
+          {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(key))
+              return null;
+            return ClassSummary.readFrom(in);
+          }
+        finally
+          {
+            in.close();
+          }
+      }
+    catch (IOException ioe)
+      {
+        return null;
+      }
+  }
+
+  /**
+   * Saves a summary.  It is written with an {@link AtomicOutputStream}, so
+   * that a concurrent run never sees a partial entry.
+   * 
+   * @param key the key built by {@link #getKey}
+   * @param summary the summary to save
+   */
+  public void put(String key, ClassSummary summary)
+  {
+    if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory())
+      return;
+    AtomicOutputStream file = new AtomicOutputStream(getFile(key), false);
+    try
+      {
+        DataOutputStream out = new DataOutputStream(file);
+        out.writeInt(MAGIC);
+        out.writeUTF(key);
+        summary.writeTo(out);
+        out.close();
+      }
+    catch (IOException ioe)
+      {
+      }
+    finally
+      {
+        file.discard();
+      }
+  }
+}
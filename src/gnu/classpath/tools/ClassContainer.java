@@ -0,0 +1,138 @@
+/* gnu.classpath.tools.ClassContainer
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A single element of a class search path, either a directory or an
+ * archive.  Containers are opened once by {@link Util} and kept open
+ * until {@link #close()} is called, so that repeated lookups do not
+ * pay for reopening the underlying file.
+ */
+public abstract class ClassContainer
+{
+  private final File file;
+
+  protected ClassContainer(File file)
+  {
+    this.file = file;
+  }
+
+  /**
+   * Creates the appropriate container for the given search path element.
+   * 
+   * @param f the directory or archive
+   * @param mapped true if archives should be memory-mapped where possible
+   * @return the container, or <code>null</code> if <code>f</code> does
+   *         not exist or cannot be opened
+   */
+  static ClassContainer create(File f, boolean mapped)
+  {
+    if (f.isDirectory())
+      return new DirectoryContainer(f);
+    if (f.isFile())
+      {
+        if (mapped)
+          {
+            try
+              {
+                return new MappedZipContainer(f);
+              }
+            catch (IOException ioe)
+              {
+              }
+          }
+        try
+          {
+            return new ZipContainer(f);
+          }
+        catch (IOException ioe)
+          {
+          }
+      }
+    return null;
+  }
+
+  /**
+   * @return the directory or archive this container reads from
+   */
+  public final File getFile()
+  {
+    return file;
+  }
+
+  /**
+   * @param filename a class file name of the form a/b/C.class
+   * @return true if this container holds the given file
+   */
+  public abstract boolean contains(String filename);
+
+  /**
+   * Lists the class files held by this container.
+   * 
+   * @return the file names, of the form a/b/C.class
+   * @throws IOException if the container cannot be read
+   */
+  public abstract List<String> getClassFiles() throws IOException;
+
+  /**
+   * @param name a file name within a container
+   * @return true if the name refers to a class file which is not part of the
+   *         archive metadata
+   */
+  static boolean isClassFile(String name)
+  {
+    return name.endsWith(".class") && !name.startsWith("META-INF/");
+  }
+
+  /**
+   * Opens the given entry for reading.
+   * 
+   * @param filename a class file name of the form a/b/C.class
+   * @return a stream over the entry, or <code>null</code> if this container
+   *         does not hold it
+   * @throws IOException if the entry exists but cannot be read
+   */
+  public abstract InputStream getInputStream(String filename)
+    throws IOException;
+
+  /**
+   * Returns a value which changes whenever the given entry does, so that
+   * information derived from the entry can be cached.  Archives return the
+   * CRC-32 recorded for the entry; directories return the modification
+   * time and length of the file.
+   * 
+   * @param filename a class file name of the form a/b/C.class
+   * @return the checksum, or -1 if this container does not hold the file
+   * @throws IOException if the container cannot be read
+   */
+  public abstract long getChecksum(String filename) throws IOException;
+
+  /**
+   * Releases any resources held by this container.
+   */
+  public void close() throws IOException
+  {
+  }
+}
@@ -0,0 +1,156 @@
+/* gnu.classpath.tools.ClassPath
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * A search path for classes, which may be shared by any number of
+ * {@link gnu.classpath.tools.javap.Javap} and
+ * {@link gnu.classpath.tools.javah.Javah} instances and used from several
+ * threads at once.  Its archives are opened on first use and the container
+ * holding each class is remembered, so that a process which embeds the
+ * tools indexes a path only once however many requests it serves.  Unlike
+ * {@link Util}, its settings cannot be changed once it has been created.
+ */
+public final class ClassPath
+{
+  private final Util util = new Util();
+  private final File cacheDirectory;
+  private final File workingDirectory;
+
+  /**
+   * Creates a path on which classes are found as when the tools are run
+   * without -classpath.
+   */
+  public ClassPath()
+  {
+    this(null, null, null);
+  }
+
+  /**
+   * @param path the path to search, or <code>null</code> for the default
+   */
+  public ClassPath(String path)
+  {
+    this(path, null, null);
+  }
+
+  /**
+   * @param path the path to search, or <code>null</code> for the default
+   * @param cacheDirectory the directory in which to cache class summaries
+   *          between runs, or <code>null</code> for the default taken from
+   *          the gnu.classpath.tools.classCache system property
+   * @param workingDirectory the directory against which relative file
+   *          names are resolved, or <code>null</code> for the current one
+   */
+  public ClassPath(String path, File cacheDirectory, File workingDirectory)
+  {
+    this.cacheDirectory = cacheDirectory;
+    this.workingDirectory = workingDirectory;
+    util.setWorkingDirectory(workingDirectory);
+    if (path != null)
+      util.setClasspath(path);
+    if (cacheDirectory != null)
+      util.setCacheDirectory(cacheDirectory);
+  }
+
+  /**
+   * @see Util#findClass(String)
+   */
+  public InputStream findClass(String className) throws ClassNotFoundException
+  {
+    return util.findClass(className);
+  }
+
+  /**
+   * @see Util#getClassSummary(String)
+   */
+  public ClassSummary getClassSummary(String className)
+    throws ClassNotFoundException, IOException
+  {
+    return util.getClassSummary(className);
+  }
+
+  /**
+   * @see Util#getClassKey(String)
+   */
+  public String getClassKey(String className) throws IOException
+  {
+    return util.getClassKey(className);
+  }
+
+  /**
+   * @see Util#getFile(String)
+   */
+  public File getFile(String name)
+  {
+    return util.getFile(name);
+  }
+
+  /**
+   * @see Util#getSearchPath()
+   */
+  public String getSearchPath()
+  {
+    return util.getSearchPath();
+  }
+
+  /**
+   * Lists the classes in a directory, archive or package, or on the whole
+   * path if <code>source</code> is null.  Unlike
+   * {@link Util#listClasses(String,List,List)}, a directory or archive is
+   * only read for the listing and is not added to this path; use
+   * {@link #prepend(String)} for a path on which its classes are found.
+   * 
+   * @see Util#listClasses(String,List,List)
+   */
+  public List<String> listClasses(String source, List<String> includes,
+                                  List<String> excludes) throws IOException
+  {
+    return util.listClasses(source, includes, excludes, false);
+  }
+
+  /**
+   * Returns a new path which searches a directory or archive before this
+   * path, with the same cache and working directories.  This path is left
+   * as it was.
+   * 
+   * @param source the directory or archive
+   * @return the new path
+   */
+  public ClassPath prepend(String source)
+  {
+    return new ClassPath(source + File.pathSeparator + getSearchPath(),
+                         cacheDirectory, workingDirectory);
+  }
+
+  /**
+   * Closes the archives of this path.  It is reopened if it is used again
+   * afterwards.
+   */
+  public void close()
+  {
+    util.close();
+  }
+}
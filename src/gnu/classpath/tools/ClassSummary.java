@@ -0,0 +1,990 @@
+/* gnu.classpath.tools.ClassSummary
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The declarations of a class, read directly from its class file.  Only the
+ * constant pool, the access flags, the field and method tables and the
+ * SourceFile, InnerClasses, Exceptions and ConstantValue attributes are
+ * decoded.  Code attributes are skipped by length, apart from the maximum
+ * stack and local variable sizes at their start, and strings from the
+ * constant pool are only decoded when they are used.
+ * 
+ * A summary may also be written out in a compact binary form and read back
+ * without the class file, which is how {@link ClassCache} stores it.
+ */
+public class ClassSummary
+{
+  private static final int MAGIC = 0xCAFEBABE;
+  private static final int CONSTANT_Utf8 = 1;
+  private static final int CONSTANT_Integer = 3;
+  private static final int CONSTANT_Float = 4;
+  private static final int CONSTANT_Long = 5;
+  private static final int CONSTANT_Double = 6;
+  private static final int CONSTANT_Class = 7;
+  private static final int CONSTANT_String = 8;
+  private static final int CONSTANT_Fieldref = 9;
+  private static final int CONSTANT_Methodref = 10;
+  private static final int CONSTANT_InterfaceMethodref = 11;
+  private static final int CONSTANT_NameAndType = 12;
+  private static final int CONSTANT_MethodHandle = 15;
+  private static final int CONSTANT_MethodType = 16;
+  private static final int CONSTANT_Dynamic = 17;
+  private static final int CONSTANT_InvokeDynamic = 18;
+  private static final int CONSTANT_Module = 19;
+  private static final int CONSTANT_Package = 20;
+
+  /**
+   * A field or method of the class.
+   */
+  public static final class Member
+  {
+    private final int flags;
+    private final String name;
+    private final String descriptor;
+    private String[] exceptions;
+    private Object constantValue;
+    private int maxStack = -1;
+    private int maxLocals = -1;
+    private int[] lineNumbers;
+    private List<LocalVariable> localVariables;
+
+    Member(int flags, String name, String descriptor)
+    {
+      this.flags = flags;
+      this.name = name;
+      this.descriptor = descriptor;
+    }
+
+    /**
+     * @return the access flags
+     */
+    public int getModifiers()
+    {
+      return flags;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * @return the type descriptor, such as (ILjava/lang/String;)V
+     */
+    public String getSignature()
+    {
+      return descriptor;
+    }
+
+    /**
+     * @return the name of a field's type, such as java.lang.String[]
+     */
+    public String getTypeName()
+    {
+      return ClassSummary.getTypeName(descriptor, 0);
+    }
+
+    /**
+     * @return the name of a method's return type
+     */
+    public String getReturnTypeName()
+    {
+      return ClassSummary.getTypeName(descriptor,
+                                      descriptor.indexOf(')') + 1);
+    }
+
+    /**
+     * @return the names of a method's parameter types
+     */
+    public String[] getParameterTypeNames()
+    {
+      List<String> names = new ArrayList<String>();
+      int pos = 1;
+      while (descriptor.charAt(pos) != ')')
+        {
+          names.add(ClassSummary.getTypeName(descriptor, pos));
+          pos = skipType(descriptor, pos);
+        }
+      return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * @return the names of the exceptions a method declares, or
+     *         <code>null</code> if it has no Exceptions attribute
+     */
+    public String[] getExceptions()
+    {
+      return exceptions;
+    }
+
+    /**
+     * @return the value of a constant field, as an Integer, Long, Float,
+     *         Double or String, or <code>null</code> if it has none
+     */
+    public Object getConstantValue()
+    {
+      return constantValue;
+    }
+
+    /**
+     * @return true if the method has a Code attribute
+     */
+    public boolean hasCode()
+    {
+      return maxStack >= 0;
+    }
+
+    public int getMaxStack()
+    {
+      return maxStack;
+    }
+
+    public int getMaxLocals()
+    {
+      return maxLocals;
+    }
+
+    /**
+     * Returns the line number table of a method's code, as pairs of a
+     * start pc and a line number.  Only summaries read with debugging
+     * information have one.
+     * 
+     * @return the table, or <code>null</code> if there is none
+     */
+    public int[] getLineNumbers()
+    {
+      return lineNumbers;
+    }
+
+    /**
+     * Returns the local variable table of a method's code.  Only summaries
+     * read with debugging information have one.
+     * 
+     * @return the variables, or <code>null</code> if there is no table
+     */
+    public List<LocalVariable> getLocalVariables()
+    {
+      return localVariables;
+    }
+  }
+
+  /**
+   * An entry of the local variable table of a method.
+   */
+  public static final class LocalVariable
+  {
+    private final int startPC;
+    private final int length;
+    private final String name;
+    private final String descriptor;
+    private final int slot;
+
+    LocalVariable(int startPC, int length, String name, String descriptor,
+                  int slot)
+    {
+      this.startPC = startPC;
+      this.length = length;
+      this.name = name;
+      this.descriptor = descriptor;
+      this.slot = slot;
+    }
+
+    /**
+     * @return the pc at which the variable comes into scope
+     */
+    public int getStartPC()
+    {
+      return startPC;
+    }
+
+    /**
+     * @return the number of bytes of code for which it is in scope
+     */
+    public int getLength()
+    {
+      return length;
+    }
+
+    public String getName()
+    {
+      return name;
+    }
+
+    /**
+     * @return the type descriptor, such as Ljava/lang/String;
+     */
+    public String getSignature()
+    {
+      return descriptor;
+    }
+
+    /**
+     * @return the index of the variable in the local variable array
+     */
+    public int getSlot()
+    {
+      return slot;
+    }
+  }
+
+  private byte[] data;
+  private int[] offsets;
+  private String[] strings;
+  private int pos;
+  private int flags;
+  private String name;
+  private String superName;
+  private String[] interfaces;
+  private String sourceFile;
+  private String[][] innerClasses;
+  private int[] innerClassFlags;
+  private List<Member> fields;
+  private List<Member> methods;
+  private boolean debug;
+
+  private ClassSummary(byte[] data, boolean debug) throws ClassFormatError
+  {
+    this.data = data;
+    this.debug = debug;
+    if (data.length < 10 || readInt() != MAGIC)
+      throw new ClassFormatError("Bad magic number");
+    pos += 4; // minor and major version
+    int count = readUnsignedShort();
+    offsets = new int[count];
+    strings = new String[count];
+    for (int i = 1; i < count; i++)
+      {
+        offsets[i] = pos;
+        int tag = data[pos++];
+        switch (tag)
+          {
+          case CONSTANT_Utf8:
+            int length = readUnsignedShort();
+            pos += length;
+            break;
+          case CONSTANT_Class:
+          case CONSTANT_String:
+          case CONSTANT_MethodType:
+          case CONSTANT_Module:
+          case CONSTANT_Package:
+            pos += 2;
+            break;
+          case CONSTANT_MethodHandle:
+            pos += 3;
+            break;
+          case CONSTANT_Integer:
+          case CONSTANT_Float:
+          case CONSTANT_Fieldref:
+          case CONSTANT_Methodref:
+          case CONSTANT_InterfaceMethodref:
+          case CONSTANT_NameAndType:
+          case CONSTANT_Dynamic:
+          case CONSTANT_InvokeDynamic:
+            pos += 4;
+            break;
+          case CONSTANT_Long:
+          case CONSTANT_Double:
+            pos += 8;
+            i++;
+            break;
+          default:
+            throw new ClassFormatError("Unknown constant pool tag " + tag);
+          }
+      }
+    flags = readUnsignedShort();
+    name = getClassName(readUnsignedShort());
+    int index = readUnsignedShort();
+    if (index != 0)
+      superName = getClassName(index);
+    interfaces = new String[readUnsignedShort()];
+    for (int i = 0; i < interfaces.length; i++)
+      interfaces[i] = getClassName(readUnsignedShort());
+    fields = readMembers();
+    methods = readMembers();
+    int attributes = readUnsignedShort();
+    for (int i = 0; i < attributes; i++)
+      {
+        String attr = getUtf8(readUnsignedShort());
+        int length = readInt();
+        int end = pos + length;
+        if (attr.equals("SourceFile"))
+          sourceFile = getUtf8(readUnsignedShort());
+        else if (attr.equals("InnerClasses"))
+          {
+            innerClasses = new String[readUnsignedShort()][];
+            innerClassFlags = new int[innerClasses.length];
+            for (int j = 0; j < innerClasses.length; j++)
+              {
+                int inner = readUnsignedShort();
+                int outer = readUnsignedShort();
+                int simple = readUnsignedShort();
+                innerClasses[j] = new String[] {
+                  getClassName(inner),
+                  outer == 0 ? null : getClassName(outer),
+                  simple == 0 ? null : getUtf8(simple) };
+                innerClassFlags[j] = readUnsignedShort();
+              }
+          }
+        pos = end;
+      }
+    // Everything has been decoded, so let the class file go.
+    this.data = null;
+    this.offsets = null;
+    this.strings = null;
+  }
+
+  private ClassSummary()
+  {
+  }
+
+  /**
+   * Reads the whole of a class file into memory.
+   * 
+   * @param in the stream to read, which is closed afterwards
+   * @return the contents of the stream
+   */
+  public static byte[] readBytes(InputStream in) throws IOException
+  {
+    try
+      {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math
+          .max(in.available(), 1024));
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) != -1)
+          out.write(buf, 0, n);
+        return out.toByteArray();
+      }
+    finally
+      {
+        in.close();
+      }
+  }
+
+  /**
+   * Summarizes a class file.
+   * 
+   * @param data the contents of the class file
+   * @return the summary
+   * @throws ClassFormatError if the data is not a valid class file
+   */
+  public static ClassSummary read(byte[] data) throws ClassFormatError
+  {
+    return read(data, false);
+  }
+
+  /**
+   * Summarizes a class file, optionally with the line number and local
+   * variable tables of its methods.  Those are not kept by the class
+   * summary cache, and so are only available from this method.
+   * 
+   * @param data the contents of the class file
+   * @param debug true if the debugging information should be read
+   * @return the summary
+   * @throws ClassFormatError if the data is not a valid class file
+   */
+  public static ClassSummary read(byte[] data, boolean debug)
+    throws ClassFormatError
+  {
+    try
+      {
+        return new ClassSummary(data, debug);
+      }
+    catch (ArrayIndexOutOfBoundsException e)
+      {
+        throw new ClassFormatError("Truncated class file");
+      }
+    catch (IndexOutOfBoundsException e)
+      {
+        throw new ClassFormatError("Malformed class file");
+      }
+  }
+
+  /**
+   * Summarizes a class file.
+   * 
+   * @param in the stream to read, which is closed afterwards
+   * @return the summary
+   * @throws ClassFormatError if the data is not a valid class file
+   */
+  public static ClassSummary read(InputStream in) throws IOException,
+    ClassFormatError
+  {
+    return read(readBytes(in));
+  }
+
+  /**
+   * Writes this summary in the form read by {@link #readFrom}.
+   */
+  void writeTo(DataOutputStream out) throws IOException
+  {
+    out.writeShort(flags);
+    out.writeUTF(name);
+    writeString(out, superName);
+    out.writeShort(interfaces.length);
+    for (int i = 0; i < interfaces.length; i++)
+      out.writeUTF(interfaces[i]);
+    writeString(out, sourceFile);
+    if (innerClasses == null)
+      out.writeInt(-1);
+    else
+      {
+        out.writeInt(innerClasses.length);
+        for (int i = 0; i < innerClasses.length; i++)
+          {
+            out.writeUTF(innerClasses[i][0]);
+            writeString(out, innerClasses[i][1]);
+            writeString(out, innerClasses[i][2]);
+            out.writeShort(innerClassFlags[i]);
+          }
+      }
+    writeMembers(out, fields);
+    writeMembers(out, methods);
+  }
+
+  private static void writeMembers(DataOutputStream out, List<Member> members)
+    throws IOException
+  {
+    out.writeShort(members.size());
+    for (int i = 0; i < members.size(); i++)
+      {
+        Member m = members.get(i);
+        out.writeShort(m.flags);
+        out.writeUTF(m.name);
+        out.writeUTF(m.descriptor);
+        if (m.exceptions == null)
+          out.writeInt(-1);
+        else
+          {
+            out.writeInt(m.exceptions.length);
+            for (int j = 0; j < m.exceptions.length; j++)
+              out.writeUTF(m.exceptions[j]);
+          }
+        Object value = m.constantValue;
+        if (value == null)
+          out.writeByte(0);
+        else if (value instanceof Integer)
+          {
+            out.writeByte('I');
+            out.writeInt(((Integer) value).intValue());
+          }
+        else if (value instanceof Long)
+          {
+            out.writeByte('J');
+            out.writeLong(((Long) value).longValue());
+          }
+        else if (value instanceof Float)
+          {
+            out.writeByte('F');
+            out.writeFloat(((Float) value).floatValue());
+          }
+        else if (value instanceof Double)
+          {
+            out.writeByte('D');
+            out.writeDouble(((Double) value).doubleValue());
+          }
+        else
+          {
+            out.writeByte('S');
+            out.writeUTF((String) value);
+          }
+        out.writeInt(m.maxStack);
+        out.writeInt(m.maxLocals);
+      }
+  }
+
+  private static void writeString(DataOutputStream out, String s)
+    throws IOException
+  {
+    out.writeBoolean(s != null);
+    if (s != null)
+      out.writeUTF(s);
+  }
+
+  /**
+   * Reads a summary written by {@link #writeTo}.
+   */
+  static ClassSummary readFrom(DataInputStream in) throws IOException
+  {
+    ClassSummary summary = new ClassSummary();
+    summary.flags = in.readUnsignedShort();
+    summary.name = in.readUTF();
+    summary.superName = readString(in);
+    summary.interfaces = new String[in.readUnsignedShort()];
+    for (int i = 0; i < summary.interfaces.length; i++)
+      summary.interfaces[i] = in.readUTF();
+    summary.sourceFile = readString(in);
+    int count = in.readInt();
+    if (count >= 0)
+      {
+        summary.innerClasses = new String[count][];
+        summary.innerClassFlags = new int[count];
+        for (int i = 0; i < count; i++)
+          {
+            summary.innerClasses[i] = new String[] { in.readUTF(),
+                                                     readString(in),
+                                                     readString(in) };
+            summary.innerClassFlags[i] = in.readUnsignedShort();
+          }
+      }
+    summary.fields = readMembers(in);
+    summary.methods = readMembers(in);
+    return summary;
+  }
+
+  private static List<Member> readMembers(DataInputStream in)
+    throws IOException
+  {
+    int count = in.readUnsignedShort();
+    if (count == 0)
+      return Collections.emptyList();
+    List<Member> members = new ArrayList<Member>(count);
+    for (int i = 0; i < count; i++)
+      {
+        Member m = new Member(in.readUnsignedShort(), in.readUTF(),
+                              in.readUTF());
+        int exceptions = in.readInt();
+        if (exceptions >= 0)
+          {
+            m.exceptions = new String[exceptions];
+            for (int j = 0; j < exceptions; j++)
+              m.exceptions[j] = in.readUTF();
+          }
+        switch (in.readByte())
+          {
+          case 0:
+            break;
+          case 'I':
+            m.constantValue = Integer.valueOf(in.readInt());
+            break;
+          case 'J':
+            m.constantValue = Long.valueOf(in.readLong());
+            break;
+          case 'F':
+            m.constantValue = Float.valueOf(in.readFloat());
+            break;
+          case 'D':
+            m.constantValue = Double.valueOf(in.readDouble());
+            break;
+          case 'S':
+            m.constantValue = in.readUTF();
+            break;
+          default:
+            throw new IOException("Corrupt class summary");
+          }
+        m.maxStack = in.readInt();
+        m.maxLocals = in.readInt();
+        members.add(m);
+      }
+    return members;
+  }
+
+  private static String readString(DataInputStream in) throws IOException
+  {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private List<Member> readMembers()
+  {
+    int count = readUnsignedShort();
+    if (count == 0)
+      return Collections.emptyList();
+    List<Member> members = new ArrayList<Member>(count);
+    for (int i = 0; i < count; i++)
+      {
+        Member m = new Member(readUnsignedShort(),
+                              getUtf8(readUnsignedShort()),
+                              checkDescriptor(getUtf8(readUnsignedShort())));
+        int attributes = readUnsignedShort();
+        for (int j = 0; j < attributes; j++)
+          {
+            String attr = getUtf8(readUnsignedShort());
+            int length = readInt();
+            int end = pos + length;
+            if (attr.equals("Code"))
+              {
+                m.maxStack = readUnsignedShort();
+                m.maxLocals = readUnsignedShort();
+                if (debug)
+                  readDebugInfo(m);
+              }
+            else if (attr.equals("Exceptions"))
+              {
+                m.exceptions = new String[readUnsignedShort()];
+                for (int k = 0; k < m.exceptions.length; k++)
+                  m.exceptions[k] = getClassName(readUnsignedShort());
+              }
+            else if (attr.equals("ConstantValue"))
+              m.constantValue = getConstant(readUnsignedShort());
+            pos = end;
+          }
+        members.add(m);
+      }
+    return members;
+  }
+
+  /**
+   * Reads the line number and local variable tables from the rest of a
+   * Code attribute, which starts with the length of the code.
+   */
+  private void readDebugInfo(Member m)
+  {
+    int codeLength = readInt();
+    pos += codeLength;
+    int handlers = readUnsignedShort();
+    pos += handlers * 8;
+    int attributes = readUnsignedShort();
+    for (int i = 0; i < attributes; i++)
+      {
+        String attr = getUtf8(readUnsignedShort());
+        int length = readInt();
+        int end = pos + length;
+        if (attr.equals("LineNumberTable"))
+          {
+            int count = readUnsignedShort();
+            int start = 0;
+            int[] table;
+            if (m.lineNumbers == null)
+              table = new int[count * 2];
+            else
+              {
+                // A method may have one table for each part of its code.
+                start = m.lineNumbers.length;
+                table = new int[start + count * 2];
+                System.arraycopy(m.lineNumbers, 0, table, 0, start);
+              }
+            for (int j = start; j < table.length; j++)
+              table[j] = readUnsignedShort();
+            m.lineNumbers = table;
+          }
+        else if (attr.equals("LocalVariableTable"))
+          {
+            int count = readUnsignedShort();
+            if (m.localVariables == null)
+              m.localVariables = new ArrayList<LocalVariable>(count);
+            for (int j = 0; j < count; j++)
+              {
+                int startPC = readUnsignedShort();
+                int varLength = readUnsignedShort();
+                String varName = getUtf8(readUnsignedShort());
+                String varDescriptor = getUtf8(readUnsignedShort());
+                m.localVariables.add(new LocalVariable(startPC, varLength,
+                                                       varName,
+                                                       varDescriptor,
+                                                       readUnsignedShort()));
+              }
+          }
+        pos = end;
+      }
+  }
+
+  private int readUnsignedShort()
+  {
+    int value = ((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF);
+    pos += 2;
+    return value;
+  }
+
+  private int readInt()
+  {
+    int value = getInt(pos);
+    pos += 4;
+    return value;
+  }
+
+  private int getInt(int at)
+  {
+    return ((data[at] & 0xFF) << 24) | ((data[at + 1] & 0xFF) << 16)
+           | ((data[at + 2] & 0xFF) << 8) | (data[at + 3] & 0xFF);
+  }
+
+  private int checkTag(int index, int tag)
+  {
+    if (index <= 0 || index >= offsets.length || data[offsets[index]] != tag)
+      throw new ClassFormatError("Bad constant pool index " + index);
+    return offsets[index] + 1;
+  }
+
+  /**
+   * Decodes the modified UTF-8 constant at the given index, once.
+   */
+  private String getUtf8(int index)
+  {
+    String s = strings[index];
+    if (s != null)
+      return s;
+    int at = checkTag(index, CONSTANT_Utf8);
+    int length = ((data[at] & 0xFF) << 8) | (data[at + 1] & 0xFF);
+    at += 2;
+    int end = at + length;
+    char[] chars = new char[length];
+    int n = 0;
+    while (at < end)
+      {
+        int b = data[at++] & 0xFF;
+        if (b < 0x80)
+          chars[n++] = (char) b;
+        else if ((b & 0xE0) == 0xC0)
+          chars[n++] = (char) (((b & 0x1F) << 6) | (data[at++] & 0x3F));
+        else
+          {
+            chars[n++] = (char) (((b & 0x0F) << 12)
+                                 | ((data[at] & 0x3F) << 6)
+                                 | (data[at + 1] & 0x3F));
+            at += 2;
+          }
+      }
+    s = new String(chars, 0, n);
+    strings[index] = s;
+    return s;
+  }
+
+  private String getClassName(int index)
+  {
+    int at = checkTag(index, CONSTANT_Class);
+    return getUtf8(((data[at] & 0xFF) << 8) | (data[at + 1] & 0xFF))
+      .replace('/', '.');
+  }
+
+  private Object getConstant(int index)
+  {
+    if (index <= 0 || index >= offsets.length)
+      throw new ClassFormatError("Bad constant pool index " + index);
+    int at = offsets[index] + 1;
+    switch (data[offsets[index]])
+      {
+      case CONSTANT_Integer:
+        return Integer.valueOf(getInt(at));
+      case CONSTANT_Float:
+        return Float.valueOf(Float.intBitsToFloat(getInt(at)));
+      case CONSTANT_Long:
+        return Long.valueOf(((long) getInt(at) << 32)
+                            | (getInt(at + 4) & 0xFFFFFFFFL));
+      case CONSTANT_Double:
+        return Double.valueOf(Double.longBitsToDouble(((long) getInt(at) << 32)
+                                                      | (getInt(at + 4) & 0xFFFFFFFFL)));
+      case CONSTANT_String:
+        return getUtf8(((data[at] & 0xFF) << 8) | (data[at + 1] & 0xFF));
+      default:
+        throw new ClassFormatError("Bad constant value index " + index);
+      }
+  }
+
+  /**
+   * Returns the source name of the type described at <code>pos</code>, so
+   * I becomes int and [Ljava/lang/String; becomes java.lang.String[].
+   */
+  static String getTypeName(String descriptor, int pos)
+  {
+    int dims = 0;
+    while (descriptor.charAt(pos) == '[')
+      {
+        dims++;
+        pos++;
+      }
+    String base;
+    switch (descriptor.charAt(pos))
+      {
+      case 'B':
+        base = "byte";
+        break;
+      case 'C':
+        base = "char";
+        break;
+      case 'D':
+        base = "double";
+        break;
+      case 'F':
+        base = "float";
+        break;
+      case 'I':
+        base = "int";
+        break;
+      case 'J':
+        base = "long";
+        break;
+      case 'S':
+        base = "short";
+        break;
+      case 'Z':
+        base = "boolean";
+        break;
+      case 'V':
+        base = "void";
+        break;
+      case 'L':
+        base = descriptor.substring(pos + 1, descriptor.indexOf(';', pos))
+          .replace('/', '.');
+        break;
+      default:
+        throw new ClassFormatError("Bad descriptor " + descriptor);
+      }
+    if (dims == 0)
+      return base;
+    StringBuilder buf = new StringBuilder(base.length() + dims * 2);
+    buf.append(base);
+    for (int i = 0; i < dims; i++)
+      buf.append("[]");
+    return buf.toString();
+  }
+
+  /**
+   * Checks that a field or method descriptor is well formed, so that the
+   * type names decoded from it on demand cannot fail.
+   * 
+   * @return the descriptor
+   * @throws ClassFormatError if the descriptor is malformed
+   */
+  private static String checkDescriptor(String descriptor)
+  {
+    int pos = 0;
+    boolean method = descriptor.length() > 0 && descriptor.charAt(0) == '(';
+    if (method)
+      {
+        pos = 1;
+        while (pos < descriptor.length() && descriptor.charAt(pos) != ')')
+          pos = checkType(descriptor, pos, false);
+        pos++;
+      }
+    if (checkType(descriptor, pos, method) != descriptor.length())
+      throw new ClassFormatError("Bad descriptor " + descriptor);
+    return descriptor;
+  }
+
+  /**
+   * @return the position just after the type described at <code>pos</code>
+   * @throws ClassFormatError if there is no valid type there
+   */
+  private static int checkType(String descriptor, int pos, boolean result)
+  {
+    int end = descriptor.length();
+    while (pos < end && descriptor.charAt(pos) == '[')
+      pos++;
+    if (pos < end)
+      {
+        char c = descriptor.charAt(pos);
+        if (c == 'L')
+          {
+            int semi = descriptor.indexOf(';', pos);
+            if (semi > pos + 1)
+              return semi + 1;
+          }
+        else if ("BCDFIJSZ".indexOf(c) != -1 || (result && c == 'V'))
+          return pos + 1;
+      }
+    throw new ClassFormatError("Bad descriptor " + descriptor);
+  }
+
+  /**
+   * @return the position just after the type described at <code>pos</code>
+   */
+  static int skipType(String descriptor, int pos)
+  {
+    while (descriptor.charAt(pos) == '[')
+      pos++;
+    if (descriptor.charAt(pos) == 'L')
+      return descriptor.indexOf(';', pos) + 1;
+    return pos + 1;
+  }
+
+  /**
+   * @return the access flags of the class
+   */
+  public int getModifiers()
+  {
+    return flags;
+  }
+
+  /**
+   * @return the name of the class, such as java.util.Map$Entry
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * @return the name of the superclass, or <code>null</code> for
+   *         java.lang.Object
+   */
+  public String getSuperclassName()
+  {
+    return superName;
+  }
+
+  public String[] getInterfaceNames()
+  {
+    return interfaces;
+  }
+
+  public boolean isInterface()
+  {
+    return (flags & 0x0200) != 0;
+  }
+
+  /**
+   * @return the SourceFile attribute, or <code>null</code> if there is none
+   */
+  public String getSourceFile()
+  {
+    return sourceFile;
+  }
+
+  /**
+   * Returns the names from the InnerClasses attribute.  Each entry holds the
+   * inner class name, the outer class name and the simple name; the last
+   * two may be <code>null</code>.
+   * 
+   * @return the entries, or <code>null</code> if there is no such attribute
+   */
+  public String[][] getInnerClasses()
+  {
+    return innerClasses;
+  }
+
+  /**
+   * @return the access flags from the InnerClasses attribute, in the same
+   *         order as {@link #getInnerClasses()}
+   */
+  public int[] getInnerClassModifiers()
+  {
+    return innerClassFlags;
+  }
+
+  public List<Member> getFields()
+  {
+    return fields;
+  }
+
+  public List<Member> getMethods()
+  {
+    return methods;
+  }
+}
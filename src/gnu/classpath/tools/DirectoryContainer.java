@@ -0,0 +1,88 @@
+/* gnu.classpath.tools.DirectoryContainer
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class container backed by a directory tree of class files.
+ */
+class DirectoryContainer extends ClassContainer
+{
+  DirectoryContainer(File dir)
+  {
+    super(dir);
+  }
+
+  public boolean contains(String filename)
+  {
+    return new File(getFile(), filename).isFile();
+  }
+
+  public List<String> getClassFiles()
+  {
+    List<String> files = new ArrayList<String>();
+    addClassFiles(getFile(), "", files);
+    return files;
+  }
+
+  private static void addClassFiles(File dir, String prefix, List<String> files)
+  {
+    String[] names = dir.list();
+    if (names == null)
+      return;
+    for (int i = 0; i < names.length; i++)
+      {
+        String name = prefix + names[i];
+        File f = new File(dir, names[i]);
+        if (f.isDirectory())
+          addClassFiles(f, name + "/", files);
+        else if (isClassFile(name))
+          files.add(name);
+      }
+  }
+
+  public long getChecksum(String filename)
+  {
+    File f = new File(getFile(), filename);
+    if (!f.isFile())
+      return -1;
+    return f.lastModified() ^ (f.length() << 40);
+  }
+
+  public InputStream getInputStream(String filename)
+  {
+    File f = new File(getFile(), filename);
+    try
+      {
+        return new BufferedInputStream(new FileInputStream(f));
+      }
+    catch (FileNotFoundException fe)
+      {
+        return null;
+      }
+  }
+}
@@ -0,0 +1,272 @@
+/* gnu.classpath.tools.MappedZipContainer
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * A class container backed by a memory-mapped zip or jar archive.  The
+ * central directory is parsed directly from the mapping, entries which are
+ * stored uncompressed are read in place and deflated entries are inflated
+ * in a single pass into a buffer of their known size.
+ * 
+ * Archives using the zip64 extensions are not supported; opening one
+ * throws a {@link ZipException}, and {@link ClassContainer#create} then
+ * falls back to a {@link ZipContainer}.
+ */
+class MappedZipContainer extends ClassContainer
+{
+  private static final int LOCSIG = 0x04034b50;
+  private static final int CENSIG = 0x02014b50;
+  private static final int ENDSIG = 0x06054b50;
+  private static final int LOCHDR = 30;
+  private static final int CENHDR = 46;
+  private static final int ENDHDR = 22;
+  private static final int STORED = 0;
+  private static final int DEFLATED = 8;
+
+  /**
+   * The position of a single file within the mapping.
+   */
+  private static final class Entry
+  {
+    int method;
+    long crc;
+    int header;
+    int csize;
+    int usize;
+  }
+
+  private MappedByteBuffer map;
+  private Map<String,Entry> index;
+
+  MappedZipContainer(File f) throws IOException
+  {
+    super(f);
+    RandomAccessFile raf = new RandomAccessFile(f, "r");
+    try
+      {
+        FileChannel channel = raf.getChannel();
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+          throw new ZipException(f + " is too large to be mapped");
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+      }
+    finally
+      {
+        // The mapping remains valid once the channel is closed.
+        raf.close();
+      }
+    // Fail now, rather than on the first lookup, if we can't read it.
+    getIndex();
+  }
+
+  /**
+   * Locates the end of central directory record, which is followed only
+   * by the optional archive comment.
+   */
+  private int findEnd() throws ZipException
+  {
+    int limit = Math.max(0, map.limit() - ENDHDR - 0xFFFF);
+    for (int pos = map.limit() - ENDHDR; pos >= limit; pos--)
+      if (map.getInt(pos) == ENDSIG)
+        return pos;
+    throw new ZipException(getFile() + " is not a zip archive");
+  }
+
+  /**
+   * Checks that a range of bytes lies within the mapping, so that a
+   * corrupt archive is reported as such rather than by an
+   * IndexOutOfBoundsException.
+   */
+  private void check(long pos, long length, String what) throws ZipException
+  {
+    if (pos < 0 || length < 0 || pos + length > map.limit())
+      throw new ZipException("Invalid " + what + " in " + getFile());
+  }
+
+  private synchronized Map<String,Entry> getIndex() throws ZipException
+  {
+    if (index != null)
+      return index;
+    int end = findEnd();
+    int count = map.getShort(end + 10) & 0xFFFF;
+    int pos = map.getInt(end + 16);
+    if (count == 0xFFFF || pos == -1)
+      throw new ZipException(getFile() + " uses zip64 extensions");
+    Map<String,Entry> table = new HashMap<String,Entry>(count * 4 / 3 + 1);
+    byte[] name = new byte[256];
+    for (int i = 0; i < count; i++)
+      {
+        check(pos, CENHDR, "central directory");
+        if (map.getInt(pos) != CENSIG)
+          throw new ZipException("Invalid central directory in " + getFile());
+        int nameLength = map.getShort(pos + 28) & 0xFFFF;
+        int extraLength = map.getShort(pos + 30) & 0xFFFF;
+        int commentLength = map.getShort(pos + 32) & 0xFFFF;
+        check(pos + CENHDR, nameLength + extraLength + commentLength,
+              "central directory");
+        if (nameLength > name.length)
+          name = new byte[nameLength];
+        ByteBuffer dup = map.duplicate();
+        dup.position(pos + CENHDR);
+        dup.get(name, 0, nameLength);
+        if (nameLength > 0 && name[nameLength - 1] != '/')
+          {
+            Entry entry = new Entry();
+            entry.method = map.getShort(pos + 10) & 0xFFFF;
+            entry.crc = map.getInt(pos + 16) & 0xFFFFFFFFL;
+            entry.csize = map.getInt(pos + 20);
+            entry.usize = map.getInt(pos + 24);
+            entry.header = map.getInt(pos + 42);
+            if (entry.csize < 0 || entry.usize < 0 || entry.header < 0)
+              throw new ZipException(getFile() + " uses zip64 extensions");
+            table.put(decode(name, nameLength), entry);
+          }
+        pos += CENHDR + nameLength + extraLength + commentLength;
+      }
+    index = table;
+    return index;
+  }
+
+  private static String decode(byte[] name, int length)
+  {
+    try
+      {
+        return new String(name, 0, length, "UTF-8");
+      }
+    catch (UnsupportedEncodingException e)
+      {
+        throw new Error("UTF-8 not supported", e);
+      }
+  }
+
+  public boolean contains(String filename)
+  {
+    try
+      {
+        return getIndex().containsKey(filename);
+      }
+    catch (ZipException ze)
+      {
+        return false;
+      }
+  }
+
+  public List<String> getClassFiles() throws IOException
+  {
+    List<String> files = new ArrayList<String>();
+    Iterator<String> i = getIndex().keySet().iterator();
+    while (i.hasNext())
+      {
+        String name = i.next();
+        if (isClassFile(name))
+          files.add(name);
+      }
+    return files;
+  }
+
+  public long getChecksum(String filename) throws IOException
+  {
+    Entry entry = getIndex().get(filename);
+    if (entry == null)
+      return -1;
+    return entry.crc;
+  }
+
+  public InputStream getInputStream(String filename) throws IOException
+  {
+    Entry entry = getIndex().get(filename);
+    if (entry == null)
+      return null;
+    ByteBuffer data = map.duplicate();
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    int pos = entry.header;
+    check(pos, LOCHDR, "local header for " + filename);
+    if (data.getInt(pos) != LOCSIG)
+      throw new ZipException("Invalid local header for " + filename);
+    int nameLength = data.getShort(pos + 26) & 0xFFFF;
+    int extraLength = data.getShort(pos + 28) & 0xFFFF;
+    int start = pos + LOCHDR + nameLength + extraLength;
+    check(start, entry.csize, "data for " + filename);
+    data.limit(start + entry.csize);
+    data.position(start);
+    if (entry.method == STORED)
+      return new ByteBufferInputStream(data.slice());
+    if (entry.method != DEFLATED)
+      throw new ZipException("Unsupported compression method "
+                             + entry.method + " for " + filename);
+    byte[] compressed = new byte[entry.csize];
+    data.get(compressed);
+    byte[] result = new byte[entry.usize];
+    Inflater inflater = new Inflater(true);
+    try
+      {
+        inflater.setInput(compressed);
+        int n = 0;
+        while (n < result.length && !inflater.finished())
+          {
+            int count = inflater.inflate(result, n, result.length - n);
+            if (count == 0
+                && (inflater.needsInput() || inflater.needsDictionary()))
+              break;
+            n += count;
+          }
+        if (n != result.length)
+          throw new ZipException("Truncated entry " + filename);
+      }
+    catch (DataFormatException dfe)
+      {
+        ZipException ze = new ZipException("Corrupt entry " + filename);
+        ze.initCause(dfe);
+        throw ze;
+      }
+    finally
+      {
+        inflater.end();
+      }
+    return new ByteArrayInputStream(result);
+  }
+
+  public synchronized void close()
+  {
+    // There is no portable way to unmap; the mapping is released once
+    // it becomes unreachable.
+    index = null;
+  }
+}
@@ -0,0 +1,404 @@
+/* gnu.classpath.tools.ToolServer
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import gnu.classpath.tools.javah.JavahMain;
+import gnu.classpath.tools.javap.JavapMain;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A server which runs gjavah and gjavap in one long-running VM, so that
+ * a build which calls them many times does not pay for starting a VM, and
+ * for opening its archives and parsing its classes, on every call.  The
+ * containers of each search path and the summaries of recently read
+ * classes are kept resident, as described for
+ * {@link Util#keepResident(int)}.
+ * 
+ * The server listens on a loopback port, which it writes, followed by a
+ * random token, to a port file.  The file should be readable only by the
+ * user running the server, since whoever knows the token may run the tools
+ * with the server's privileges; the gjavah and gjavap scripts create its
+ * directory accessible only to that user.
+ * 
+ * A client sends, one per line, the token, the tool to run (javah or
+ * javap), the directory against which relative file names are resolved,
+ * the number of arguments and then the arguments themselves.  The server
+ * replies with the lines the tool writes, each prefixed with "1 " for the
+ * standard output or "2 " for the standard error, and finally "x " and
+ * the exit status.  Requests are run concurrently, each on its own thread.
+ */
+public class ToolServer
+{
+  private static final int DEFAULT_SUMMARIES = 20000;
+  private static Dispatch out;
+  private static Dispatch err;
+
+  private final ServerSocket socket;
+  private final String token;
+  private final PrintStream log;
+  private final ExecutorService pool = Executors.newCachedThreadPool();
+  private int active;
+
+  /**
+   * An output stream which forwards to the stream set for the current
+   * thread, or a default stream.  Threads created by a request inherit its
+   * stream, so that tools which format on several threads still write to
+   * the right client.
+   */
+  private static final class Dispatch extends OutputStream
+  {
+    private final InheritableThreadLocal<OutputStream> target
+      = new InheritableThreadLocal<OutputStream>();
+    private final OutputStream fallback;
+
+    Dispatch(OutputStream fallback)
+    {
+      this.fallback = fallback;
+    }
+
+    private OutputStream current()
+    {
+      OutputStream o = target.get();
+      return o == null ? fallback : o;
+    }
+
+    public void write(int b) throws IOException
+    {
+      current().write(b);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+      current().write(b, off, len);
+    }
+
+    public void flush() throws IOException
+    {
+      current().flush();
+    }
+  }
+
+  /**
+   * The reply to one request.
+   */
+  private static final class Reply
+  {
+    private final OutputStream out;
+
+    Reply(OutputStream out)
+    {
+      this.out = out;
+    }
+
+    synchronized void writeLine(int channel, byte[] b, int off, int len)
+      throws IOException
+    {
+      out.write(channel);
+      out.write(' ');
+      out.write(b, off, len);
+      out.write('\n');
+    }
+
+    synchronized void exit(int status) throws IOException
+    {
+      out.write(("x " + status + "\n").getBytes("US-ASCII"));
+      out.flush();
+    }
+  }
+
+  /**
+   * One of the output streams of a request, which sends what is written
+   * to it a line at a time.
+   */
+  private static final class Channel extends OutputStream
+  {
+    private final Reply reply;
+    private final int channel;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    Channel(Reply reply, char channel)
+    {
+      this.reply = reply;
+      this.channel = channel;
+    }
+
+    public synchronized void write(int b) throws IOException
+    {
+      if (b == '\n')
+        endLine();
+      else
+        line.write(b);
+    }
+
+    public synchronized void write(byte[] b, int off, int len)
+      throws IOException
+    {
+      int end = off + len;
+      for (int i = off; i < end; i++)
+        {
+          if (b[i] == '\n')
+            {
+              line.write(b, off, i - off);
+              endLine();
+              off = i + 1;
+            }
+        }
+      line.write(b, off, end - off);
+    }
+
+    private void endLine() throws IOException
+    {
+      byte[] data = line.toByteArray();
+      reply.writeLine(channel, data, 0, data.length);
+      line.reset();
+    }
+
+    /**
+     * Sends any unfinished last line.
+     */
+    synchronized void finish() throws IOException
+    {
+      if (line.size() > 0)
+        endLine();
+    }
+  }
+
+  private ToolServer(ServerSocket socket, String token, PrintStream log)
+  {
+    this.socket = socket;
+    this.token = token;
+    this.log = log;
+  }
+
+  /**
+   * Accepts requests until no request has been made for <code>idle</code>
+   * milliseconds, or forever if that is zero.
+   */
+  private void serve(int idle) throws IOException
+  {
+    socket.setSoTimeout(idle);
+    while (true)
+      {
+        final Socket client;
+        try
+          {
+            client = socket.accept();
+          }
+        catch (SocketTimeoutException e)
+          {
+            synchronized (this)
+              {
+                if (active == 0)
+                  return;
+              }
+            continue;
+          }
+        synchronized (this)
+          {
+            active++;
+          }
+        pool.execute(new Runnable()
+          {
+            public void run()
+            {
+              try
+                {
+                  handle(client);
+                }
+              catch (IOException ioe)
+                {
+                  log.println("Error: " + ioe.getMessage());
+                }
+              finally
+                {
+                  try
+                    {
+                      client.close();
+                    }
+                  catch (IOException ioe)
+                    {
+                    }
+                  synchronized (ToolServer.this)
+                    {
+                      active--;
+                    }
+                }
+            }
+          });
+      }
+  }
+
+  private void handle(Socket client) throws IOException
+  {
+    BufferedReader in = new BufferedReader(new InputStreamReader(client
+      .getInputStream()));
+    if (!token.equals(in.readLine()))
+      return;
+    String tool = in.readLine();
+    String dir = in.readLine();
+    String count = in.readLine();
+    if (tool == null || dir == null || count == null)
+      return;
+    String[] args;
+    try
+      {
+        args = new String[Integer.parseInt(count)];
+      }
+    catch (NumberFormatException e)
+      {
+        return;
+      }
+    for (int i = 0; i < args.length; i++)
+      {
+        args[i] = in.readLine();
+        if (args[i] == null)
+          return;
+      }
+    Reply reply = new Reply(new BufferedOutputStream(client.getOutputStream()));
+    Channel stdout = new Channel(reply, '1');
+    Channel stderr = new Channel(reply, '2');
+    int status = 0;
+    out.target.set(stdout);
+    err.target.set(stderr);
+    try
+      {
+        if (tool.equals("javah"))
+          JavahMain.run(args, new File(dir));
+        else if (tool.equals("javap"))
+          JavapMain.run(args, new File(dir));
+        else
+          {
+            System.err.println("Unknown tool: " + tool);
+            status = 1;
+          }
+      }
+    catch (Throwable t)
+      {
+        t.printStackTrace();
+        status = 1;
+      }
+    finally
+      {
+        System.out.flush();
+        System.err.flush();
+        out.target.remove();
+        err.target.remove();
+      }
+    stdout.finish();
+    stderr.finish();
+    reply.exit(status);
+  }
+
+  public static void main(String[] argv) throws IOException
+  {
+    int summaries = DEFAULT_SUMMARIES;
+    int idle = 0;
+    File portFile = null;
+    try
+      {
+        for (int i = 0; i < argv.length; i++)
+          {
+            if (argv[i].equals("-idle"))
+              idle = Integer.parseInt(argv[++i]) * 60 * 1000;
+            else if (argv[i].equals("-summaries"))
+              summaries = Integer.parseInt(argv[++i]);
+            else if (argv[i].startsWith("-") || portFile != null)
+              {
+                usage();
+                System.exit(1);
+              }
+            else
+              portFile = new File(argv[i]);
+          }
+      }
+    catch (NumberFormatException e)
+      {
+        usage();
+        System.exit(1);
+      }
+    if (portFile == null)
+      {
+        usage();
+        System.exit(1);
+      }
+
+    PrintStream log = System.err;
+    out = new Dispatch(System.out);
+    err = new Dispatch(System.err);
+    System.setOut(new PrintStream(out, true));
+    System.setErr(new PrintStream(err, true));
+    Util.keepResident(summaries);
+
+    byte[] random = new byte[16];
+    new SecureRandom().nextBytes(random);
+    StringBuilder token = new StringBuilder();
+    for (int i = 0; i < random.length; i++)
+      token.append(Integer.toHexString((random[i] & 0xff) | 0x100).substring(1));
+    ServerSocket socket = new ServerSocket(0, 50, InetAddress.getByName(null));
+    final File f = portFile;
+    Runtime.getRuntime().addShutdownHook(new Thread()
+      {
+        public void run()
+        {
+          f.delete();
+        }
+      });
+    AtomicOutputStream port = new AtomicOutputStream(portFile);
+    try
+      {
+        port.write((socket.getLocalPort() + " " + token + "\n")
+          .getBytes("US-ASCII"));
+        port.close();
+      }
+    finally
+      {
+        port.discard();
+      }
+
+    new ToolServer(socket, token.toString(), log).serve(idle);
+    portFile.delete();
+    System.exit(0);
+  }
+
+  private static void usage()
+  {
+    System.err.println("Usage: ToolServer [OPTION]... PORTFILE");
+    System.err.println("Serve javah and javap requests from one VM.");
+    System.err.println("");
+    System.err
+      .println("   -idle MINUTES             Exit after MINUTES without a request");
+    System.err
+      .println("   -summaries N              Keep up to N class summaries in memory");
+  }
+}
@@ -19,26 +19,119 @@
 package gnu.classpath.tools;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
 
 public class Util
 {
+  private static final String MAPPED_ARCHIVES = "gnu.classpath.tools.mappedArchives";
+  private static final String CLASS_CACHE = "gnu.classpath.tools.classCache";
   private String bootclasspath;
   private String classpath;
   private String userclasspath;
+  private List<ClassContainer> containers;
+  private Map<String,ClassContainer> located = new HashMap<String,ClassContainer>();
+  private boolean mappedArchives = Boolean.getBoolean(MAPPED_ARCHIVES);
+  private ClassCache cache;
+  private File workingDirectory;
+  private List<Resident> residents;
+  // Held for reading by lookups while they use a container, and for
+  // writing by close(), so that a container is not closed under them.
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private static Map<File,Resident> residentContainers;
+  private static Map<String,ClassSummary> residentSummaries;
+
+  /**
+   * A container kept open by {@link #keepResident(int)}, with the state of
+   * its file when it was opened.  It counts the instances using it, so
+   * that once its file has changed and it has been replaced, it is closed
+   * by the last of them.  Both fields are guarded by Util.class.
+   */
+  private static final class Resident
+  {
+    final ClassContainer container;
+    final long modified;
+    final long length;
+    int users;
+    boolean replaced;
+
+    Resident(ClassContainer container)
+    {
+      this.container = container;
+      File f = container.getFile();
+      modified = f.lastModified();
+      length = f.length();
+    }
+
+    boolean isCurrent()
+    {
+      File f = container.getFile();
+      return f.lastModified() == modified && f.length() == length;
+    }
+
+    /**
+     * Closes the container if it has been replaced and no instance uses
+     * it any longer.
+     */
+    void closeIfUnused()
+    {
+      if (replaced && users == 0)
+        {
+          try
+            {
+              container.close();
+            }
+          catch (IOException ioe)
+            {
+            }
+        }
+    }
+  }
+
+  /**
+   * Keeps the least recently used class summaries, up to a given number.
+   */
+  private static final class SummaryTable
+    extends LinkedHashMap<String,ClassSummary>
+  {
+    private static final long serialVersionUID = 1L;
+    private final int capacity;
+
+    SummaryTable(int capacity)
+    {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    protected boolean removeEldestEntry(Map.Entry<String,ClassSummary> e)
+    {
+      return size() > capacity;
+    }
+  }
 
   public Util()
   {
     classpath = System.getProperty("java.class.path");
     bootclasspath = System.getProperty("sun.boot.class.path");
+    String dir = System.getProperty(CLASS_CACHE);
+    if (dir != null && dir.length() > 0)
+      cache = new ClassCache(new File(dir));
   }
 
   /**
@@ -75,58 +168,448 @@ public class Util
   }
 
   /**
-   * Attempt to get an InputStream for the specified filename.
+   * Returns the summary of a class, found as by {@link #findClass(String)}.
+   * If a cache directory has been set, the summary is taken from the cache
+   * when the class's container has not changed since it was saved, and
+   * saved there otherwise.
+   * 
+   * @param className the class to find
+   * @return the summary of the class
+   * @throws ClassNotFoundException if the class cannot be found
+   * @throws IOException if the class cannot be read
+   * @throws ClassFormatError if the class file is not valid
+   */
+  public ClassSummary getClassSummary(String className)
+    throws ClassNotFoundException, IOException
+  {
+    String filename = getFileNameFromClassName(className);
+    Lock held = lock.readLock();
+    held.lock();
+    try
+      {
+        ClassContainer container = null;
+        if (userclasspath != null || !getFile(filename).exists())
+          container = locate(filename, getSearchPath());
+        if (container == null || (cache == null && residentSummaries == null))
+          return ClassSummary.read(findClass(className));
+        String key = ClassCache.getKey(container, filename);
+        if (key == null)
+          throw new ClassNotFoundException(className + " not found");
+        ClassSummary summary = getResidentSummary(key);
+        if (summary == null && cache != null)
+          summary = cache.get(key);
+        if (summary == null)
+          {
+            InputStream is = container.getInputStream(filename);
+            if (is == null)
+              throw new ClassNotFoundException(className + " not found");
+            summary = ClassSummary.read(is);
+            if (cache != null)
+              cache.put(key, summary);
+          }
+        putResidentSummary(key, summary);
+        return summary;
+      }
+    finally
+      {
+        held.unlock();
+      }
+  }
+
+  /**
+   * Returns a string which identifies the current contents of a class file,
+   * for tools which remember what they have already processed.  It changes
+   * whenever the class's container or the class file itself does.  Only
+   * the container's index and file system metadata are consulted; the
+   * class file is not opened.
+   * 
+   * @param className the class to find
+   * @return the key, or <code>null</code> if the class cannot be found
+   * @throws IOException if the class's container cannot be read
+   */
+  public String getClassKey(String className) throws IOException
+  {
+    String filename = getFileNameFromClassName(className);
+    File f = getFile(filename);
+    if (userclasspath == null && f.exists())
+      return f.getAbsolutePath() + '\0' + Long.toHexString(f.lastModified())
+             + '\0' + Long.toHexString(f.length());
+    Lock held = lock.readLock();
+    held.lock();
+    try
+      {
+        ClassContainer container = locate(filename, getSearchPath());
+        if (container == null)
+          return null;
+        return ClassCache.getKey(container, filename);
+      }
+    finally
+      {
+        held.unlock();
+      }
+  }
+
+  /**
+   * Finds the container holding the specified filename.  The search path
+   * is only split and opened the first time it is needed, and the
+   * container holding each file is remembered so that later lookups of the
+   * same file go straight to it.
    * 
    * @param filename the filename to find in the specified path
    * @param classpath the path or paths to search for the specified file
    * @return <code>null</code> if the file cannot be found
    */
-  private InputStream findClass(String filename, String classpath)
+  private synchronized ClassContainer locate(String filename, String classpath)
   {
-    StringTokenizer st = new StringTokenizer(classpath, File.pathSeparator);
-    while (st.hasMoreTokens())
+    ClassContainer container = located.get(filename);
+    if (container == null)
       {
-        String path = st.nextToken();
-        File f = new File(path);
-        if (f.exists() && f.isDirectory())
+        Iterator<ClassContainer> i = getContainers(classpath).iterator();
+        while (i.hasNext())
           {
-            f = new File(f, filename);
-            if (f.exists())
+            ClassContainer c = i.next();
+            if (c.contains(filename))
               {
-                try
-                  {
-                    FileInputStream fis = new FileInputStream(f);
-                    return new BufferedInputStream(fis);
-                  }
-                catch (FileNotFoundException fe)
-                  {
-                  }
+                container = c;
+                located.put(filename, container);
+                break;
               }
           }
+      }
+    return container;
+  }
+
+  /**
+   * Attempt to get an InputStream for the specified filename.  The file is
+   * read into memory at once, so that the stream stays readable if this
+   * instance is closed by another thread.
+   * 
+   * @param filename the filename to find in the specified path
+   * @param classpath the path or paths to search for the specified file
+   * @return <code>null</code> if the file cannot be found
+   */
+  private InputStream findClass(String filename, String classpath)
+  {
+    Lock held = lock.readLock();
+    held.lock();
+    try
+      {
+        ClassContainer container = locate(filename, classpath);
+        if (container == null)
+          return null;
+        InputStream is = container.getInputStream(filename);
+        if (is == null)
+          return null;
+        return new ByteArrayInputStream(ClassSummary.readBytes(is));
+      }
+    catch (IOException ioe)
+      {
+        return null;
+      }
+    finally
+      {
+        held.unlock();
+      }
+  }
+
+  /**
+   * Returns the opened containers for each element of the given path,
+   * creating them on first use.  Elements which do not exist or cannot be
+   * opened are skipped.
+   * 
+   * @param classpath the path to open
+   * @return the containers, in search order
+   */
+  private List<ClassContainer> getContainers(String classpath)
+  {
+    if (containers == null)
+      {
+        containers = new ArrayList<ClassContainer>();
+        StringTokenizer st = new StringTokenizer(classpath, File.pathSeparator);
+        while (st.hasMoreTokens())
+          {
+            ClassContainer c = open(getFile(st.nextToken()));
+            if (c != null)
+              containers.add(c);
+          }
+      }
+    return containers;
+  }
+
+  /**
+   * Lists the classes held in a directory, an archive or a package.  If
+   * <code>source</code> names an existing directory or archive, its classes
+   * are listed and it is placed at the front of the search path so that
+   * they can subsequently be found.  Otherwise <code>source</code> is taken
+   * to be a package name, such as java.util, and every class in that
+   * package or its subpackages found on the search path is listed.  If
+   * <code>source</code> is null, every class on the search path is listed.
+   * 
+   * Class names are matched against the include and exclude patterns, in
+   * which '*' matches any part of a single package or class name and '**'
+   * matches any sequence of characters.  A class is listed if it matches
+   * at least one include pattern, or there are none, and matches no exclude
+   * pattern.
+   * 
+   * @param source the directory, archive or package to list, or null
+   * @param includes the patterns of classes to include, may be empty
+   * @param excludes the patterns of classes to exclude, may be empty
+   * @return the names of the classes found, in sorted order
+   * @throws IOException if the source cannot be read
+   */
+  public List<String> listClasses(String source, List<String> includes,
+                                  List<String> excludes)
+    throws IOException
+  {
+    return listClasses(source, includes, excludes, true);
+  }
+
+  /**
+   * Lists classes as {@link #listClasses(String,List,List)} does, except
+   * that a directory or archive is only placed at the front of the search
+   * path if <code>addToPath</code> is true.  Otherwise it is opened for
+   * the listing alone, and the search path is left as it was.
+   */
+  synchronized List<String> listClasses(String source, List<String> includes,
+                                        List<String> excludes,
+                                        boolean addToPath)
+    throws IOException
+  {
+    List<ClassContainer> searched;
+    String prefix;
+    ClassContainer opened = null;
+    File f = source == null ? null : getFile(source);
+    if (f == null)
+      {
+        searched = getContainers(getSearchPath());
+        prefix = "";
+      }
+    else if (f.exists())
+      {
+        ClassContainer c;
+        if (addToPath)
+          c = open(f);
         else
+          c = opened = ClassContainer.create(f, mappedArchives);
+        if (c == null)
+          throw new IOException("Unable to open " + source);
+        if (addToPath)
+          {
+            List<ClassContainer> path = getContainers(getSearchPath());
+            path.add(0, c);
+            located.clear();
+          }
+        searched = new ArrayList<ClassContainer>();
+        searched.add(c);
+        prefix = "";
+      }
+    else
+      {
+        searched = getContainers(getSearchPath());
+        prefix = source.replace('.', '/');
+        if (!prefix.endsWith("/"))
+          prefix = prefix + "/";
+      }
+    Pattern[] inc = compileGlobs(includes);
+    Pattern[] exc = compileGlobs(excludes);
+    TreeSet<String> classes = new TreeSet<String>();
+    try
+      {
+        Iterator<ClassContainer> i = searched.iterator();
+        while (i.hasNext())
           {
-            if (f.exists() && f.isFile())
+            Iterator<String> j = i.next().getClassFiles().iterator();
+            while (j.hasNext())
               {
-                try
-                  {
-                    ZipFile zip = new ZipFile(f);
-                    ZipEntry entry = zip.getEntry(filename);
-                    if (entry != null)
-                      return zip.getInputStream(entry);
-                  }
-                catch (IllegalStateException ise)
-                  {
-                  }
-                catch (ZipException ze)
-                  {
-                  }
-                catch (IOException ioe)
+                String name = j.next();
+                if (!name.startsWith(prefix))
+                  continue;
+                name = name.substring(0, name.length() - 6).replace('/', '.');
+                if (inc.length != 0 && !matches(inc, name))
+                  continue;
+                if (matches(exc, name))
+                  continue;
+                classes.add(name);
+              }
+          }
+      }
+    finally
+      {
+        if (opened != null)
+          opened.close();
+      }
+    return new ArrayList<String>(classes);
+  }
+
+  private static boolean matches(Pattern[] patterns, String name)
+  {
+    for (int i = 0; i < patterns.length; i++)
+      if (patterns[i].matcher(name).matches())
+        return true;
+    return false;
+  }
+
+  private static Pattern[] compileGlobs(List<String> globs)
+  {
+    if (globs == null)
+      return new Pattern[0];
+    Pattern[] patterns = new Pattern[globs.size()];
+    for (int i = 0; i < patterns.length; i++)
+      {
+        String glob = globs.get(i).replace('/', '.');
+        StringBuffer regex = new StringBuffer();
+        for (int j = 0; j < glob.length(); j++)
+          {
+            char c = glob.charAt(j);
+            if (c == '*')
+              {
+                if (j + 1 < glob.length() && glob.charAt(j + 1) == '*')
                   {
+                    regex.append(".*");
+                    j++;
                   }
+                else
+                  regex.append("[^.]*");
               }
+            else if (c == '?')
+              regex.append("[^.]");
+            else if (Character.isLetterOrDigit(c))
+              regex.append(c);
+            else
+              regex.append('\\').append(c);
           }
+        patterns[i] = Pattern.compile(regex.toString());
       }
-    return null;
+    return patterns;
+  }
+
+  /**
+   * Opens a container, or returns the resident one for the same file if
+   * the file has not changed since that was opened.
+   * 
+   * @param f the directory or archive
+   * @return the container, or <code>null</code> if <code>f</code> does
+   *         not exist or cannot be opened
+   */
+  private ClassContainer open(File f)
+  {
+    synchronized (Util.class)
+      {
+        if (residentContainers == null)
+          return ClassContainer.create(f, mappedArchives);
+        f = f.getAbsoluteFile();
+        Resident r = residentContainers.get(f);
+        if (r == null || !r.isCurrent())
+          {
+            // A container which has been replaced may still be in use by
+            // other instances, in which case the last of them closes it.
+            if (r != null)
+              {
+                residentContainers.remove(f);
+                r.replaced = true;
+                r.closeIfUnused();
+              }
+            ClassContainer c = ClassContainer.create(f, mappedArchives);
+            if (c == null)
+              return null;
+            r = new Resident(c);
+            residentContainers.put(f, r);
+          }
+        r.users++;
+        if (residents == null)
+          residents = new ArrayList<Resident>();
+        residents.add(r);
+        return r.container;
+      }
+  }
+
+  /**
+   * Keeps the containers opened for search paths, and the summaries of up
+   * to <code>summaries</code> classes, for the life of the VM, sharing
+   * them between all instances.  This is meant for a long-running process
+   * which serves many requests, so that each does not pay for reopening
+   * archives and parsing classes again.  A container is reopened when the
+   * modification time or length of its file changes, and a summary is only
+   * reused while its class is unchanged, as with the cache directory.
+   * 
+   * @param summaries the number of class summaries to keep
+   */
+  public static synchronized void keepResident(int summaries)
+  {
+    if (residentContainers == null)
+      residentContainers = new HashMap<File,Resident>();
+    residentSummaries = new SummaryTable(summaries);
+  }
+
+  private static synchronized ClassSummary getResidentSummary(String key)
+  {
+    if (residentSummaries == null)
+      return null;
+    return residentSummaries.get(key);
+  }
+
+  private static synchronized void putResidentSummary(String key,
+                                                      ClassSummary summary)
+  {
+    if (residentSummaries != null)
+      residentSummaries.put(key, summary);
+  }
+
+  /**
+   * Closes every container opened by this instance, unless containers are
+   * being kept resident, in which case only those which have since been
+   * replaced and are no longer used by other instances are closed.  The
+   * search path is reopened if this instance is used again afterwards.
+   * Lookups in progress on other threads are finished first.
+   */
+  public void close()
+  {
+    Lock held = lock.writeLock();
+    held.lock();
+    try
+      {
+        closeContainers();
+      }
+    finally
+      {
+        held.unlock();
+      }
+  }
+
+  private synchronized void closeContainers()
+  {
+    boolean resident;
+    synchronized (Util.class)
+      {
+        resident = residentContainers != null;
+        if (residents != null)
+          {
+            Iterator<Resident> i = residents.iterator();
+            while (i.hasNext())
+              {
+                Resident r = i.next();
+                r.users--;
+                r.closeIfUnused();
+              }
+            residents = null;
+          }
+      }
+    if (containers != null && !resident)
+      {
+        Iterator<ClassContainer> i = containers.iterator();
+        while (i.hasNext())
+          {
+            try
+              {
+                i.next().close();
+              }
+            catch (IOException ioe)
+              {
+              }
+          }
+      }
+    containers = null;
+    located.clear();
   }
 
   /**
@@ -137,7 +620,7 @@ public class Util
    */
   private InputStream findFile(String filename)
   {
-    File f = new File(filename);
+    File f = getFile(filename);
     if (f.exists())
       {
         try
@@ -162,14 +645,39 @@ public class Util
    */
   private String getFileNameFromClassName(String className)
   {
-    File f = new File(className);
-    if (f.exists())
+    if (getFile(className).exists())
       return className;
     String filename = className.replace('.', '/');
     filename = filename + ".class";
     return filename;
   }
 
+  /**
+   * Sets the directory against which relative file names, including those
+   * of classes and the elements of the search path, are resolved.  By
+   * default they are resolved against the current directory of the VM.
+   * 
+   * @param dir the directory, or <code>null</code> for the current one
+   */
+  public void setWorkingDirectory(File dir)
+  {
+    close();
+    workingDirectory = dir;
+  }
+
+  /**
+   * @param name a file name
+   * @return the file, resolved against the working directory if
+   *         <code>name</code> is relative
+   */
+  public File getFile(String name)
+  {
+    File f = new File(name);
+    if (workingDirectory == null || f.isAbsolute())
+      return f;
+    return new File(workingDirectory, name);
+  }
+
   /**
    * Used to set the user provided classpath.
    * 
@@ -177,9 +685,36 @@ public class Util
    */
   public void setClasspath(String path)
   {
+    close();
     userclasspath = path;
   }
   
+  /**
+   * Selects whether archives on the search path are memory-mapped and read
+   * directly, rather than through {@link java.util.zip.ZipFile}.  The
+   * default is taken from the gnu.classpath.tools.mappedArchives system
+   * property.
+   * 
+   * @param mapped true if archives should be memory-mapped
+   */
+  public void setMappedArchives(boolean mapped)
+  {
+    close();
+    mappedArchives = mapped;
+  }
+
+  /**
+   * Sets the directory in which class summaries are cached between runs.
+   * The default is taken from the gnu.classpath.tools.classCache system
+   * property; without either there is no cache.
+   * 
+   * @param dir the cache directory, or <code>null</code> for no cache
+   */
+  public void setCacheDirectory(File dir)
+  {
+    cache = dir == null ? null : new ClassCache(dir);
+  }
+
   /**
    * Returns the path used to find classes.  To make it possible to 
    * find classes from the user's provided classpath before finding
@@ -0,0 +1,104 @@
+/* gnu.classpath.tools.ZipContainer
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A class container backed by a zip or jar archive.  The archive is opened
+ * once and an index of its entries is built on the first lookup.
+ */
+class ZipContainer extends ClassContainer
+{
+  private ZipFile zip;
+  private Map<String,ZipEntry> index;
+
+  ZipContainer(File f) throws IOException
+  {
+    super(f);
+    zip = new ZipFile(f);
+  }
+
+  private synchronized Map<String,ZipEntry> getIndex()
+  {
+    if (index == null)
+      {
+        index = new HashMap<String,ZipEntry>(zip.size() * 4 / 3 + 1);
+        Enumeration<? extends ZipEntry> e = zip.entries();
+        while (e.hasMoreElements())
+          {
+            ZipEntry entry = e.nextElement();
+            if (!entry.isDirectory())
+              index.put(entry.getName(), entry);
+          }
+      }
+    return index;
+  }
+
+  public boolean contains(String filename)
+  {
+    return getIndex().containsKey(filename);
+  }
+
+  public List<String> getClassFiles()
+  {
+    List<String> files = new ArrayList<String>();
+    Iterator<String> i = getIndex().keySet().iterator();
+    while (i.hasNext())
+      {
+        String name = i.next();
+        if (isClassFile(name))
+          files.add(name);
+      }
+    return files;
+  }
+
+  public long getChecksum(String filename)
+  {
+    ZipEntry entry = getIndex().get(filename);
+    if (entry == null)
+      return -1;
+    return entry.getCrc();
+  }
+
+  public InputStream getInputStream(String filename) throws IOException
+  {
+    ZipEntry entry = getIndex().get(filename);
+    if (entry == null)
+      return null;
+    return zip.getInputStream(entry);
+  }
+
+  public synchronized void close() throws IOException
+  {
+    index = null;
+    zip.close();
+  }
+}
@@ -0,0 +1,288 @@
+/* gnu.classpath.tools.apidiff.ApiDiff
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+
+package gnu.classpath.tools.apidiff;
+
+import gnu.classpath.tools.ClassPath;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the public and protected API of the classes on two class paths,
+ * such as two releases of a jar.  Both paths are read on one pool of
+ * threads; each class is reduced to a {@link ClassApi}, and only the
+ * classes whose hashes differ have their members compared.
+ * 
+ * Each difference is reported as a line beginning with '+' for an added
+ * class or member, '-' for a removed one, and '~' for one whose
+ * declaration changed, followed by the old and new declarations.  Lines
+ * are sorted by class and then by member, so that reports of two runs can
+ * themselves be compared.
+ */
+public class ApiDiff
+{
+  /**
+   * The number of classes read by one task.
+   */
+  private static final int CHUNK = 64;
+
+  private final int threads;
+  private final List<String> includes;
+  private final List<String> excludes;
+  private int errorCount;
+
+  /**
+   * Reads a run of classes from one path.
+   */
+  private static class Indexer implements Callable<List<ClassApi>>
+  {
+    private final ClassPath path;
+    private final List<String> classNames;
+    private final List<String> errors;
+
+    Indexer(ClassPath path, List<String> classNames, List<String> errors)
+    {
+      this.path = path;
+      this.classNames = classNames;
+      this.errors = errors;
+    }
+
+    public List<ClassApi> call()
+    {
+      List<ClassApi> result = new ArrayList<ClassApi>(classNames.size());
+      for (Iterator<String> i = classNames.iterator(); i.hasNext();)
+        {
+          String className = i.next();
+          try
+            {
+              ClassApi api = ClassApi.read(path.getClassSummary(className));
+              if (api != null)
+                result.add(api);
+            }
+          catch (Exception e)
+            {
+              addError(className, e);
+            }
+          catch (ClassFormatError e)
+            {
+              addError(className, e);
+            }
+        }
+      return result;
+    }
+
+    private void addError(String className, Throwable e)
+    {
+      synchronized (errors)
+        {
+          errors.add(className + ": " + e.getMessage());
+        }
+    }
+  }
+
+  /**
+   * @param threads the number of threads to read classes with
+   * @param includes the patterns of classes to compare, or empty for all
+   * @param excludes the patterns of classes not to compare
+   * @see gnu.classpath.tools.Util#listClasses(String,List,List)
+   */
+  public ApiDiff(int threads, List<String> includes, List<String> excludes)
+  {
+    this.threads = Math.max(1, threads);
+    this.includes = new ArrayList<String>(includes);
+    this.excludes = new ArrayList<String>(excludes);
+  }
+
+  /**
+   * Compares the classes on two paths, printing each difference to
+   * <code>out</code>.  Classes which cannot be read are reported on
+   * System.err and left out of the comparison, and counted by
+   * {@link #getErrorCount()}.
+   * 
+   * @param oldPath the path holding the earlier API
+   * @param newPath the path holding the later API
+   * @param out where to print the differences
+   * @return the number of differences found
+   * @throws IOException if either path cannot be listed
+   */
+  public int compare(ClassPath oldPath, ClassPath newPath, PrintStream out)
+    throws IOException
+  {
+    List<String> oldNames = oldPath.listClasses(null, includes, excludes);
+    List<String> newNames = newPath.listClasses(null, includes, excludes);
+    List<String> errors = new ArrayList<String>();
+    Map<String,ClassApi> oldApi;
+    Map<String,ClassApi> newApi;
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try
+      {
+        List<Future<List<ClassApi>>> oldTasks = submit(pool, oldPath,
+                                                       oldNames, errors);
+        List<Future<List<ClassApi>>> newTasks = submit(pool, newPath,
+                                                       newNames, errors);
+        oldApi = collect(oldTasks);
+        newApi = collect(newTasks);
+      }
+    finally
+      {
+        pool.shutdownNow();
+      }
+    errorCount = errors.size();
+    Collections.sort(errors);
+    for (Iterator<String> i = errors.iterator(); i.hasNext();)
+      System.err.println("Error: " + i.next());
+
+    int count = 0;
+    TreeSet<String> names = new TreeSet<String>(oldApi.keySet());
+    names.addAll(newApi.keySet());
+    for (Iterator<String> i = names.iterator(); i.hasNext();)
+      {
+        String name = i.next();
+        ClassApi before = oldApi.get(name);
+        ClassApi after = newApi.get(name);
+        if (after == null)
+          {
+            out.println("- " + name + ": " + before.getDeclaration());
+            count++;
+          }
+        else if (before == null)
+          {
+            out.println("+ " + name + ": " + after.getDeclaration());
+            count++;
+          }
+        else if (before.getHash() != after.getHash())
+          count += compare(before, after, out);
+      }
+    return count;
+  }
+
+  /**
+   * @return the number of classes which could not be read by the last
+   *         comparison
+   */
+  public int getErrorCount()
+  {
+    return errorCount;
+  }
+
+  /**
+   * Compares two versions of a class already known to differ.
+   */
+  private static int compare(ClassApi before, ClassApi after, PrintStream out)
+  {
+    int count = 0;
+    String name = before.getName();
+    if (!before.getDeclaration().equals(after.getDeclaration()))
+      {
+        out.println("~ " + name + ": " + before.getDeclaration() + " -> "
+                    + after.getDeclaration());
+        count++;
+      }
+    Map<String,String> oldMembers = before.getMembers();
+    Map<String,String> newMembers = after.getMembers();
+    TreeSet<String> keys = new TreeSet<String>(oldMembers.keySet());
+    keys.addAll(newMembers.keySet());
+    for (Iterator<String> i = keys.iterator(); i.hasNext();)
+      {
+        String key = i.next();
+        String oldDetail = oldMembers.get(key);
+        String newDetail = newMembers.get(key);
+        if (newDetail == null)
+          out.println("- " + name + "." + key + ": " + oldDetail);
+        else if (oldDetail == null)
+          out.println("+ " + name + "." + key + ": " + newDetail);
+        else if (!oldDetail.equals(newDetail))
+          out.println("~ " + name + "." + key + ": " + oldDetail + " -> "
+                      + newDetail);
+        else
+          continue;
+        count++;
+      }
+    return count;
+  }
+
+  private static List<Future<List<ClassApi>>> submit(ExecutorService pool,
+                                                     ClassPath path,
+                                                     List<String> names,
+                                                     List<String> errors)
+  {
+    List<Future<List<ClassApi>>> tasks = new ArrayList<Future<List<ClassApi>>>();
+    for (int i = 0; i < names.size(); i += CHUNK)
+      {
+        List<String> chunk = names.subList(i, Math.min(i + CHUNK,
+                                                       names.size()));
+        tasks.add(pool.submit(new Indexer(path, chunk, errors)));
+      }
+    return tasks;
+  }
+
+  /**
+   * Waits for the tasks reading one path, and keeps the classes which are
+   * part of its API: a member class is only so if its outer class is.
+   */
+  private static Map<String,ClassApi> collect(List<Future<List<ClassApi>>> tasks)
+  {
+    Map<String,ClassApi> result = new TreeMap<String,ClassApi>();
+    try
+      {
+        for (Iterator<Future<List<ClassApi>>> i = tasks.iterator(); i.hasNext();)
+          for (Iterator<ClassApi> j = i.next().get().iterator(); j.hasNext();)
+            {
+              ClassApi api = j.next();
+              result.put(api.getName(), api);
+            }
+      }
+    catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    catch (ExecutionException e)
+      {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException)
+          throw (RuntimeException) cause;
+        if (cause instanceof Error)
+          throw (Error) cause;
+        throw new RuntimeException(cause);
+      }
+    // Outer classes sort before their members, so nesting is handled.
+    for (Iterator<ClassApi> i = result.values().iterator(); i.hasNext();)
+      {
+        ClassApi api = i.next();
+        if (api.getOuterName() != null
+            && !result.containsKey(api.getOuterName()))
+          i.remove();
+      }
+    return result;
+  }
+}
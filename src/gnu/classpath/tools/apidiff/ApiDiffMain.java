@@ -0,0 +1,151 @@
+/* gnu.classpath.tools.apidiff.ApiDiffMain
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+
+package gnu.classpath.tools.apidiff;
+
+import gnu.classpath.tools.ClassPath;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ApiDiffMain
+{
+  public static void main(String argv[])
+  {
+    System.exit(run(argv, null));
+  }
+
+  /**
+   * Runs apidiff with the given arguments.  Unlike {@link #main(String[])}
+   * this never exits the VM.
+   * 
+   * @param argv the command line arguments
+   * @param dir the directory against which relative file names are
+   *          resolved, or <code>null</code> for the current directory
+   * @return 0 if the APIs are the same, 1 if they differ, or 2 on error,
+   *         including a class which could not be read
+   */
+  public static int run(String argv[], File dir)
+  {
+    List<String> includes = new ArrayList<String>();
+    List<String> excludes = new ArrayList<String>();
+    String cache = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int i = 0;
+    while (i < argv.length)
+      {
+        if (i + 1 == argv.length
+            && (argv[i].equals("-cache") || argv[i].equals("-exclude")
+                || argv[i].equals("-include") || argv[i].equals("-threads")))
+          {
+            System.err.println("Missing argument for " + argv[i]);
+            usage();
+            return 2;
+          }
+        if (argv[i].equals("-cache"))
+          cache = argv[++i];
+        else if (argv[i].equals("-exclude"))
+          excludes.add(argv[++i]);
+        else if (argv[i].equals("-help"))
+          {
+            usage();
+            return 0;
+          }
+        else if (argv[i].equals("-include"))
+          includes.add(argv[++i]);
+        else if (argv[i].equals("-threads"))
+          {
+            try
+              {
+                threads = Integer.parseInt(argv[++i]);
+              }
+            catch (NumberFormatException e)
+              {
+                System.err.println("Invalid thread count: " + argv[i]);
+                usage();
+                return 2;
+              }
+          }
+        else if (argv[i].startsWith("-"))
+          {
+            System.err.println("Invalid flag: " + argv[i]);
+            usage();
+            return 2;
+          }
+        else
+          break;
+        i++;
+      }
+    if (argv.length - i != 2)
+      {
+        usage();
+        return 2;
+      }
+    File cacheDirectory = null;
+    if (cache != null)
+      {
+        cacheDirectory = new File(cache);
+        if (dir != null && !cacheDirectory.isAbsolute())
+          cacheDirectory = new File(dir, cache);
+      }
+    ClassPath oldPath = new ClassPath(argv[i], cacheDirectory, dir);
+    ClassPath newPath = new ClassPath(argv[i + 1], cacheDirectory, dir);
+    try
+      {
+        ApiDiff diff = new ApiDiff(threads, includes, excludes);
+        int count = diff.compare(oldPath, newPath, System.out);
+        if (diff.getErrorCount() != 0)
+          return 2;
+        return count == 0 ? 0 : 1;
+      }
+    catch (IOException ioe)
+      {
+        System.err.println("Error: " + ioe.getMessage());
+        return 2;
+      }
+    finally
+      {
+        System.out.flush();
+        oldPath.close();
+        newPath.close();
+      }
+  }
+
+  /**
+   * Prints generic usage message to System.out.
+   */
+  private static void usage()
+  {
+    System.out.println("Usage: apidiff [OPTION]... OLDPATH NEWPATH");
+    System.out
+      .println("Compare the public and protected API of the classes on two class paths.");
+    System.out.println("");
+    System.out
+      .println("   -cache DIR                Cache class summaries in DIR between runs");
+    System.out
+      .println("   -exclude GLOB             Skip classes matching GLOB");
+    System.out.println("   -help                     Print this usage message");
+    System.out
+      .println("   -include GLOB             Only compare classes matching GLOB");
+    System.out
+      .println("   -threads N                Read classes on N threads");
+  }
+}
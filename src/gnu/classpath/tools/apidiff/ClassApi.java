@@ -0,0 +1,289 @@
+/* gnu.classpath.tools.apidiff.ClassApi
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+
+package gnu.classpath.tools.apidiff;
+
+import gnu.classpath.tools.ClassSummary;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The public and protected API of a class: its declaration and the
+ * declarations of the members a client could use, each kept as a line of
+ * text under a key naming the member.  A hash of the whole is kept too, so
+ * that two versions of a class whose API did not change can be told apart
+ * without comparing their members.
+ */
+final class ClassApi
+{
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_PROTECTED = 0x0004;
+  private static final int ACC_STATIC = 0x0008;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_VARARGS = 0x0080;
+  private static final int ACC_INTERFACE = 0x0200;
+  private static final int ACC_ABSTRACT = 0x0400;
+  private static final int ACC_SYNTHETIC = 0x1000;
+  private static final int ACC_ANNOTATION = 0x2000;
+  private static final int ACC_ENUM = 0x4000;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final String name;
+  private final String outerName;
+  private final String declaration;
+  private final Map<String,String> members;
+  private final long hash;
+
+  private ClassApi(String name, String outerName, String declaration,
+                   Map<String,String> members)
+  {
+    this.name = name;
+    this.outerName = outerName;
+    this.declaration = declaration;
+    this.members = members;
+    long h = hash(FNV_OFFSET, declaration);
+    for (Iterator<Map.Entry<String,String>> i = members.entrySet().iterator();
+         i.hasNext();)
+      {
+        Map.Entry<String,String> e = i.next();
+        h = hash(h, e.getKey());
+        h = hash(h, e.getValue());
+      }
+    this.hash = h;
+  }
+
+  /**
+   * Builds the API of a class from its summary.
+   * 
+   * @param summary the class
+   * @return the API, or <code>null</code> if the class is neither public
+   *         nor protected
+   */
+  static ClassApi read(ClassSummary summary)
+  {
+    String name = summary.getName();
+    int flags = summary.getModifiers();
+    String outerName = null;
+    String[][] inner = summary.getInnerClasses();
+    if (inner != null)
+      {
+        // A member class has its declared access only in InnerClasses.
+        int[] innerFlags = summary.getInnerClassModifiers();
+        for (int i = 0; i < inner.length; i++)
+          if (name.equals(inner[i][0]))
+            {
+              if (inner[i][1] == null)
+                return null; // local or anonymous
+              outerName = inner[i][1];
+              flags = innerFlags[i];
+              break;
+            }
+      }
+    if ((flags & (ACC_PUBLIC | ACC_PROTECTED)) == 0
+        || (flags & ACC_SYNTHETIC) != 0)
+      return null;
+
+    StringBuilder buf = new StringBuilder();
+    appendModifiers(buf, flags & ~ACC_VARARGS, (flags & ACC_INTERFACE) != 0);
+    if ((flags & ACC_ANNOTATION) != 0)
+      buf.append("@interface");
+    else if ((flags & ACC_INTERFACE) != 0)
+      buf.append("interface");
+    else if ((flags & ACC_ENUM) != 0)
+      buf.append("enum");
+    else
+      buf.append("class");
+    String[] interfaces = summary.getInterfaceNames().clone();
+    Arrays.sort(interfaces);
+    if ((flags & ACC_INTERFACE) == 0 && summary.getSuperclassName() != null)
+      buf.append(" extends ").append(summary.getSuperclassName());
+    if (interfaces.length > 0)
+      {
+        buf.append((flags & ACC_INTERFACE) != 0 ? " extends " : " implements ");
+        appendList(buf, interfaces);
+      }
+
+    Map<String,String> members = new TreeMap<String,String>();
+    for (Iterator<ClassSummary.Member> i = summary.getFields().iterator();
+         i.hasNext();)
+      {
+        ClassSummary.Member field = i.next();
+        if (!isApi(field.getModifiers()))
+          continue;
+        String detail = modifiers(field.getModifiers() & ~ACC_VARARGS);
+        Object value = field.getConstantValue();
+        if (value != null)
+          detail = detail + " = " + quote(value);
+        members.put(field.getName() + ":" + field.getSignature(), detail);
+      }
+    for (Iterator<ClassSummary.Member> i = summary.getMethods().iterator();
+         i.hasNext();)
+      {
+        ClassSummary.Member method = i.next();
+        if (!isApi(method.getModifiers())
+            || method.getName().equals("<clinit>"))
+          continue;
+        String detail = modifiers(method.getModifiers());
+        String[] exceptions = method.getExceptions();
+        if (exceptions != null && exceptions.length > 0)
+          {
+            StringBuilder b = new StringBuilder(detail).append(" throws ");
+            exceptions = exceptions.clone();
+            Arrays.sort(exceptions);
+            appendList(b, exceptions);
+            detail = b.toString();
+          }
+        members.put(method.getName() + method.getSignature(), detail);
+      }
+    return new ClassApi(name, outerName, buf.toString(), members);
+  }
+
+  private static boolean isApi(int flags)
+  {
+    return (flags & (ACC_PUBLIC | ACC_PROTECTED)) != 0
+      && (flags & ACC_SYNTHETIC) == 0;
+  }
+
+  private static String modifiers(int flags)
+  {
+    StringBuilder buf = new StringBuilder();
+    appendModifiers(buf, flags, false);
+    buf.setLength(buf.length() - 1);
+    return buf.toString();
+  }
+
+  private static void appendModifiers(StringBuilder buf, int flags,
+                                      boolean isInterface)
+  {
+    if ((flags & ACC_PUBLIC) != 0)
+      buf.append("public ");
+    if ((flags & ACC_PROTECTED) != 0)
+      buf.append("protected ");
+    if ((flags & ACC_STATIC) != 0)
+      buf.append("static ");
+    if ((flags & ACC_FINAL) != 0)
+      buf.append("final ");
+    if ((flags & ACC_ABSTRACT) != 0 && !isInterface)
+      buf.append("abstract ");
+    if ((flags & ACC_VARARGS) != 0)
+      buf.append("varargs ");
+  }
+
+  private static void appendList(StringBuilder buf, String[] names)
+  {
+    for (int i = 0; i < names.length; i++)
+      {
+        if (i > 0)
+          buf.append(", ");
+        buf.append(names[i]);
+      }
+  }
+
+  /**
+   * Writes a constant so that it stays on one line.
+   */
+  private static String quote(Object value)
+  {
+    if (!(value instanceof String))
+      return value.toString();
+    String s = (String) value;
+    StringBuilder buf = new StringBuilder(s.length() + 2);
+    buf.append('"');
+    for (int i = 0; i < s.length(); i++)
+      {
+        char c = s.charAt(i);
+        if (c == '"' || c == '\\')
+          buf.append('\\').append(c);
+        else if (c < 0x20 || c > 0x7e)
+          {
+            String hex = Integer.toHexString(c);
+            buf.append("\\u");
+            for (int j = hex.length(); j < 4; j++)
+              buf.append('0');
+            buf.append(hex);
+          }
+        else
+          buf.append(c);
+      }
+    return buf.append('"').toString();
+  }
+
+  /**
+   * Folds a string into a 64-bit FNV-1a hash, followed by a separator so
+   * that adjacent strings cannot run together.
+   */
+  private static long hash(long h, String s)
+  {
+    for (int i = 0; i < s.length(); i++)
+      {
+        char c = s.charAt(i);
+        h = (h ^ (c & 0xff)) * FNV_PRIME;
+        h = (h ^ (c >>> 8)) * FNV_PRIME;
+      }
+    return (h ^ 0xffff) * FNV_PRIME;
+  }
+
+  /**
+   * @return the name of the class, such as java.util.Map$Entry
+   */
+  String getName()
+  {
+    return name;
+  }
+
+  /**
+   * @return the name of the class this is a member of, or
+   *         <code>null</code> for a top level class
+   */
+  String getOuterName()
+  {
+    return outerName;
+  }
+
+  /**
+   * @return the modifiers, kind, superclass and interfaces of the class
+   */
+  String getDeclaration()
+  {
+    return declaration;
+  }
+
+  /**
+   * @return the declarations of the API members, keyed and sorted by
+   *         name and descriptor
+   */
+  Map<String,String> getMembers()
+  {
+    return members;
+  }
+
+  /**
+   * @return a hash of the declaration and members; two classes with the
+   *         same API have the same hash
+   */
+  long getHash()
+  {
+    return hash;
+  }
+}
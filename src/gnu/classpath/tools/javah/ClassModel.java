@@ -0,0 +1,535 @@
+/* gnu.classpath.tools.javah.ClassModel
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+import gnu.bytecode.Access;
+import gnu.classpath.tools.ClassSummary;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The values the {@link HeaderFormat} templates are applied to, for one
+ * class.  The members of the class are sorted into sections once, when
+ * they are first needed, and shared by every format written for it.
+ * 
+ * At the class level the variables are <code>class</code>, the class name
+ * as used in C identifiers; <code>cxxName</code> and <code>cxxSuper</code>,
+ * the C++ names of the class and its superclass; and
+ * <code>superInclude</code>, the CNI header of the superclass without its
+ * extension.  The sections are <code>superclass</code>, if there is one;
+ * <code>statics</code>, the static fields; <code>natives</code>, the native
+ * methods; <code>members</code>, every method and field in CNI order; and
+ * <code>references</code>, the classes a CNI header must declare.
+ */
+final class ClassModel implements Template.Context
+{
+  /**
+   * C++ keywords which may be Java identifiers.  Names which clash get $
+   * appended, as gcjh does.
+   */
+  private static final Set<String> CXX_KEYWORDS = new HashSet<String>();
+
+  static
+  {
+    String[] keywords = { "and", "and_eq", "asm", "auto", "bitand", "bitor",
+                         "bool", "compl", "const_cast", "delete",
+                         "dynamic_cast", "explicit", "export", "extern",
+                         "friend", "inline", "mutable", "namespace", "not",
+                         "not_eq", "operator", "or", "or_eq", "register",
+                         "reinterpret_cast", "signed", "sizeof",
+                         "static_cast", "struct", "template", "typedef",
+                         "typeid", "typename", "union", "unsigned", "using",
+                         "virtual", "wchar_t", "xor", "xor_eq" };
+    for (int i = 0; i < keywords.length; i++)
+      CXX_KEYWORDS.add(keywords[i]);
+  }
+
+  private final Javah javah;
+  private final ClassSummary summary;
+  private final String mangledName;
+  private List<Member> statics;
+  private List<Member> natives;
+  private List<Member> members;
+  private List<Reference> references;
+
+  /**
+   * @param javah supplies the JNI type names
+   * @param summary the class
+   */
+  ClassModel(Javah javah, ClassSummary summary)
+  {
+    this.javah = javah;
+    this.summary = summary;
+    mangledName = JNIMangler.mangle(summary.getName(), JNIMangler.CLASS);
+  }
+
+  public boolean write(String name, Writer out) throws IOException
+  {
+    if (name.equals("class"))
+      out.write(mangledName);
+    else if (name.equals("cxxName"))
+      out.write(JNIMangler.mangle(summary.getName(), JNIMangler.CXX));
+    else if (name.equals("cxxSuper"))
+      writeCxxName(summary.getSuperclassName(), out);
+    else if (name.equals("superInclude"))
+      out.write(summary.getSuperclassName().replace('.', '/'));
+    else
+      return false;
+    return true;
+  }
+
+  public List<? extends Template.Context> getSection(String name)
+  {
+    if (name.equals("superclass"))
+      {
+        if (summary.getSuperclassName() == null)
+          return Collections.emptyList();
+        return Collections.singletonList(this);
+      }
+    if (name.equals("statics") || name.equals("natives")
+        || name.equals("members") || name.equals("references"))
+      {
+        sortMembers();
+        if (name.equals("statics"))
+          return statics;
+        if (name.equals("natives"))
+          return natives;
+        if (name.equals("members"))
+          return members;
+        return references;
+      }
+    return null;
+  }
+
+  /**
+   * Sorts the members of the class into the sections, in one pass over
+   * its fields and one over its methods.
+   */
+  private synchronized void sortMembers()
+  {
+    if (members != null)
+      return;
+    statics = new ArrayList<Member>();
+    natives = new ArrayList<Member>();
+    List<Member> cxxMembers = new ArrayList<Member>();
+    Set<String> referenced = new TreeSet<String>();
+    referenced.add(summary.getName());
+    referenced.add("java.lang.Class");
+    Set<String> methodNames = new HashSet<String>();
+    Map<String,Integer> overloads = new HashMap<String,Integer>();
+    Iterator<ClassSummary.Member> i = summary.getMethods().iterator();
+    while (i.hasNext())
+      {
+        ClassSummary.Member method = i.next();
+        if (method.getName().equals("<clinit>"))
+          continue;
+        Member m = new Member(method, true);
+        methodNames.add(method.getName());
+        cxxMembers.add(m);
+        addReference(method.getReturnTypeName(), referenced);
+        String[] params = method.getParameterTypeNames();
+        for (int j = 0; j < params.length; j++)
+          addReference(params[j], referenced);
+        if ((method.getModifiers() & Access.NATIVE) != 0)
+          {
+            natives.add(m);
+            Integer count = overloads.get(method.getName());
+            overloads.put(method.getName(),
+                          Integer.valueOf(count == null ? 1
+                                                        : count.intValue() + 1));
+          }
+      }
+    for (int j = 0; j < natives.size(); j++)
+      {
+        Member m = natives.get(j);
+        m.longName = overloads.get(m.member.getName()).intValue() > 1;
+      }
+    i = summary.getFields().iterator();
+    while (i.hasNext())
+      {
+        ClassSummary.Member field = i.next();
+        Member m = new Member(field, false);
+        // a field may not have the name of a method in C++
+        m.clashes = methodNames.contains(field.getName());
+        cxxMembers.add(m);
+        addReference(field.getTypeName(), referenced);
+        if ((field.getModifiers() & Access.STATIC) != 0)
+          statics.add(m);
+      }
+    String access = null;
+    for (int j = 0; j < cxxMembers.size(); j++)
+      {
+        Member m = cxxMembers.get(j);
+        String memberAccess = m.getAccess();
+        if (!memberAccess.equals(access))
+          m.access = access = memberAccess;
+      }
+    references = new ArrayList<Reference>(referenced.size());
+    Iterator<String> r = referenced.iterator();
+    while (r.hasNext())
+      references.add(new Reference(r.next()));
+    members = cxxMembers;
+  }
+
+  private static void addReference(String type, Set<String> referenced)
+  {
+    int end = type.indexOf('[');
+    if (end != -1)
+      type = type.substring(0, end);
+    if (!isPrimitive(type))
+      referenced.add(type);
+  }
+
+  private static boolean isPrimitive(String type)
+  {
+    return type.equals("void") || type.equals("boolean")
+           || type.equals("byte") || type.equals("char")
+           || type.equals("short") || type.equals("int")
+           || type.equals("long") || type.equals("float")
+           || type.equals("double");
+  }
+
+  /**
+   * Writes the fully qualified C++ name of a class.
+   */
+  private static void writeCxxName(String className, Writer out)
+    throws IOException
+  {
+    out.write("::");
+    out.write(JNIMangler.mangle(className, JNIMangler.CXX));
+  }
+
+  /**
+   * Writes the CNI type for a Java type, such as
+   * <code>JArray&lt; ::java::lang::String * &gt; *</code> for String[].
+   */
+  private static void writeCxxType(String type, Writer out)
+    throws IOException
+  {
+    int end = type.indexOf('[');
+    int dims = end == -1 ? 0 : (type.length() - end) / 2;
+    for (int i = 0; i < dims; i++)
+      out.write("JArray< ");
+    String element = end == -1 ? type : type.substring(0, end);
+    if (element.equals("void"))
+      out.write("void");
+    else if (isPrimitive(element))
+      {
+        out.write('j');
+        out.write(element);
+      }
+    else
+      {
+        writeCxxName(element, out);
+        out.write(" *");
+      }
+    for (int i = 0; i < dims; i++)
+      out.write(" > *");
+  }
+
+  /**
+   * Writes a member name as a C++ identifier.
+   */
+  private static void writeCxxIdentifier(String name, Writer out)
+    throws IOException
+  {
+    out.write(JNIMangler.mangle(name, JNIMangler.CXX));
+    if (CXX_KEYWORDS.contains(name))
+      out.write('$');
+  }
+
+  /**
+   * A field or method.  Its variables are <code>field</code> or
+   * <code>method</code>, the name as used in C identifiers;
+   * <code>value</code>, the constant value of a field as a C literal;
+   * <code>signature</code>, the method descriptor; <code>function</code>,
+   * the name of the native function; <code>returnType</code> and
+   * <code>thisType</code>, JNI types; <code>arguments</code>, the JNI types
+   * of the arguments wrapped as in a header, and <code>parameters</code>,
+   * as a parameter list; <code>declaration</code>, the CNI declaration;
+   * and <code>access</code>.  The sections are <code>constant</code>, for
+   * a static field with a numeric constant value; <code>inaccessible</code>,
+   * for a static field with none; <code>result</code>, for a method which
+   * does not return void; and <code>accessChange</code>, for the first of
+   * a run of CNI members with the same access.
+   */
+  private final class Member implements Template.Context
+  {
+    final ClassSummary.Member member;
+    final boolean method;
+    boolean longName;
+    boolean clashes;
+    String access;
+
+    Member(ClassSummary.Member member, boolean method)
+    {
+      this.member = member;
+      this.method = method;
+    }
+
+    String getAccess()
+    {
+      int flags = member.getModifiers();
+      if ((flags & Access.PRIVATE) != 0)
+        return "private";
+      if ((flags & Access.PROTECTED) != 0)
+        return "protected";
+      return "public";
+    }
+
+    private boolean isStatic()
+    {
+      return (member.getModifiers() & Access.STATIC) != 0;
+    }
+
+    public boolean write(String name, Writer out) throws IOException
+    {
+      if (name.equals("field"))
+        out.write(JNIMangler.mangle(member.getName(), JNIMangler.FIELD));
+      else if (name.equals("method"))
+        out.write(JNIMangler.mangle(member.getName(), JNIMangler.JNI));
+      else if (name.equals("value"))
+        writeValue(out);
+      else if (name.equals("signature"))
+        out.write(member.getSignature());
+      else if (name.equals("function"))
+        {
+          StringBuilder function = new StringBuilder();
+          JNIMangler.appendMethodName(summary.getName(), member.getName(),
+                                      longName ? member.getSignature()
+                                               : null, function);
+          out.write(function.toString());
+        }
+      else if (name.equals("returnType"))
+        out.write(javah.getJNIType(member.getReturnTypeName()));
+      else if (name.equals("thisType"))
+        out.write(isStatic() ? "jclass" : "jobject");
+      else if (name.equals("arguments"))
+        writeArguments(out);
+      else if (name.equals("parameters"))
+        {
+          String[] params = member.getParameterTypeNames();
+          for (int i = 0; i < params.length; i++)
+            {
+              out.write(", ");
+              out.write(javah.getJNIType(params[i]));
+              out.write(" arg");
+              out.write(Integer.toString(i + 1));
+            }
+        }
+      else if (name.equals("declaration"))
+        {
+          if (method)
+            writeMethodDeclaration(out);
+          else
+            writeFieldDeclaration(out);
+        }
+      else if (name.equals("access"))
+        out.write(access);
+      else
+        return false;
+      return true;
+    }
+
+    public List<? extends Template.Context> getSection(String name)
+    {
+      boolean include;
+      if (name.equals("constant"))
+        {
+          Object value = member.getConstantValue();
+          include = value != null && !(value instanceof String)
+                    && (member.getModifiers() & Access.FINAL) != 0;
+        }
+      else if (name.equals("inaccessible"))
+        include = (member.getModifiers() & Access.FINAL) == 0
+                  || member.getConstantValue() == null;
+      else if (name.equals("result"))
+        include = !member.getReturnTypeName().equals("void");
+      else if (name.equals("accessChange"))
+        include = access != null;
+      else
+        return null;
+      if (!include)
+        return Collections.emptyList();
+      return Collections.singletonList(this);
+    }
+
+    private void writeValue(Writer out) throws IOException
+    {
+      Object value = member.getConstantValue();
+      out.write(value.toString());
+      if (value instanceof Integer)
+        out.write("L");
+      else if (value instanceof Long)
+        out.write("LL");
+      else if (value instanceof Float)
+        out.write("f");
+      else if (value instanceof Double)
+        out.write("D");
+    }
+
+    /**
+     * Writes the JNI types of the arguments, each preceded by a comma,
+     * wrapping the line before a type which would pass column 76.
+     */
+    private void writeArguments(Writer out) throws IOException
+    {
+      String[] params = member.getParameterTypeNames();
+      if (params.length == 0)
+        return;
+      String linesep = System.getProperty("line.separator");
+      // the line so far is "  (JNIEnv *, jobject, "
+      int column = 15 + (isStatic() ? 6 : 7);
+      out.write(", ");
+      for (int i = 0; i < params.length; i++)
+        {
+          String jniname = javah.getJNIType(params[i]);
+          if (column + jniname.length() > 76)
+            {
+              out.write(linesep);
+              out.write("   ");
+              column = 3;
+            }
+          out.write(jniname);
+          column += jniname.length();
+          if ((i + 1) < params.length)
+            {
+              out.write(", ");
+              column += 2;
+            }
+        }
+    }
+
+    private void writeMethodDeclaration(Writer out) throws IOException
+    {
+      int flags = member.getModifiers();
+      boolean constructor = member.getName().equals("<init>");
+      if ((flags & Access.STATIC) != 0)
+        out.write("static ");
+      else if (!constructor && (flags & (Access.PRIVATE | Access.FINAL)) == 0
+               && (summary.getModifiers() & Access.FINAL) == 0)
+        out.write("virtual ");
+      if (constructor)
+        {
+          String className = summary.getName();
+          writeCxxIdentifier(className.substring(className.lastIndexOf('.') + 1),
+                             out);
+        }
+      else
+        {
+          writeCxxType(member.getReturnTypeName(), out);
+          out.write(' ');
+          writeCxxIdentifier(member.getName(), out);
+        }
+      out.write(" (");
+      String[] params = member.getParameterTypeNames();
+      for (int i = 0; i < params.length; i++)
+        {
+          if (i > 0)
+            out.write(", ");
+          writeCxxType(params[i], out);
+        }
+      out.write(")");
+      if ((flags & Access.ABSTRACT) != 0)
+        out.write(" = 0");
+      out.write(";");
+    }
+
+    private void writeFieldDeclaration(Writer out) throws IOException
+    {
+      int flags = member.getModifiers();
+      Object value = member.getConstantValue();
+      boolean constant = (flags & Access.STATIC) != 0
+                         && (flags & Access.FINAL) != 0
+                         && (value instanceof Integer || value instanceof Long);
+      if (constant)
+        out.write("static const ");
+      else if ((flags & Access.STATIC) != 0)
+        out.write("static ");
+      writeCxxType(member.getTypeName(), out);
+      out.write(' ');
+      writeCxxIdentifier(member.getName(), out);
+      if (clashes)
+        out.write("__");
+      if (constant)
+        {
+          out.write(" = ");
+          if (value.equals(Integer.valueOf(Integer.MIN_VALUE)))
+            out.write("(-2147483647L - 1)");
+          else if (value.equals(Long.valueOf(Long.MIN_VALUE)))
+            out.write("(-9223372036854775807LL - 1)");
+          else
+            {
+              out.write(value.toString());
+              out.write(value instanceof Long ? "LL" : "L");
+            }
+        }
+      out.write(";");
+    }
+  }
+
+  /**
+   * A class which a CNI header refers to.  Its variable is
+   * <code>declaration</code>, the forward declaration of the class in its
+   * namespaces.
+   */
+  private static final class Reference implements Template.Context
+  {
+    private final String className;
+
+    Reference(String className)
+    {
+      this.className = className;
+    }
+
+    public boolean write(String name, Writer out) throws IOException
+    {
+      if (!name.equals("declaration"))
+        return false;
+      String[] parts = className.split("\\.");
+      for (int i = 0; i < parts.length - 1; i++)
+        {
+          out.write("namespace ");
+          writeCxxIdentifier(parts[i], out);
+          out.write(" { ");
+        }
+      out.write("class ");
+      out.write(JNIMangler.mangle(parts[parts.length - 1], JNIMangler.CXX));
+      out.write(";");
+      for (int i = 0; i < parts.length - 1; i++)
+        out.write(" }");
+      return true;
+    }
+
+    public List<? extends Template.Context> getSection(String name)
+    {
+      return null;
+    }
+  }
+}
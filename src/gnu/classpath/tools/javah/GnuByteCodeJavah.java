@@ -19,20 +19,14 @@
  02111-1307 USA. */
 package gnu.classpath.tools.javah;
 
-import gnu.bytecode.Access;
-import gnu.bytecode.Attribute;
-import gnu.bytecode.ClassFileInput;
-import gnu.bytecode.ClassType;
-import gnu.bytecode.ConstantValueAttr;
-import gnu.bytecode.Field;
-import gnu.bytecode.Method;
-import gnu.bytecode.Type;
+import gnu.classpath.tools.AtomicOutputStream;
+import gnu.classpath.tools.ClassSummary;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.PrintStream;
-import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 
@@ -40,329 +34,281 @@ import java.io.RandomAccessFile;
  */
 public class GnuByteCodeJavah extends Javah
 {
+  /**
+   * The single output file, while headers are being added to it.
+   */
+  private AtomicOutputStream outputFile;
 
-  private String getJNIMethodName(ClassType classType, Method m)
+  /**
+   * One file to be written for a class, in one of the output formats.
+   */
+  private static final class Artifact
   {
-    StringBuffer result = new StringBuffer();
-    String classname = classType.getName();
-    classname = classname.replace('.', '_');
-    result.append("Java_");
-    result.append(classname);
-    result.append("_");
-    Method method = classType.getMethods();
-    int overload = 0;
-    while (method != null)
-      {
-        int flags = method.getModifiers();
-        if ((flags & Access.NATIVE) != 0)
-          {
-            if (method.getName().equals(m.getName()))
-              overload++;
-          }
-        method = method.getNext();
-      }
-    String methodname = getUnicodeName(m.getName());
-    methodname = escapeUnderscore(methodname);
-    methodname = escapeUnicode(methodname);
-    result.append(methodname);
-    if (overload > 1)
-      {
-        result.append("__");
-        StringBuffer sig = new StringBuffer(m.getSignature());
-        String signature = sig.toString();
-        int idx = signature.indexOf('(');
-        if (idx != -1)
-          sig.deleteCharAt(idx);
-        signature = sig.toString();
-        idx = signature.indexOf(')');
-        if (idx != -1)
-          sig.delete(idx, sig.length());
-        signature = sig.toString();
-        signature = escapeUnderscore(signature);
-        signature = escapeSemicolon(signature);
-        signature = escapeArray(signature);
-        signature = signature.replace('/', '_');
-        result.append(signature);
-      }
-    return result.toString();
+    final HeaderFormat format;
+    final File file;
+    byte[] data;
+    boolean unchanged;
+    String digest;
+
+    Artifact(HeaderFormat format, File file)
+    {
+      this.format = format;
+      this.file = file;
+    }
+  }
+
+  /**
+   * The output for one class, prepared by {@link #prepareClassFile}.
+   * Writing it prints any messages and writes the files.
+   */
+  private class HeaderOutput implements PreparedClass
+  {
+    private final String className;
+    private final PrintStream out;
+    final List<Artifact> artifacts = new ArrayList<Artifact>(3);
+    String error;
+    boolean append;
+    String classKey;
+
+    HeaderOutput(String className, PrintStream out)
+    {
+      this.className = className;
+      this.out = out;
+    }
+
+    private void message(String s)
+    {
+      if (out != null)
+        out.println(s);
+    }
+
+    public HeaderResult write()
+    {
+      List<File> written = new ArrayList<File>(artifacts.size());
+      List<File> unchanged = new ArrayList<File>(artifacts.size());
+      if (isOutputVerbose())
+        message("[Search path = " + getSearchPath() + "]");
+      if (error != null)
+        {
+          message(error);
+          return new HeaderResult(className, written, unchanged, error);
+        }
+      for (int i = 0; i < artifacts.size(); i++)
+        {
+          Artifact artifact = artifacts.get(i);
+          if (artifact.unchanged)
+            {
+              if (isOutputVerbose())
+                message("[Unchanged " + artifact.file.getPath() + "]");
+              unchanged.add(artifact.file);
+            }
+          else
+            {
+              if (isOutputVerbose())
+                message("[Creating " + artifact.file.getPath() + "]");
+              try
+                {
+                  if (append)
+                    appendHeader(artifact.format, artifact.data);
+                  else
+                    replaceFile(artifact.file, artifact.data);
+                }
+              catch (IOException ioe)
+                {
+                  String error = "Error: Can't recover from an I/O error with the following message: "
+                                 + ioe.getMessage();
+                  if (out != null)
+                    System.err.println(error);
+                  return new HeaderResult(className, written, unchanged, error);
+                }
+              written.add(artifact.file);
+            }
+          if (classKey != null)
+            getHeaderManifest()
+              .put(artifact.format.getManifestKey(className),
+                   artifact.format.getSignature(), classKey, artifact.file,
+                   artifact.digest);
+        }
+      return new HeaderResult(className, written, unchanged, null);
+    }
   }
+
   /**
    * @see gnu.classpath.tools.javah.Javah#printClassFile(java.lang.String,
    *      java.io.PrintStream)
    */
   public void printClassFile(String className, PrintStream out)
   {
-    StringBuffer buf;
-    ClassType classType = null;
-    if (isOutputVerbose())
-      {
-        buf = new StringBuffer();
-        buf.append("[Search path = ");
-        String path = getSearchPath();
-        buf.append(path);
-        buf.append("]");
-        out.println(buf.toString());
-      }
-    try
-      {
-        InputStream is = findClass(className);
-        classType = ClassFileInput.readClassType(is);
-      }
-    catch (Throwable t)
-      {
-        out.println("Error: Class " + className + " could not be found.");
-        return;
-      }
+    PreparedClass output = prepareClassFile(className, false, out);
+    if (output != null)
+      output.write();
+  }
+
+  /**
+   * Reads the class and renders each of its files in memory, leaving only
+   * the files to be written when the result is run.  The class is read
+   * once whatever the number of output formats.  In incremental mode the
+   * class is not read at all if the manifest shows all its files to be
+   * unchanged.
+   * 
+   * @see gnu.classpath.tools.javah.Javah#prepareClassFile(String,boolean,
+   *      PrintStream)
+   */
+  protected PreparedClass prepareClassFile(String className,
+                                           boolean nativeOnly,
+                                           PrintStream out)
+  {
+    HeaderOutput output = new HeaderOutput(className, out);
+    List<HeaderFormat> formats = getOutputFormats();
+    File dir = null;
     if (getOutputDirectory() != null)
       {
-        String filename = className.replace('.', '_');
-        filename = filename.replace('$', '_');
-        filename = filename + ".h";
-        File dir = new File(getOutputDirectory());
+        dir = getFile(getOutputDirectory());
         // fatal error
         if (!dir.exists())
-          return;
-        File f = new File(dir, className);
-        if (f.exists())
-          if (!f.delete())
-            {
-              System.err.println("Error: The file " + f.getPath()
-                                 + " could not be deleted.");
-              return;
-            }
-        if (isOutputVerbose())
+          return output;
+        for (int i = 0; i < formats.size(); i++)
           {
-            buf = new StringBuffer();
-            buf.append("[Creating ");
-            buf.append(f.getPath());
-            buf.append("]");
-            out.println(buf.toString());
+            HeaderFormat format = formats.get(i);
+            output.artifacts.add(new Artifact(format,
+                                              format.getFile(dir, className)));
           }
-        writeHeader(classType, f);
       }
     else if (getOutputFile() != null)
       {
-        File f = new File(getOutputFile());
-        if (isOutputVerbose())
-          {
-            buf = new StringBuffer();
-            buf.append("[Creating ");
-            buf.append(f.getPath());
-            buf.append("]");
-            out.println(buf.toString());
-          }
-        writeHeader(classType, f);
+        output.artifacts.add(new Artifact(formats.get(0),
+                                          getFile(getOutputFile())));
+        output.append = true;
       }
-  }
-
-  private void writeHeader(ClassType classType, File f)
-  {
-    StringBuffer buf;
-    String linesep = System.getProperty("line.separator");
-    boolean newfile = f.exists();
+    HeaderManifest manifest = null;
     try
       {
-        RandomAccessFile raf = new RandomAccessFile(f, "rw");
-        raf.seek(raf.length());
-        FileWriter writer = new FileWriter(raf.getFD());
-        if (!newfile)
-          {
-            buf = new StringBuffer();
-            buf.append("/* DO NOT EDIT THIS FILE - it is machine generated */");
-            buf.append(linesep);
-            buf.append("#include <jni.h>");
-            buf.append(linesep);
-            writer.write(buf.toString());
-          }
-        buf = new StringBuffer();
-        buf.append("/* Header for class ");
-        String className = classType.getName();
-        className = getUnicodeName(className);
-        className = escapeUnicode(className);
-        className = className.replace('$', '_');
-        buf.append(className.replace('.', '_'));
-        buf.append(" */");
-        buf.append(linesep);
-        buf.append(linesep);
-        writer.write(buf.toString());
-        String includedef = "_Included_" + className.replace('.', '_');
-        buf = new StringBuffer();
-        buf.append("#ifndef ");
-        buf.append(includedef);
-        buf.append(linesep);
-        buf.append("#define ");
-        buf.append(includedef);
-        buf.append(linesep);
-        buf.append("#ifdef __cplusplus");
-        buf.append(linesep);
-        buf.append("extern \"C\" {");
-        buf.append(linesep);
-        buf.append("#endif");
-        buf.append(linesep);
-        writer.write(buf.toString());
-        // write any static fields
-        Field field = classType.getFields();
-        while (field != null)
+        if (dir != null && isIncremental())
           {
-            int flags = field.getModifiers();
-            if ((flags & Access.STATIC) != 0)
+            manifest = getHeaderManifest();
+            output.classKey = getClassKey(className);
+            if (output.classKey != null
+                && isCurrent(manifest, className, output.classKey,
+                             output.artifacts))
               {
-                buf = new StringBuffer();
-                String fieldname = field.getSourceName();
-                fieldname = getUnicodeName(fieldname);
-                fieldname = escapeUnicode(fieldname);
-                if ((flags & Access.FINAL) != 0)
-                  {
-                    ConstantValueAttr constval = (ConstantValueAttr) Attribute
-                      .get(field, "ConstantValue");
-                    if (constval == null)
-                      {
-                        //        System.out.println ("DBG1: " + fieldname);
-                        buf.append("/* Inaccessible static: ");
-                        buf.append(escapeUnicodeInner(fieldname));
-                        buf.append(" */");
-                        buf.append(linesep);
-                        writer.write(buf.toString());
-                        field = field.getNext();
-                        continue;
-                      }
-                    Object val = constval.getValue(classType.getConstants());
-                    if (val instanceof String)
-                      {
-                        System.out.println("DBG2: " + fieldname);
-                        field = field.getNext();
-                        continue;
-                      }
-                    fieldname = className.replace('.', '_') + "_" + fieldname;
-                    buf.append("#undef ");
-                    buf.append(escapeUnicodeInner(fieldname));
-                    buf.append(linesep);
-                    buf.append("#define ");
-                    buf.append(fieldname);
-                    buf.append(" ");
-                    if (val instanceof Integer)
-                      {
-                        Integer valint = (Integer) val;
-                        buf.append(valint.toString());
-                        buf.append("L");
-                      }
-                    else if (val instanceof Long)
-                      {
-                        Long vallong = (Long) val;
-                        buf.append(vallong.toString());
-                        buf.append("LL");
-                      }
-                    else if (val instanceof Float)
-                      {
-                        Float valfloat = (Float) val;
-                        buf.append(valfloat.toString());
-                        buf.append("f");
-                      }
-                    else if (val instanceof Double)
-                      {
-                        Double valdouble = (Double) val;
-                        buf.append(valdouble.toString());
-                        buf.append("D");
-                      }
-                    else
-                      System.err.println("Unknown constant value " + val);
-                    buf.append(linesep);
-                  }
-                else
-                  {
-                    buf.append("/* Inaccessible static: ");
-                    buf.append(escapeUnicodeInner(fieldname));
-                    buf.append(" */");
-                    buf.append(linesep);
-                  }
-                writer.write(buf.toString());
+                for (int i = 0; i < output.artifacts.size(); i++)
+                  output.artifacts.get(i).unchanged = true;
+                output.classKey = null;
+                return output;
               }
-            field = field.getNext();
           }
-        // write any native methods out
-        Method method = classType.getMethods();
-        while (method != null)
+        ClassSummary classSummary;
+        try
           {
-            int flags = method.getModifiers();
-            if ((flags & Access.NATIVE) != 0)
+            classSummary = getClassSummary(className);
+          }
+        catch (Throwable t)
+          {
+            output.error = "Error: Class " + className + " could not be found.";
+            return output;
+          }
+        if (nativeOnly && !hasNativeMethods(classSummary))
+          return null;
+        ClassModel model = new ClassModel(this, classSummary);
+        for (int i = 0; i < output.artifacts.size(); i++)
+          {
+            Artifact artifact = output.artifacts.get(i);
+            StringWriter writer = new StringWriter();
+            if (!output.append)
+              artifact.format.writePreamble(writer);
+            artifact.format.writeClass(model, writer);
+            artifact.data = writer.toString().getBytes();
+            if (manifest != null)
               {
-                buf = new StringBuffer();
-                buf.append("/*");
-                buf.append(linesep);
-                buf.append(" * Class:     ");
-                buf.append(className.replace('.', '_'));
-                buf.append(linesep);
-                buf.append(" * Method:    ");
-                String methodname = getUnicodeName(method.getName());
-                methodname = escapeUnderscore(methodname);
-                methodname = escapeUnicode(methodname);
-                buf.append(methodname);
-                buf.append(linesep);
-                buf.append(" * Signature: ");
-                buf.append(method.getSignature());
-                buf.append(linesep);
-                buf.append(" */");
-                buf.append(linesep);
-                buf.append("JNIEXPORT ");
-                String returnval = getJNIType(method.getReturnType().getName());
-                buf.append(returnval);
-                buf.append(" JNICALL ");
-                String methodname2 = getJNIMethodName(classType, method);
-                methodname2 = escapeUnicodeInner(methodname2);
-                buf.append(methodname2);
-                buf.append(linesep);
-                writer.write(buf.toString());
-                // begin printing JNI arguments
-                buf = new StringBuffer();
-                buf.append("  (JNIEnv *, ");
-                if ((flags & Access.STATIC) != 0)
-                  buf.append("jclass");
-                else
-                  buf.append("jobject");
-                // if there are arguments, include those
-                Type[] paramTypes = method.getParameterTypes();
-                if (paramTypes.length > 0)
-                  buf.append(", ");
-                for (int i = 0; i < paramTypes.length; i++)
-                  {
-                    String jniname = getJNIType(paramTypes[i].getName());
-                    if (buf.length() + jniname.length() > 76)
-                      {
-                        buf.append(linesep);
-                        writer.write(buf.toString());
-                        buf = new StringBuffer();
-                        buf.append("   ");
-                      }
-                    buf.append(jniname);
-                    if ((i + 1) < paramTypes.length)
-                      buf.append(", ");
-                  }
-                buf.append(");");
-                buf.append(linesep);
-                buf.append(linesep);
-                writer.write(buf.toString());
+                artifact.digest = HeaderManifest.digest(artifact.data);
+                String key = artifact.format.getManifestKey(className);
+                artifact.unchanged = artifact.digest.equals(manifest
+                  .getDigest(key, artifact.file));
               }
-            method = method.getNext();
           }
-        buf = new StringBuffer();
-        buf.append("#ifdef __cplusplus");
-        buf.append(linesep);
-        buf.append("}");
-        buf.append(linesep);
-        buf.append("#endif");
-        buf.append(linesep);
-        buf.append("#endif");
-        buf.append(linesep);
-        writer.write(buf.toString());
-        writer.close();
-        raf.close();
       }
     catch (IOException ioe)
       {
-        System.err
-          .println("Error: Can't recover from an I/O error with the following message: "
-                   + ioe.getMessage());
-        return;
+        output.error = "Error: Can't recover from an I/O error with the following message: "
+                       + ioe.getMessage();
+      }
+    return output;
+  }
+
+  /**
+   * @return true if the manifest shows every file for a class to be up to
+   *         date
+   */
+  private static boolean isCurrent(HeaderManifest manifest, String className,
+                                   String classKey, List<Artifact> artifacts)
+  {
+    for (int i = 0; i < artifacts.size(); i++)
+      {
+        Artifact artifact = artifacts.get(i);
+        HeaderFormat format = artifact.format;
+        if (!manifest.isCurrent(format.getManifestKey(className),
+                                format.getSignature(), classKey,
+                                artifact.file))
+          return false;
+      }
+    return true;
+  }
+
+  /**
+   * Adds a class to the single output file, starting the file with the
+   * preamble of its format.  The file is replaced by
+   * {@link #finishOutput()}.
+   */
+  private synchronized void appendHeader(HeaderFormat format, byte[] data)
+    throws IOException
+  {
+    if (outputFile == null)
+      {
+        outputFile = new AtomicOutputStream(getFile(getOutputFile()));
+        StringWriter writer = new StringWriter();
+        format.writePreamble(writer);
+        outputFile.write(writer.toString().getBytes());
+      }
+    outputFile.write(data);
+  }
+
+  /**
+   * Replaces the single output file with the headers added to it.
+   */
+  protected synchronized void finishOutput() throws IOException
+  {
+    AtomicOutputStream out = outputFile;
+    outputFile = null;
+    if (out == null)
+      return;
+    try
+      {
+        out.close();
+      }
+    finally
+      {
+        out.discard();
+      }
+  }
+
+  /**
+   * Replaces a file with the given contents, in one step, creating its
+   * directory if need be.
+   */
+  private static void replaceFile(File f, byte[] data) throws IOException
+  {
+    File parent = f.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+      throw new IOException("Unable to create directory " + parent);
+    AtomicOutputStream out = new AtomicOutputStream(f);
+    try
+      {
+        out.write(data);
+        out.close();
+      }
+    finally
+      {
+        out.discard();
       }
   }
-}
\ No newline at end of file
+}
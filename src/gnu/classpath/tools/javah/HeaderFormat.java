@@ -0,0 +1,188 @@
+/* gnu.classpath.tools.javah.HeaderFormat
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A kind of file generated for each class: a JNI header, a CNI header or
+ * a file of JNI stubs.  Each is a pair of templates, compiled once: the
+ * preamble, which starts a file, and the body written for every class in
+ * it.  The templates are applied to a {@link ClassModel}.
+ */
+final class HeaderFormat
+{
+  static final HeaderFormat JNI = new HeaderFormat(
+    "jni",
+    ".h",
+    "/* DO NOT EDIT THIS FILE - it is machine generated */\n"
+    + "#include <jni.h>\n",
+    "/* Header for class ${class} */\n"
+    + "\n"
+    + "#ifndef _Included_${class}\n"
+    + "#define _Included_${class}\n"
+    + "#ifdef __cplusplus\n"
+    + "extern \"C\" {\n"
+    + "#endif\n"
+    + "${#statics}${#constant}"
+    + "#undef ${class}_${field}\n"
+    + "#define ${class}_${field} ${value}\n"
+    + "${/constant}${#inaccessible}"
+    + "/* Inaccessible static: ${field} */\n"
+    + "${/inaccessible}${/statics}"
+    + "${#natives}"
+    + "/*\n"
+    + " * Class:     ${class}\n"
+    + " * Method:    ${method}\n"
+    + " * Signature: ${signature}\n"
+    + " */\n"
+    + "JNIEXPORT ${returnType} JNICALL ${function}\n"
+    + "  (JNIEnv *, ${thisType}${arguments});\n"
+    + "\n"
+    + "${/natives}"
+    + "#ifdef __cplusplus\n"
+    + "}\n"
+    + "#endif\n"
+    + "#endif\n");
+
+  static final HeaderFormat CNI = new HeaderFormat(
+    "cni",
+    null,
+    "",
+    "// DO NOT EDIT THIS FILE - it is machine generated -*- c++ -*-\n"
+    + "\n"
+    + "#ifndef __${class}__\n"
+    + "#define __${class}__\n"
+    + "\n"
+    + "#pragma interface\n"
+    + "\n"
+    + "${#superclass}#include <${superInclude}.h>\n${/superclass}"
+    + "#include <gcj/array.h>\n"
+    + "\n"
+    + "extern \"Java\"\n"
+    + "{\n"
+    + "${#references}  ${declaration}\n${/references}"
+    + "}\n"
+    + "\n"
+    + "class ${cxxName}${#superclass} : public ${cxxSuper}${/superclass}\n"
+    + "{\n"
+    + "${#members}${#accessChange}${access}:\n${/accessChange}"
+    + "  ${declaration}\n"
+    + "${/members}"
+    + "\n"
+    + "  static ::java::lang::Class class$;\n"
+    + "};\n"
+    + "\n"
+    + "#endif /* __${class}__ */\n");
+
+  static final HeaderFormat STUBS = new HeaderFormat(
+    "stubs",
+    ".c",
+    "#include <jni.h>\n",
+    "/* Stubs for class ${class} */\n"
+    + "#include \"${class}.h\"\n"
+    + "\n"
+    + "${#natives}"
+    + "/*\n"
+    + " * Class:     ${class}\n"
+    + " * Method:    ${method}\n"
+    + " * Signature: ${signature}\n"
+    + " */\n"
+    + "JNIEXPORT ${returnType} JNICALL\n"
+    + "${function} (JNIEnv *env, ${thisType} self${parameters})\n"
+    + "{\n"
+    + "${#result}  return (${returnType}) 0;\n${/result}"
+    + "}\n"
+    + "\n"
+    + "${/natives}");
+
+  private final String name;
+  private final String extension;
+  private final Template preamble;
+  private final Template body;
+  private final String signature;
+
+  /**
+   * @param name the name of the format
+   * @param extension the extension of the file named after the mangled
+   *          class name, or <code>null</code> for a header in a directory
+   *          hierarchy following the package
+   * @param preamble the preamble template
+   * @param body the body template
+   */
+  private HeaderFormat(String name, String extension, String preamble,
+                       String body)
+  {
+    this.name = name;
+    this.extension = extension;
+    this.preamble = new Template(preamble);
+    this.body = new Template(body);
+    signature = name + ':' + HeaderManifest.digest((preamble + body).getBytes());
+  }
+
+  /**
+   * @return the file generated for a class in the given output directory
+   */
+  File getFile(File dir, String className)
+  {
+    if (extension == null)
+      return new File(dir, className.replace('.', File.separatorChar) + ".h");
+    return new File(dir, JNIMangler.mangle(className, JNIMangler.CLASS)
+                         + extension);
+  }
+
+  /**
+   * @return the name under which the {@link HeaderManifest} records the
+   *         file generated for a class: its path in the output directory,
+   *         so that formats writing the same file share one entry
+   */
+  String getManifestKey(String className)
+  {
+    if (extension == null)
+      return className.replace('.', '/') + ".h";
+    return JNIMangler.mangle(className, JNIMangler.CLASS) + extension;
+  }
+
+  /**
+   * @return the name of the format and the digest of its templates, which
+   *         together determine the file generated from a class
+   */
+  String getSignature()
+  {
+    return signature;
+  }
+
+  void writePreamble(Writer out) throws IOException
+  {
+    preamble.apply(null, out);
+  }
+
+  void writeClass(ClassModel model, Writer out) throws IOException
+  {
+    body.apply(model, out);
+  }
+
+  public String toString()
+  {
+    return name;
+  }
+}
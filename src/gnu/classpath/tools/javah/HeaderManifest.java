@@ -0,0 +1,269 @@
+/* gnu.classpath.tools.javah.HeaderManifest
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+import gnu.classpath.tools.AtomicOutputStream;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Records, for each class whose header has been generated into an output
+ * directory, the class file it was generated from and the header which
+ * resulted.  This lets an incremental run skip classes which have not
+ * changed without opening them, and leave headers whose content would not
+ * change untouched, so that their modification times do not cause
+ * dependent native code to be rebuilt.
+ * 
+ * The manifest is kept in the output directory as a properties file,
+ * mapping the path of each generated file in the directory, such as
+ * java_lang_Object.h, to the SHA-1 digest, modification time and length of
+ * the file, the signature of the format it was generated in, which names
+ * the format and digests its templates, and the key returned by
+ * {@link gnu.classpath.tools.Util#getClassKey(String)}.  A file is thus
+ * only up to date if it was generated from the same class file with the
+ * same options; switching between the JNI and CNI headers of a class in
+ * the default package, which share a file, regenerates it.
+ */
+class HeaderManifest
+{
+  static final String FILENAME = ".javah-manifest";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * What is known about one header.
+   */
+  private static final class Entry
+  {
+    String digest;
+    long modified;
+    long length;
+    String format;
+    String classKey;
+  }
+
+  private final File file;
+  private final Map<String,Entry> entries = new TreeMap<String,Entry>();
+  private boolean changed;
+
+  /**
+   * Loads the manifest for the given output directory, if it has one.
+   * An unreadable manifest is treated as empty.
+   * 
+   * @param dir the output directory
+   */
+  HeaderManifest(File dir)
+  {
+    file = new File(dir, FILENAME);
+    if (!file.isFile())
+      return;
+    Properties props = new Properties();
+    try
+      {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try
+          {
+            props.load(in);
+          }
+        finally
+          {
+            in.close();
+          }
+      }
+    catch (IOException ioe)
+      {
+        return;
+      }
+    Iterator<Map.Entry<Object,Object>> i = props.entrySet().iterator();
+    while (i.hasNext())
+      {
+        Map.Entry<Object,Object> e = i.next();
+        String[] fields = ((String) e.getValue()).split(" ", 5);
+        if (fields.length != 5)
+          continue;
+        try
+          {
+            Entry entry = new Entry();
+            entry.digest = fields[0];
+            entry.modified = Long.parseLong(fields[1]);
+            entry.length = Long.parseLong(fields[2]);
+            entry.format = fields[3];
+            entry.classKey = fields[4];
+            entries.put((String) e.getKey(), entry);
+          }
+        catch (NumberFormatException nfe)
+          {
+          }
+      }
+  }
+
+  /**
+   * Checks whether a header is known to be up to date, without reading
+   * either the class or the header.
+   * 
+   * @param name the name of the header in the manifest
+   * @param format the signature of the format to generate it in
+   * @param classKey the current key of the class file
+   * @param header the header file
+   * @return true if the header was generated in the same format from the
+   *         same class file and has not been modified since
+   */
+  synchronized boolean isCurrent(String name, String format, String classKey,
+                                 File header)
+  {
+    Entry entry = entries.get(name);
+    return entry != null && entry.format.equals(format)
+           && entry.classKey.equals(classKey)
+           && entry.modified == header.lastModified()
+           && entry.length == header.length();
+  }
+
+  /**
+   * Returns the digest of a header as it is now on disk.  The recorded
+   * digest is used if the file appears untouched since it was recorded,
+   * otherwise the file is read.
+   * 
+   * @param name the name of the header in the manifest
+   * @param header the header file
+   * @return the digest, or <code>null</code> if there is no header
+   * @throws IOException if the header cannot be read
+   */
+  String getDigest(String name, File header) throws IOException
+  {
+    if (!header.isFile())
+      return null;
+    synchronized (this)
+      {
+        Entry entry = entries.get(name);
+        if (entry != null && entry.modified == header.lastModified()
+            && entry.length == header.length())
+          return entry.digest;
+      }
+    MessageDigest md = newDigest();
+    InputStream in = new FileInputStream(header);
+    try
+      {
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) != -1)
+          md.update(buf, 0, n);
+      }
+    finally
+      {
+        in.close();
+      }
+    return toHex(md.digest());
+  }
+
+  /**
+   * Records the header now generated for a class.
+   * 
+   * @param name the name of the header in the manifest
+   * @param format the signature of the format it was generated in
+   * @param classKey the key of the class file it was generated from
+   * @param header the header file, which must already be written
+   * @param digest the digest of the header's contents
+   */
+  synchronized void put(String name, String format, String classKey,
+                        File header, String digest)
+  {
+    Entry entry = new Entry();
+    entry.digest = digest;
+    entry.modified = header.lastModified();
+    entry.length = header.length();
+    entry.format = format;
+    entry.classKey = classKey;
+    entries.put(name, entry);
+    changed = true;
+  }
+
+  /**
+   * Writes the manifest back if it has changed.  The old manifest is
+   * replaced in one step.
+   * 
+   * @throws IOException if the manifest cannot be written
+   */
+  synchronized void save() throws IOException
+  {
+    if (!changed)
+      return;
+    Properties props = new Properties();
+    Iterator<Map.Entry<String,Entry>> i = entries.entrySet().iterator();
+    while (i.hasNext())
+      {
+        Map.Entry<String,Entry> e = i.next();
+        Entry entry = e.getValue();
+        props.setProperty(e.getKey(), entry.digest + ' ' + entry.modified
+                                      + ' ' + entry.length + ' '
+                                      + entry.format + ' '
+                                      + entry.classKey);
+      }
+    AtomicOutputStream out = new AtomicOutputStream(file);
+    try
+      {
+        props.store(out, "Generated by gjavah; do not edit");
+        out.close();
+        changed = false;
+      }
+    finally
+      {
+        out.discard();
+      }
+  }
+
+  /**
+   * @return the SHA-1 digest of the given bytes, in hexadecimal
+   */
+  static String digest(byte[] data)
+  {
+    return toHex(newDigest().digest(data));
+  }
+
+  private static MessageDigest newDigest()
+  {
+    try
+      {
+        return MessageDigest.getInstance("SHA-1");
+      }
+    catch (NoSuchAlgorithmException e)
+      {
+        throw new Error("SHA-1 not supported", e);
+      }
+  }
+
+  private static String toHex(byte[] digest)
+  {
+    char[] hex = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++)
+      {
+        hex[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+        hex[i * 2 + 1] = HEX[digest[i] & 0xF];
+      }
+    return new String(hex);
+  }
+}
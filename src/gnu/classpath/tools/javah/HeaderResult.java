@@ -0,0 +1,77 @@
+/* gnu.classpath.tools.javah.HeaderResult
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What {@link Javah} did for one class: the files it wrote, those it left
+ * alone because they were up to date, and the error which stopped it, if
+ * any.
+ */
+public final class HeaderResult
+{
+  private final String className;
+  private final List<File> written;
+  private final List<File> unchanged;
+  private final String error;
+
+  HeaderResult(String className, List<File> written, List<File> unchanged,
+               String error)
+  {
+    this.className = className;
+    this.written = Collections.unmodifiableList(written);
+    this.unchanged = Collections.unmodifiableList(unchanged);
+    this.error = error;
+  }
+
+  public String getClassName()
+  {
+    return className;
+  }
+
+  /**
+   * @return the files written, or added to the single output file, in the
+   *         order JNI header, CNI header, stubs
+   */
+  public List<File> getWrittenFiles()
+  {
+    return written;
+  }
+
+  /**
+   * @return the files which were already up to date, in incremental mode
+   */
+  public List<File> getUnchangedFiles()
+  {
+    return unchanged;
+  }
+
+  /**
+   * @return the message describing why the class could not be processed,
+   *         or <code>null</code> if it was
+   */
+  public String getError()
+  {
+    return error;
+  }
+}
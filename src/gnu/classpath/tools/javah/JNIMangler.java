@@ -0,0 +1,171 @@
+/* gnu.classpath.tools.javah.JNIMangler
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+/**
+ * Encodes Java names as C identifiers in a single pass.  Each character is
+ * looked up in a table for the kind of name being produced; characters
+ * outside ASCII always become _0xxxx, with the character code in lower
+ * case hexadecimal.
+ * 
+ * <ul>
+ * <li>{@link #JNI} is the encoding of the JNI specification, used for the
+ * parts of native function names: '.' and '/' become '_', and '_', ';' and
+ * '[' become _1, _2 and _3.</li>
+ * <li>{@link #CLASS} is used for class names in comments and macro names:
+ * '.', '/' and '$' become '_'.</li>
+ * <li>{@link #FIELD} is used for field names in macro names: '_' is kept
+ * and '$' becomes _00024.</li>
+ * <li>{@link #CXX} is used for C++ names in CNI headers: '_' and '$' are
+ * kept and '.' becomes ::.</li>
+ * </ul>
+ * 
+ * In every kind, ASCII letters and digits are kept and any other character
+ * becomes _0xxxx.
+ */
+final class JNIMangler
+{
+  static final int JNI = 0;
+  static final int CLASS = 1;
+  static final int FIELD = 2;
+  static final int CXX = 3;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  /**
+   * The replacement for each ASCII character, by kind; <code>null</code>
+   * where the character is kept.
+   */
+  private static final String[][] TABLES = new String[4][128];
+
+  static
+  {
+    for (int kind = 0; kind < TABLES.length; kind++)
+      {
+        String[] table = TABLES[kind];
+        for (char c = 0; c < 128; c++)
+          if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')
+              && !(c >= '0' && c <= '9'))
+            table[c] = escape(c);
+        table['.'] = "_";
+        table['/'] = "_";
+      }
+    TABLES[JNI]['_'] = "_1";
+    TABLES[JNI][';'] = "_2";
+    TABLES[JNI]['['] = "_3";
+    TABLES[CLASS]['_'] = null;
+    TABLES[CLASS]['$'] = "_";
+    TABLES[FIELD]['_'] = null;
+    TABLES[CXX]['_'] = null;
+    TABLES[CXX]['$'] = null;
+    TABLES[CXX]['.'] = "::";
+  }
+
+  private JNIMangler()
+  {
+  }
+
+  private static String escape(char c)
+  {
+    return new String(new char[] { '_', '0', HEX[(c >> 12) & 0xF],
+                                  HEX[(c >> 8) & 0xF], HEX[(c >> 4) & 0xF],
+                                  HEX[c & 0xF] });
+  }
+
+  /**
+   * Appends the encoding of part of a name.
+   * 
+   * @param s the name
+   * @param start the index of the first character to encode
+   * @param end the index after the last character to encode
+   * @param kind {@link #JNI}, {@link #CLASS}, {@link #FIELD} or
+   *          {@link #CXX}
+   * @param out the builder to append to
+   * @return <code>out</code>
+   */
+  static StringBuilder mangle(CharSequence s, int start, int end, int kind,
+                              StringBuilder out)
+  {
+    String[] table = TABLES[kind];
+    for (int i = start; i < end; i++)
+      {
+        char c = s.charAt(i);
+        if (c < 128)
+          {
+            String replacement = table[c];
+            if (replacement == null)
+              out.append(c);
+            else
+              out.append(replacement);
+          }
+        else
+          out.append('_').append('0').append(HEX[(c >> 12) & 0xF])
+            .append(HEX[(c >> 8) & 0xF]).append(HEX[(c >> 4) & 0xF])
+            .append(HEX[c & 0xF]);
+      }
+    return out;
+  }
+
+  /**
+   * Appends the encoding of a name.
+   * 
+   * @see #mangle(CharSequence,int,int,int,StringBuilder)
+   */
+  static StringBuilder mangle(CharSequence s, int kind, StringBuilder out)
+  {
+    return mangle(s, 0, s.length(), kind, out);
+  }
+
+  /**
+   * @return the encoding of a name
+   */
+  static String mangle(CharSequence s, int kind)
+  {
+    return mangle(s, 0, s.length(), kind, new StringBuilder(s.length() + 8))
+      .toString();
+  }
+
+  /**
+   * Appends the name of the native function implementing a method.  The
+   * short name is Java_, the class name, _ and the method name; the long
+   * name adds __ and the argument types from the method descriptor, and is
+   * needed to tell overloaded native methods apart.
+   * 
+   * @param className the class name, such as java.lang.Object
+   * @param methodName the method name
+   * @param descriptor the method descriptor, or <code>null</code> for the
+   *          short name
+   * @param out the builder to append to
+   * @return <code>out</code>
+   */
+  static StringBuilder appendMethodName(String className, String methodName,
+                                        String descriptor, StringBuilder out)
+  {
+    out.append("Java_");
+    mangle(className, JNI, out);
+    out.append('_');
+    mangle(methodName, JNI, out);
+    if (descriptor != null)
+      {
+        out.append("__");
+        mangle(descriptor, 1, descriptor.indexOf(')'), JNI, out);
+      }
+    return out;
+  }
+}
@@ -19,9 +19,22 @@
  02111-1307 USA. */
 package gnu.classpath.tools.javah;
 
-import gnu.classpath.tools.Util;
+import gnu.classpath.tools.ClassPath;
+import gnu.classpath.tools.ClassSummary;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 
@@ -31,6 +44,12 @@ public abstract class Javah
 {
   private static final String JAVAH_IMPL = "gnu.classpath.tools.javah";
 
+  /**
+   * Creates the provider named by the gnu.classpath.tools.javah system
+   * property, or the default one.  Its options may be changed with the
+   * setters below, and it searches its own path, which it closes when it is
+   * closed.
+   */
   public final static Javah getInstance() throws ClassNotFoundException
   {
     String impl = "gnu.classpath.tools.javah.GnuByteCodeJavah";
@@ -49,12 +68,74 @@ public abstract class Javah
       }
     throw new ClassNotFoundException("Unable to create instance of " + impl);
   }
-  private String output_directory = null;
-  private String output_file = null;
-  private boolean output_jni = false;
-  private boolean output_stubs = false;
-  private boolean output_verbose = false;
-  private Util util = new Util();
+
+  /**
+   * Creates a provider, as {@link #getInstance()} does, with the given
+   * options which finds classes on the given path.  Its options cannot be
+   * changed, so it may be used by several threads at once.  An instance
+   * is cheap, but it holds the state of one run, such as the single output
+   * file or the manifest of an incremental run, which is completed when it
+   * is closed; closing it leaves the path open for its other users.
+   * 
+   * @param options the options
+   * @param classpath the path to find classes on
+   * @return the provider
+   * @throws ClassNotFoundException if the provider cannot be created
+   */
+  public final static Javah getInstance(JavahOptions options,
+                                        ClassPath classpath)
+    throws ClassNotFoundException
+  {
+    Javah p = getInstance();
+    p.options = options;
+    p.classpath = classpath;
+    p.shared = true;
+    return p;
+  }
+
+  private volatile JavahOptions options = new JavahOptions.Builder().build();
+  private boolean shared;
+  private ClassPath classpath;
+  private String path;
+  private File cacheDirectory;
+  private File workingDirectory;
+  private HeaderManifest manifest;
+
+  /**
+   * The part of the work for one class which must be done in order, as
+   * returned by {@link Javah#prepareClassFile}.
+   */
+  protected interface PreparedClass
+  {
+    /**
+     * Prints any messages and writes the files for the class.
+     * 
+     * @return what was done
+     */
+    HeaderResult write();
+  }
+
+  /**
+   * Prepares a single class on a worker thread.
+   */
+  private class ClassPreparer implements Callable<PreparedClass>
+  {
+    private final String className;
+    private final boolean nativeOnly;
+    private final PrintStream out;
+
+    ClassPreparer(String className, boolean nativeOnly, PrintStream out)
+    {
+      this.className = className;
+      this.nativeOnly = nativeOnly;
+      this.out = out;
+    }
+
+    public PreparedClass call()
+    {
+      return prepareClassFile(className, nativeOnly, out);
+    }
+  }
 
   /**
    * Escapes the '[' character with '_3'. Useful only for descriptors, as in
@@ -62,15 +143,7 @@ public abstract class Javah
    */
   public final String escapeArray(String s)
   {
-    StringBuffer buf = new StringBuffer(s);
-    int start = -1;
-    while ((start = s.indexOf('[', start + 1)) != -1)
-      {
-        buf.replace(start, start + 1, "_3");
-        s = buf.toString();
-      }
-    s = buf.toString();
-    return s;
+    return replace(s, '[', "_3");
   }
 
   /**
@@ -79,15 +152,7 @@ public abstract class Javah
    */
   public final String escapeSemicolon(String s)
   {
-    StringBuffer buf = new StringBuffer(s);
-    int start = -1;
-    while ((start = s.indexOf(';', start + 1)) != -1)
-      {
-        buf.replace(start, start + 1, "_2");
-        s = buf.toString();
-      }
-    s = buf.toString();
-    return s;
+    return replace(s, ';', "_2");
   }
 
   /**
@@ -95,15 +160,7 @@ public abstract class Javah
    */
   public final String escapeUnderscore(String s)
   {
-    StringBuffer buf = new StringBuffer(s);
-    int start = -1;
-    while ((start = s.indexOf('_', start + 1)) != -1)
-      {
-        buf.replace(start, start + 1, "_1");
-        s = buf.toString();
-      }
-    s = buf.toString();
-    return s;
+    return replace(s, '_', "_1");
   }
 
   /**
@@ -111,18 +168,17 @@ public abstract class Javah
    */
   public final String escapeUnicode(String s)
   {
-    StringBuffer buf = new StringBuffer(s);
-    int start = -1;
-    while ((start = s.indexOf("\\u", start + 1)) != -1)
+    int start = s.indexOf("\\u");
+    if (start == -1)
+      return s;
+    StringBuilder buf = new StringBuilder(s);
+    while (start != -1 && s.length() > start + 5)
       {
-        if (s.length() > start + 5)
-          {
-            buf.replace(start, start + 2, "_0");
-            s = buf.toString();
-          }
+        buf.setCharAt(start, '_');
+        buf.setCharAt(start + 1, '0');
+        start = s.indexOf("\\u", start + 2);
       }
-    s = buf.toString();
-    return s;
+    return buf.toString();
   }
 
   /**
@@ -130,20 +186,155 @@ public abstract class Javah
    */
   public final String escapeUnicodeInner(String s)
   {
-    StringBuffer buf = new StringBuffer(s);
-    int start = -1;
-    while ((start = s.indexOf("$", start + 1)) != -1)
+    return replace(s, '$', "_00024");
+  }
+
+  /**
+   * Replaces each occurrence of a character in one pass.  Native function
+   * names are built by {@link JNIMangler}, which applies all of the
+   * escapes above at once.
+   */
+  private static String replace(String s, char c, String with)
+  {
+    int start = s.indexOf(c);
+    if (start == -1)
+      return s;
+    StringBuilder buf = new StringBuilder(s.length() + with.length() * 4);
+    int last = 0;
+    do
+      {
+        buf.append(s, last, start).append(with);
+        last = start + 1;
+        start = s.indexOf(c, last);
+      }
+    while (start != -1);
+    buf.append(s, last, s.length());
+    return buf.toString();
+  }
+
+  /**
+   * Completes the output, saves the manifest of an incremental run and
+   * releases any archives opened while searching for classes.  Nothing is
+   * printed; the caller reports any errors.
+   * 
+   * @return the messages describing the errors which occurred, such as the
+   *         single output file not being written, or an empty list
+   */
+  public final List<String> close()
+  {
+    List<String> errors = new ArrayList<String>(2);
+    try
+      {
+        finishOutput();
+      }
+    catch (IOException ioe)
       {
-        buf.replace(start, start + 1, "_00024");
-        s = buf.toString();
+        errors.add("Error: " + ioe.getMessage());
+      }
+    synchronized (this)
+      {
+        if (manifest != null)
+          {
+            try
+              {
+                manifest.save();
+              }
+            catch (IOException ioe)
+              {
+                errors.add("Error: Unable to save the header manifest: "
+                           + ioe.getMessage());
+              }
+            manifest = null;
+          }
+        if (!shared && classpath != null)
+          classpath.close();
       }
-    s = buf.toString();
-    return s;
+    return errors;
+  }
+
+  /**
+   * @return the path on which classes are found
+   */
+  public final synchronized ClassPath getClassPath()
+  {
+    if (classpath == null)
+      classpath = new ClassPath(path, cacheDirectory, workingDirectory);
+    return classpath;
+  }
+
+  /**
+   * Changes a setting of the path of an instance which is not shared,
+   * which is reopened on next use.
+   */
+  private synchronized void resetClassPath()
+  {
+    if (shared)
+      throw new IllegalStateException("The path of a shared instance cannot be changed");
+    if (classpath != null)
+      classpath.close();
+    classpath = null;
+  }
+
+  /**
+   * @return the options of this instance
+   */
+  public final JavahOptions getOptions()
+  {
+    return options;
+  }
+
+  /**
+   * Starts changing the options of an instance which is not shared.
+   */
+  private JavahOptions.Builder editOptions()
+  {
+    if (shared)
+      throw new IllegalStateException("The options of a shared instance cannot be changed");
+    return new JavahOptions.Builder(options);
+  }
+
+  /**
+   * Completes any output which is kept open across classes, such as the
+   * single output file.  Called by {@link #close()}; the default
+   * implementation does nothing.
+   * 
+   * @throws IOException if the output cannot be written
+   */
+  protected void finishOutput() throws IOException
+  {
   }
 
   public InputStream findClass(String className) throws ClassNotFoundException
   {
-    return util.findClass(className);
+    return getClassPath().findClass(className);
+  }
+
+  /**
+   * @see gnu.classpath.tools.ClassPath#getClassSummary(String)
+   */
+  public ClassSummary getClassSummary(String className)
+    throws ClassNotFoundException, IOException
+  {
+    return getClassPath().getClassSummary(className);
+  }
+
+  /**
+   * @see gnu.classpath.tools.ClassPath#getClassKey(String)
+   */
+  public String getClassKey(String className) throws IOException
+  {
+    return getClassPath().getClassKey(className);
+  }
+
+  /**
+   * @return the manifest of headers in the output directory, loaded on
+   *         first use
+   */
+  final synchronized HeaderManifest getHeaderManifest()
+  {
+    if (manifest == null)
+      manifest = new HeaderManifest(getFile(getOutputDirectory()));
+    return manifest;
   }
 
   public final String getJNIType(String jtype)
@@ -193,17 +384,17 @@ public abstract class Javah
 
   public final String getOutputDirectory()
   {
-    return output_directory;
+    return options.getOutputDirectory();
   }
 
   public final String getOutputFile()
   {
-    return output_file;
+    return options.getOutputFile();
   }
 
   public final String getSearchPath()
   {
-    return util.getSearchPath();
+    return getClassPath().getSearchPath();
   }
 
   /**
@@ -228,19 +419,96 @@ public abstract class Javah
     return namebuf.toString();
   }
 
+  /**
+   * @return true if only headers whose content changes are written
+   */
+  public final boolean isIncremental()
+  {
+    return options.isIncremental();
+  }
+
+  /**
+   * @return true if the class declares at least one native method
+   */
+  protected static boolean hasNativeMethods(ClassSummary classSummary)
+  {
+    Iterator<ClassSummary.Member> i = classSummary.getMethods().iterator();
+    while (i.hasNext())
+      if ((i.next().getModifiers() & 0x0100) != 0)
+        return true;
+    return false;
+  }
+
+  /**
+   * Lists the classes in a directory, archive or package.  An instance
+   * which is not shared then searches a directory or archive before its
+   * path, so that the classes listed can be found; the path of a shared
+   * instance is left as it was, and must already hold them.
+   * 
+   * @see gnu.classpath.tools.ClassPath#listClasses(String,List,List)
+   */
+  public final List<String> listClasses(String source, List<String> includes,
+                                        List<String> excludes)
+    throws IOException
+  {
+    ClassPath cp = getClassPath();
+    List<String> classes = cp.listClasses(source, includes, excludes);
+    if (source != null && cp.getFile(source).exists())
+      synchronized (this)
+        {
+          if (!shared && classpath == cp)
+            {
+              classpath = cp.prepend(source);
+              cp.close();
+            }
+        }
+    return classes;
+  }
+
+  /**
+   * @return the number of threads used by {@link #printClassFiles}
+   */
+  public final int getThreads()
+  {
+    return options.getThreads();
+  }
+
+  /**
+   * Returns the formats to generate for each class: those requested, in
+   * the order JNI header, CNI header, stubs, or just the JNI header if
+   * none was.
+   */
+  final List<HeaderFormat> getOutputFormats()
+  {
+    List<HeaderFormat> formats = new ArrayList<HeaderFormat>(3);
+    JavahOptions o = options;
+    if (o.isOutputJNI() || (!o.isOutputCNI() && !o.isOutputStubs()))
+      formats.add(HeaderFormat.JNI);
+    if (o.isOutputCNI())
+      formats.add(HeaderFormat.CNI);
+    if (o.isOutputStubs())
+      formats.add(HeaderFormat.STUBS);
+    return formats;
+  }
+
+  public final boolean isOutputCNI()
+  {
+    return options.isOutputCNI();
+  }
+
   public final boolean isOutputJNI()
   {
-    return output_jni;
+    return options.isOutputJNI();
   }
 
   public final boolean isOutputStubs()
   {
-    return output_stubs;
+    return options.isOutputStubs();
   }
 
   public final boolean isOutputVerbose()
   {
-    return output_verbose;
+    return options.isOutputVerbose();
   }
 
   /**
@@ -253,33 +521,209 @@ public abstract class Javah
    */
   public abstract void printClassFile(String className, PrintStream out);
 
-  public final void setClasspath(String path)
+  /**
+   * Does the part of {@link #printClassFile} for one class which need not
+   * be done in order, such as reading the class and formatting its
+   * output.  {@link #printClassFiles} calls this for several classes at
+   * once when more than one thread has been requested, then runs the
+   * results one at a time in the order the classes were given.
+   * 
+   * The default implementation does nothing in advance beyond checking for
+   * native methods, and prints the class when written.  Its result does
+   * not list the files written.
+   * 
+   * @param className The name of the class that would be examined
+   * @param nativeOnly true if there should be no output for a class
+   *          without native methods
+   * @param out The output stream to write messages to, or <code>null</code>
+   *          for none
+   * @return the remaining work, or <code>null</code> if there is none
+   */
+  protected PreparedClass prepareClassFile(final String className,
+                                           boolean nativeOnly,
+                                           final PrintStream out)
   {
-    util.setClasspath(path);
+    if (nativeOnly)
+      {
+        try
+          {
+            if (!hasNativeMethods(getClassSummary(className)))
+              return null;
+          }
+        catch (Throwable t)
+          {
+            // Let printClassFile report it.
+          }
+      }
+    return new PreparedClass()
+    {
+      public HeaderResult write()
+      {
+        printClassFile(className, out);
+        List<File> none = Collections.emptyList();
+        return new HeaderResult(className, none, none, null);
+      }
+    };
+  }
+
+  /**
+   * Prints each of the given classes in turn.  If more than one thread has
+   * been requested, the classes are read and their output formatted
+   * concurrently, but files are still written one at a time in the order
+   * given.  At most a few classes per thread are prepared ahead of the
+   * output.
+   * 
+   * @param classNames The names of the classes to examine
+   * @param nativeOnly true if classes without native methods are to be
+   *          skipped, as when processing a whole archive
+   * @param out The output stream to write messages to, or <code>null</code>
+   *          for none
+   * @return what was done for each class which was not skipped, in order
+   */
+  public final List<HeaderResult> printClassFiles(List<String> classNames,
+                                                  boolean nativeOnly,
+                                                  PrintStream out)
+  {
+    List<HeaderResult> results = new ArrayList<HeaderResult>(classNames.size());
+    int threads = getThreads();
+    if (threads <= 1 || classNames.size() <= 1)
+      {
+        for (Iterator<String> i = classNames.iterator(); i.hasNext();)
+          {
+            PreparedClass output = prepareClassFile(i.next(), nativeOnly, out);
+            if (output != null)
+              results.add(output.write());
+          }
+        return results;
+      }
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try
+      {
+        LinkedList<Future<PreparedClass>> pending
+          = new LinkedList<Future<PreparedClass>>();
+        Iterator<String> i = classNames.iterator();
+        while (i.hasNext() || !pending.isEmpty())
+          {
+            while (i.hasNext() && pending.size() < threads * 4)
+              pending.add(pool.submit(new ClassPreparer(i.next(), nativeOnly,
+                                                        out)));
+            PreparedClass output = pending.removeFirst().get();
+            if (output != null)
+              results.add(output.write());
+          }
+      }
+    catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    catch (ExecutionException e)
+      {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException)
+          throw (RuntimeException) cause;
+        if (cause instanceof Error)
+          throw (Error) cause;
+        throw new RuntimeException(cause);
+      }
+    finally
+      {
+        pool.shutdownNow();
+      }
+    return results;
+  }
+
+  /**
+   * Generates the files for each of the given classes, without printing
+   * any messages.
+   * 
+   * @param classNames The names of the classes to examine
+   * @return what was done for each class, in order
+   */
+  public final List<HeaderResult> generate(List<String> classNames)
+  {
+    return printClassFiles(classNames, false, null);
+  }
+
+  /**
+   * @param dir the directory in which to cache class summaries, or
+   *          <code>null</code> for no cache
+   */
+  public final synchronized void setCacheDirectory(File dir)
+  {
+    resetClassPath();
+    cacheDirectory = dir;
+  }
+
+  public final synchronized void setClasspath(String path)
+  {
+    resetClassPath();
+    this.path = path;
+  }
+
+  /**
+   * @see gnu.classpath.tools.Util#setWorkingDirectory(File)
+   */
+  public final synchronized void setWorkingDirectory(File dir)
+  {
+    resetClassPath();
+    workingDirectory = dir;
+  }
+
+  /**
+   * @see gnu.classpath.tools.ClassPath#getFile(String)
+   */
+  public final File getFile(String name)
+  {
+    return getClassPath().getFile(name);
+  }
+
+  /**
+   * Selects incremental generation.  When headers are written to an output
+   * directory, classes which are unchanged since the last incremental run
+   * are skipped, and headers are only rewritten if their content changes.
+   * 
+   * @param incremental true for incremental generation
+   */
+  public final void setIncremental(boolean incremental)
+  {
+    options = editOptions().setIncremental(incremental).build();
   }
 
   public final void setOutputDirectory(String output_directory)
   {
-    this.output_directory = output_directory;
+    options = editOptions().setOutputDirectory(output_directory).build();
   }
 
   public final void setOutputFile(String output_file)
   {
-    this.output_file = output_file;
+    options = editOptions().setOutputFile(output_file).build();
+  }
+
+  public final void setOutputCNI(boolean output_cni)
+  {
+    options = editOptions().setOutputCNI(output_cni).build();
   }
 
   public final void setOutputJNI(boolean output_jni)
   {
-    this.output_jni = output_jni;
+    options = editOptions().setOutputJNI(output_jni).build();
   }
 
   public final void setOutputStubs(boolean output_stubs)
   {
-    this.output_stubs = output_stubs;
+    options = editOptions().setOutputStubs(output_stubs).build();
   }
 
   public final void setOutputVerbose(boolean output_verbose)
   {
-    this.output_verbose = output_verbose;
+    options = editOptions().setOutputVerbose(output_verbose).build();
+  }
+
+  /**
+   * @param threads The number of threads to prepare classes with.
+   */
+  public final void setThreads(int threads)
+  {
+    options = editOptions().setThreads(threads).build();
   }
 }
\ No newline at end of file
@@ -19,18 +19,30 @@
  */
 package gnu.classpath.tools.javah;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 public class JavahMain
 {
   public static void main(String argv[])
   {
-    Javah p = parseArguments(argv);
+    run(argv, null);
     System.exit(0);
   }
 
   /**
-   * Parses the arguments to determine what this program should do.
+   * Runs javah with the given arguments.  Unlike {@link #main(String[])}
+   * this never exits the VM, so that a long-running process may call it
+   * for many requests, and from several threads at once.
+   * 
+   * @param argv the command line arguments
+   * @param dir the directory against which relative file names are
+   *          resolved, or <code>null</code> for the current directory
    */
-  private static Javah parseArguments(String s[])
+  public static void run(String argv[], File dir)
   {
     Javah p = null;
     try
@@ -40,40 +52,118 @@ public class JavahMain
     catch (ClassNotFoundException e)
       {
         System.err.println(e.getMessage());
-        return null;
+        return;
+      }
+    p.setWorkingDirectory(dir);
+    try
+      {
+        parseArguments(p, argv);
       }
+    finally
+      {
+        Iterator<String> i = p.close().iterator();
+        while (i.hasNext())
+          System.err.println(i.next());
+      }
+  }
+
+  /**
+   * Parses the arguments to determine what this program should do.
+   */
+  private static void parseArguments(Javah p, String s[])
+  {
     if (s.length == 0)
-      usage();
-    boolean processArguments = true;
+      {
+        usage();
+        return;
+      }
+    List<String> sources = new ArrayList<String>();
+    List<String> includes = new ArrayList<String>();
+    List<String> excludes = new ArrayList<String>();
     int i = 0;
-    while (processArguments)
+    while (i < s.length)
       {
-        if (s[i].equals("-classpath"))
+        if (s[i].equals("-batch"))
+          sources.add(s[++i]);
+        else if (s[i].equals("-cache"))
+          p.setCacheDirectory(p.getFile(s[++i]));
+        else if (s[i].equals("-classpath"))
           p.setClasspath(s[++i]);
+        else if (s[i].equals("-cni"))
+          p.setOutputCNI(true);
         else if (s[i].equals("-d"))
           p.setOutputDirectory(s[++i]);
+        else if (s[i].equals("-exclude"))
+          excludes.add(s[++i]);
         else if (s[i].equals("-help"))
-          usage();
+          {
+            usage();
+            return;
+          }
+        else if (s[i].equals("-include"))
+          includes.add(s[++i]);
+        else if (s[i].equals("-incremental"))
+          p.setIncremental(true);
         else if (s[i].equals("-jni"))
           p.setOutputJNI(true);
         else if (s[i].equals("-o"))
           p.setOutputFile(s[++i]);
+        else if (s[i].equals("-stubs"))
+          p.setOutputStubs(true);
+        else if (s[i].equals("-threads"))
+          {
+            try
+              {
+                p.setThreads(Integer.parseInt(s[++i]));
+              }
+            catch (NumberFormatException e)
+              {
+                System.err.println("Invalid thread count: " + s[i]);
+                usage();
+                return;
+              }
+          }
         else if (s[i].equals("-verbose"))
           p.setOutputVerbose(true);
         else if (s[i].startsWith("-"))
           {
             System.err.println("Invalid flag: " + s[i]);
             usage();
+            return;
           }
         else
           break;
         i++;
       }
-    if ((s.length - i) == 0)
-      usage();
+    if ((s.length - i) == 0 && sources.isEmpty())
+      {
+        usage();
+        return;
+      }
+    if (p.getOutputFile() != null && p.getOutputFormats().size() > 1)
+      {
+        System.err.println("Only one of -jni, -cni and -stubs may be used with -o");
+        usage();
+        return;
+      }
+    List<String> classes = new ArrayList<String>();
     for (int j = i; j < s.length; j++)
-      p.printClassFile(s[j], System.out);
-    return p;
+      classes.add(s[j]);
+    p.printClassFiles(classes, false, System.out);
+    for (Iterator<String> j = sources.iterator(); j.hasNext();)
+      {
+        String source = j.next();
+        try
+          {
+            classes = p.listClasses(source, includes, excludes);
+          }
+        catch (IOException ioe)
+          {
+            System.err.println("Error: " + source + ": " + ioe.getMessage());
+            continue;
+          }
+        p.printClassFiles(classes, true, System.out);
+      }
   }
 
   /**
@@ -84,18 +174,31 @@ public class JavahMain
     System.out.println("Usage: javah [OPTION]... [CLASS]...");
     System.out.println("Generate header files for the given classes.");
     System.out.println("");
+    System.out
+      .println("   -batch SOURCE             Process classes with native methods in a jar, directory or package");
+    System.out
+      .println("   -cache DIR                Cache class summaries in DIR between runs");
     System.out
       .println("   -classpath PATH           Specify where to find user class files");
+    System.out
+      .println("   -cni                      Generate CNI C++ header file");
     System.out
       .println("   -d DIR                    Specify an output directory");
+    System.out
+      .println("   -exclude GLOB             Skip batch classes matching GLOB");
     System.out.println("   -help                     Print this usage message");
+    System.out
+      .println("   -include GLOB             Only process batch classes matching GLOB");
+    System.out
+      .println("   -incremental              With -d, only write headers which change");
     System.out
       .println("   -jni                      Generate JNI header file (default)");
     System.out
       .println("   -o FILE                   Specify an output file, cannot be used with -d");
     System.out
-      .println("   -stubs                    Generate an implementation stub file");
+      .println("   -stubs                    Generate a file of JNI implementation stubs");
+    System.out
+      .println("   -threads N                Read and format classes on N threads");
     System.out.println("   -verbose                  Enable verbose output");
-    System.exit(0);
   }
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+/* gnu.classpath.tools.javah.JavahOptions
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+/**
+ * The options of a {@link Javah}, which cannot be changed once built, so
+ * that they may be shared between threads.  The defaults are those of
+ * the javah command:
+ * 
+ * <pre>
+ * JavahOptions options = new JavahOptions.Builder().setOutputDirectory("jni")
+ *   .setIncremental(true).build();
+ * </pre>
+ */
+public final class JavahOptions
+{
+  private final String output_directory;
+  private final String output_file;
+  private final boolean output_cni;
+  private final boolean output_jni;
+  private final boolean output_stubs;
+  private final boolean output_verbose;
+  private final boolean incremental;
+  private final int threads;
+
+  /**
+   * Collects the options for a {@link JavahOptions}.
+   */
+  public static final class Builder
+  {
+    private String output_directory = null;
+    private String output_file = null;
+    private boolean output_cni = false;
+    private boolean output_jni = false;
+    private boolean output_stubs = false;
+    private boolean output_verbose = false;
+    private boolean incremental = false;
+    private int threads = 1;
+
+    /**
+     * Starts with the default options.
+     */
+    public Builder()
+    {
+    }
+
+    /**
+     * Starts with the given options.
+     */
+    public Builder(JavahOptions options)
+    {
+      output_directory = options.output_directory;
+      output_file = options.output_file;
+      output_cni = options.output_cni;
+      output_jni = options.output_jni;
+      output_stubs = options.output_stubs;
+      output_verbose = options.output_verbose;
+      incremental = options.incremental;
+      threads = options.threads;
+    }
+
+    public JavahOptions build()
+    {
+      return new JavahOptions(this);
+    }
+
+    /**
+     * Selects incremental generation.  When headers are written to an
+     * output directory, classes which are unchanged since the last
+     * incremental run are skipped, and headers are only rewritten if their
+     * content changes.
+     * 
+     * @param incremental true for incremental generation
+     */
+    public Builder setIncremental(boolean incremental)
+    {
+      this.incremental = incremental;
+      return this;
+    }
+
+    public Builder setOutputDirectory(String output_directory)
+    {
+      this.output_directory = output_directory;
+      return this;
+    }
+
+    public Builder setOutputFile(String output_file)
+    {
+      this.output_file = output_file;
+      return this;
+    }
+
+    public Builder setOutputCNI(boolean output_cni)
+    {
+      this.output_cni = output_cni;
+      return this;
+    }
+
+    public Builder setOutputJNI(boolean output_jni)
+    {
+      this.output_jni = output_jni;
+      return this;
+    }
+
+    public Builder setOutputStubs(boolean output_stubs)
+    {
+      this.output_stubs = output_stubs;
+      return this;
+    }
+
+    public Builder setOutputVerbose(boolean output_verbose)
+    {
+      this.output_verbose = output_verbose;
+      return this;
+    }
+
+    /**
+     * @param threads The number of threads to prepare classes with.
+     */
+    public Builder setThreads(int threads)
+    {
+      this.threads = threads;
+      return this;
+    }
+  }
+
+  private JavahOptions(Builder b)
+  {
+    output_directory = b.output_directory;
+    output_file = b.output_file;
+    output_cni = b.output_cni;
+    output_jni = b.output_jni;
+    output_stubs = b.output_stubs;
+    output_verbose = b.output_verbose;
+    incremental = b.incremental;
+    threads = b.threads;
+  }
+
+  public String getOutputDirectory()
+  {
+    return output_directory;
+  }
+
+  public String getOutputFile()
+  {
+    return output_file;
+  }
+
+  public boolean isOutputCNI()
+  {
+    return output_cni;
+  }
+
+  public boolean isOutputJNI()
+  {
+    return output_jni;
+  }
+
+  public boolean isOutputStubs()
+  {
+    return output_stubs;
+  }
+
+  public boolean isOutputVerbose()
+  {
+    return output_verbose;
+  }
+
+  /**
+   * @return true if only headers whose content changes are written
+   */
+  public boolean isIncremental()
+  {
+    return incremental;
+  }
+
+  /**
+   * @return the number of threads used to prepare classes
+   */
+  public int getThreads()
+  {
+    return threads;
+  }
+}
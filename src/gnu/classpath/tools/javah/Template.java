@@ -0,0 +1,235 @@
+/* gnu.classpath.tools.javah.Template
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javah;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A text template, compiled once and then applied to any number of
+ * contexts, writing straight to a {@link Writer}.
+ * 
+ * The template text is copied to the output, except for these tags:
+ * 
+ * <dl>
+ * <dt>${name}</dt>
+ * <dd>is replaced by the value of the variable <code>name</code>.</dd>
+ * <dt>${#name}...${/name}</dt>
+ * <dd>is a section, repeated once for each context returned for
+ * <code>name</code>; within it, variables are looked up in that context
+ * first.  A section which is given no contexts is left out.</dd>
+ * <dt>${^name}...${/name}</dt>
+ * <dd>is an inverted section, included only if <code>name</code> gives
+ * no contexts.</dd>
+ * </dl>
+ * 
+ * Each newline in the template is written as the platform's line
+ * separator.
+ */
+final class Template
+{
+  /**
+   * The values a template is applied to.
+   */
+  interface Context
+  {
+    /**
+     * Writes the value of a variable.
+     * 
+     * @param name the variable
+     * @param out where to write it
+     * @return false if this context has no such variable
+     */
+    boolean write(String name, Writer out) throws IOException;
+
+    /**
+     * Returns the contexts for a section.
+     * 
+     * @param name the section
+     * @return the contexts, or <code>null</code> if this context has no
+     *         such section
+     */
+    List<? extends Context> getSection(String name);
+  }
+
+  private static final int TEXT = 0;
+  private static final int VARIABLE = 1;
+  private static final int SECTION = 2;
+  private static final int INVERTED = 3;
+  private static final int END = 4;
+
+  private final int[] kinds;
+  private final String[] values;
+  private final int[] ends;
+
+  /**
+   * Compiles a template.
+   * 
+   * @param source the template text
+   * @throws IllegalArgumentException if the tags are malformed or
+   *           sections are not properly nested
+   */
+  Template(String source)
+  {
+    String linesep = System.getProperty("line.separator");
+    List<Integer> kindList = new ArrayList<Integer>();
+    List<String> valueList = new ArrayList<String>();
+    List<Integer> open = new ArrayList<Integer>();
+    List<Integer> endList = new ArrayList<Integer>();
+    int pos = 0;
+    while (pos < source.length())
+      {
+        int tag = source.indexOf("${", pos);
+        int textEnd = tag == -1 ? source.length() : tag;
+        if (textEnd > pos)
+          {
+            kindList.add(Integer.valueOf(TEXT));
+            valueList.add(source.substring(pos, textEnd).replaceAll("\n",
+                                                                   linesep));
+            endList.add(Integer.valueOf(-1));
+          }
+        if (tag == -1)
+          break;
+        int close = source.indexOf('}', tag);
+        if (close == -1)
+          throw new IllegalArgumentException("Unterminated tag at " + tag);
+        String name = source.substring(tag + 2, close);
+        int kind = VARIABLE;
+        if (name.length() > 0)
+          switch (name.charAt(0))
+            {
+            case '#':
+              kind = SECTION;
+              break;
+            case '^':
+              kind = INVERTED;
+              break;
+            case '/':
+              kind = END;
+              break;
+            }
+        if (kind != VARIABLE)
+          name = name.substring(1);
+        if (name.length() == 0)
+          throw new IllegalArgumentException("Empty tag at " + tag);
+        if (kind == END)
+          {
+            if (open.isEmpty())
+              throw new IllegalArgumentException("Unopened section " + name);
+            int start = open.remove(open.size() - 1).intValue();
+            if (!valueList.get(start).equals(name))
+              throw new IllegalArgumentException("Section "
+                                                 + valueList.get(start)
+                                                 + " closed by " + name);
+            endList.set(start, Integer.valueOf(kindList.size()));
+          }
+        else if (kind != VARIABLE)
+          open.add(Integer.valueOf(kindList.size()));
+        kindList.add(Integer.valueOf(kind));
+        valueList.add(name);
+        endList.add(Integer.valueOf(-1));
+        pos = close + 1;
+      }
+    if (!open.isEmpty())
+      throw new IllegalArgumentException("Unclosed section "
+                                         + valueList.get(open.get(0)
+                                           .intValue()));
+    kinds = new int[kindList.size()];
+    ends = new int[kinds.length];
+    for (int i = 0; i < kinds.length; i++)
+      {
+        kinds[i] = kindList.get(i).intValue();
+        ends[i] = endList.get(i).intValue();
+      }
+    values = valueList.toArray(new String[kinds.length]);
+  }
+
+  /**
+   * Applies this template.
+   * 
+   * @param context the outermost context
+   * @param out where to write the result
+   * @throws IOException if writing fails
+   * @throws IllegalStateException if a variable or section is not found
+   */
+  void apply(Context context, Writer out) throws IOException
+  {
+    List<Context> stack = new ArrayList<Context>();
+    stack.add(context);
+    apply(0, kinds.length, stack, out);
+  }
+
+  private void apply(int from, int to, List<Context> stack, Writer out)
+    throws IOException
+  {
+    int i = from;
+    while (i < to)
+      {
+        switch (kinds[i])
+          {
+          case TEXT:
+            out.write(values[i]);
+            break;
+          case VARIABLE:
+            write(values[i], stack, out);
+            break;
+          case SECTION:
+            List<? extends Context> contexts = getSection(values[i], stack);
+            for (int j = 0; j < contexts.size(); j++)
+              {
+                stack.add(contexts.get(j));
+                apply(i + 1, ends[i], stack, out);
+                stack.remove(stack.size() - 1);
+              }
+            i = ends[i];
+            break;
+          case INVERTED:
+            if (getSection(values[i], stack).isEmpty())
+              apply(i + 1, ends[i], stack, out);
+            i = ends[i];
+            break;
+          }
+        i++;
+      }
+  }
+
+  private static void write(String name, List<Context> stack, Writer out)
+    throws IOException
+  {
+    for (int i = stack.size() - 1; i >= 0; i--)
+      if (stack.get(i).write(name, out))
+        return;
+    throw new IllegalStateException("Unknown template variable " + name);
+  }
+
+  private static List<? extends Context> getSection(String name,
+                                                    List<Context> stack)
+  {
+    for (int i = stack.size() - 1; i >= 0; i--)
+      {
+        List<? extends Context> contexts = stack.get(i).getSection(name);
+        if (contexts != null)
+          return contexts;
+      }
+    throw new IllegalStateException("Unknown template section " + name);
+  }
+}
@@ -25,20 +25,19 @@ import gnu.bytecode.ClassFileInput;
 import gnu.bytecode.ClassType;
 import gnu.bytecode.ClassTypeWriter;
 import gnu.bytecode.CodeAttr;
-import gnu.bytecode.Field;
-import gnu.bytecode.InnerClassesAttr;
 import gnu.bytecode.LineNumbersAttr;
 import gnu.bytecode.LocalVarsAttr;
 import gnu.bytecode.Method;
-import gnu.bytecode.SourceFileAttr;
-import gnu.bytecode.Type;
 import gnu.bytecode.VarEnumerator;
 import gnu.bytecode.Variable;
+import gnu.classpath.tools.ChannelWriter;
+import gnu.classpath.tools.ClassSummary;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PrintStream;
 import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.List;
 import java.util.StringTokenizer;
 
 /**
@@ -47,59 +46,44 @@ import java.util.StringTokenizer;
  */
 public class GnuByteCodeJavap extends Javap
 {
-  private static String CLASS_TABBING = "";
   private static final String COMMENT_END = "   */";
   private static final String COMMENT_START = "/*   ";
   private static final short EXCEPTIONS = 0x02;
   private static final short MODIFIERS = 0x01;
   private static final String TAB = "    ";
-  private static String TABBING = TAB;
   private static final short WITHSEMICOLON = 0x04;
-  private StringWriter swriter = null;
+  private static final int MODIFIER_MASK = 0x7FF;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
 
-  private ClassTypeWriter getClassTypeWriter(StringBuffer buf, ClassType ctype)
-  {
-    swriter = new StringWriter();
-    PrintWriter pwriter = new PrintWriter(swriter, true);
-    ClassTypeWriter cwriter = new ClassTypeWriter(ctype, pwriter, 0);
-    return cwriter;
-  }
+  /**
+   * The text printed for each combination of member access flags.
+   */
+  private static final String[] MEMBER_MODIFIERS = createModifierTable(false);
 
-  private String getMethod(ClassType classType, Method method, int modifiers)
+  /**
+   * The text printed for each combination of class access flags, where the
+   * synchronized bit is the super bit and interfaces aren't marked abstract.
+   */
+  private static final String[] CLASS_MODIFIERS = createModifierTable(true);
+
+  private static String[] createModifierTable(boolean forClass)
   {
-    StringBuffer buf = new StringBuffer();
-    int flags = method.getModifiers();
-    if ((modifiers & MODIFIERS) != 0)
+    String[] table = new String[MODIFIER_MASK + 1];
+    StringBuilder buf = new StringBuilder();
+    for (int flags = 0; flags < table.length; flags++)
       {
+        buf.setLength(0);
         if ((flags & Access.PUBLIC) != 0)
-          {
-            buf.append("public ");
-            if (!isShowPublic())
-              {
-                return null;
-              }
-          }
+          buf.append("public ");
         if ((flags & Access.PRIVATE) != 0)
-          {
-            buf.append("private ");
-            if (!isShowPrivate())
-              {
-                return null;
-              }
-          }
+          buf.append("private ");
         if ((flags & Access.PROTECTED) != 0)
-          {
-            buf.append("protected ");
-            if (!isShowProtected())
-              {
-                return null;
-              }
-          }
+          buf.append("protected ");
         if ((flags & Access.STATIC) != 0)
           buf.append("static ");
         if ((flags & Access.FINAL) != 0)
           buf.append("final ");
-        if ((flags & Access.SYNCHRONIZED) != 0)
+        if (!forClass && (flags & Access.SYNCHRONIZED) != 0)
           buf.append("synchronized ");
         if ((flags & Access.VOLATILE) != 0)
           buf.append("volatile ");
@@ -107,21 +91,57 @@ public class GnuByteCodeJavap extends Javap
           buf.append("transient ");
         if ((flags & Access.NATIVE) != 0)
           buf.append("native ");
-        if ((flags & Access.ABSTRACT) != 0)
+        if ((flags & Access.ABSTRACT) != 0
+            && !(forClass && (flags & Access.INTERFACE) != 0))
           buf.append("abstract ");
         if ((flags & Access.INTERFACE) != 0)
           buf.append("interface ");
+        table[flags] = buf.toString();
+      }
+    return table;
+  }
+
+  private ClassTypeWriter getClassTypeWriter(ChannelWriter out, ClassType ctype)
+  {
+    return new ClassTypeWriter(ctype, new PrintWriter(out), 0);
+  }
+
+  /**
+   * @return true if a member with the given flags should be shown
+   */
+  private boolean isShown(int flags)
+  {
+    if ((flags & Access.PUBLIC) != 0 && !isShowPublic())
+      return false;
+    if ((flags & Access.PRIVATE) != 0 && !isShowPrivate())
+      return false;
+    if ((flags & Access.PROTECTED) != 0 && !isShowProtected())
+      return false;
+    return true;
+  }
+
+  /**
+   * Appends the declaration of a method to <code>buf</code>.
+   * 
+   * @return false, leaving <code>buf</code> unspecified, if modifiers are
+   *         requested and the method should not be shown
+   */
+  private boolean appendMethod(StringBuilder buf, ClassSummary classSummary,
+                               ClassSummary.Member method, int modifiers)
+  {
+    int flags = method.getModifiers();
+    if ((modifiers & MODIFIERS) != 0)
+      {
+        if (!isShown(flags))
+          return false;
+        buf.append(MEMBER_MODIFIERS[flags & MODIFIER_MASK]);
       }
     String methodName = method.getName();
     if (methodName.indexOf('$') != methodName.length() - 1)
       methodName = escapeInnerClass(methodName);
     // if a constructor
     if (methodName.equals("<init>"))
-      {
-        String classtypename = classType.getName();
-        classtypename = escapeInnerClass(classtypename);
-        buf.append(classtypename);
-      }
+      buf.append(escapeInnerClass(classSummary.getName()));
     else if (methodName.equals("<clinit>"))
       {
         if ((modifiers & MODIFIERS) != 0)
@@ -131,319 +151,231 @@ public class GnuByteCodeJavap extends Javap
       }
     else
       {
-        Type returnType = method.getReturnType();
-        String returntypename = returnType.getName();
-        returntypename = escapeInnerClass(returntypename);
-        buf.append(returntypename);
-        buf.append(" ");
+        buf.append(escapeInnerClass(method.getReturnTypeName()));
+        buf.append(' ');
         buf.append(methodName);
       }
     if (!methodName.equals("<clinit>"))
       {
-        buf.append("(");
-        Type[] paramTypes = method.getParameterTypes();
+        buf.append('(');
+        String[] paramTypes = method.getParameterTypeNames();
         for (int i = 0; i < paramTypes.length; i++)
           {
-            String paramtypename = paramTypes[i].getName();
-            paramtypename = escapeInnerClass(paramtypename);
-            buf.append(paramtypename);
+            buf.append(escapeInnerClass(paramTypes[i]));
             if ((i + 1) < paramTypes.length)
               buf.append(", ");
           }
-        buf.append(")");
+        buf.append(')');
       }
     if ((modifiers & EXCEPTIONS) != 0)
       {
-        ClassType[] exceptions = method.getExceptions();
+        String[] exceptions = method.getExceptions();
         if (exceptions != null && exceptions.length > 0)
           {
             buf.append(" throws ");
             for (int i = 0; i < exceptions.length; i++)
               {
-                String exceptionname = exceptions[i].getName();
-                exceptionname = escapeInnerClass(exceptionname);
-                buf.append(exceptionname);
+                buf.append(escapeInnerClass(exceptions[i]));
                 if ((i + 1) < exceptions.length)
                   buf.append(", ");
               }
           }
       }
     if ((modifiers & WITHSEMICOLON) != 0)
-      buf.append(";");
-    return buf.toString();
+      buf.append(';');
+    return true;
   }
 
   /**
+   * The indentation is kept in local variables, rather than fields, so that
+   * classes may be printed concurrently.  Each line is written straight to
+   * <code>out</code>; only method declarations, which are needed several
+   * times, are built up in a buffer first.
+   * 
+   * The declarations are printed from a {@link ClassSummary}, which skips
+   * over method bodies and may come from the summary cache.  The class is
+   * only fully decoded by gnu.bytecode when code, line numbers or local
+   * variables are to be shown.
+   * 
    * @see gnu.classpath.tools.javap.Javap#printClassFile(java.lang.String,
-   *      java.io.PrintStream)
+   *      gnu.classpath.tools.ChannelWriter)
    */
-  public void printClassFile(String className, PrintStream out)
+  public void printClassFile(String className, ChannelWriter out)
+    throws IOException
   {
-    StringBuffer buf = new StringBuffer();
-    ClassType classType = null;
+    if (isOutputJSON())
+      {
+        printJSON(className, out);
+        return;
+      }
+    String classTabbing = "";
+    String tabbing = TAB;
+    StringBuilder buf = new StringBuilder();
+    boolean decode = isDisassemble() || isPrintLineNumbers()
+                     || isPrintLocalVariables();
+    byte[] data = null;
+    ClassSummary classSummary;
     try
       {
-        InputStream is = findClass(className);
-        classType = ClassFileInput.readClassType(is);
+        if (decode)
+          {
+            data = ClassSummary.readBytes(findClass(className));
+            classSummary = ClassSummary.read(data);
+          }
+        else
+          classSummary = getClassSummary(className);
       }
     catch (Throwable t)
       {
-        out.println("Error: Class " + className + " could not be found.");
+        out.append("Error: Class ").append(className)
+          .append(" could not be found.").newLine();
         return;
       }
-    try
+    String sourceFile = classSummary.getSourceFile();
+    if (sourceFile != null)
       {
-        SourceFileAttr sourceFile = (SourceFileAttr) Attribute
-          .get(classType, "SourceFile");
-        if (sourceFile != null)
+        if (isPrintCompiledFrom())
           {
-            if (isPrintCompiledFrom())
-              {
-                buf.append("Compiled from \"");
-                buf.append(sourceFile.getSourceFile());
-                buf.append("\"");
-                out.println(buf.toString());
-              }
+            out.append("Compiled from \"");
+            out.append(sourceFile);
+            out.append('"').newLine();
           }
       }
-    catch (ClassCastException cce)
-      {
-      }
-    buf = new StringBuffer();
-    buf.append(CLASS_TABBING);
-    int flags = classType.getModifiers();
-    if ((flags & Access.PUBLIC) != 0)
-      buf.append("public ");
-    if ((flags & Access.PRIVATE) != 0)
-      buf.append("private ");
-    if ((flags & Access.PROTECTED) != 0)
-      buf.append("protected ");
-    if ((flags & Access.STATIC) != 0)
-      buf.append("static ");
-    if ((flags & Access.FINAL) != 0)
-      buf.append("final ");
+    out.append(classTabbing);
+    int flags = classSummary.getModifiers();
     /* synchronized flag here is for super bit... */
-    //      if ((flags & Access.SYNCHRONIZED) != 0)buf.append(" synchronized");
-    if ((flags & Access.VOLATILE) != 0)
-      buf.append("volatile ");
-    if ((flags & Access.TRANSIENT) != 0)
-      buf.append("transient ");
-    if ((flags & Access.NATIVE) != 0)
-      buf.append("native ");
-    if (!classType.isInterface())
-      if ((flags & Access.ABSTRACT) != 0)
-        buf.append("abstract ");
-    if ((flags & Access.INTERFACE) != 0)
-      buf.append("interface ");
-    if (!classType.isInterface())
-      buf.append("class ");
-    String classtypename = classType.getName();
-    classtypename = escapeInnerClass(classtypename);
-    buf.append(classtypename);
+    out.append(CLASS_MODIFIERS[flags & MODIFIER_MASK]);
+    if (!classSummary.isInterface())
+      out.append("class ");
+    out.append(escapeInnerClass(classSummary.getName()));
     boolean show_super = false;
-    ClassType superType = classType.getSuperclass();
-    if (superType != null)
+    String superName = classSummary.getSuperclassName();
+    if (superName != null)
       {
-        if (classType.isInterface())
-          if (superType.getName().equals("java.lang.Object"))
+        if (classSummary.isInterface())
+          if (superName.equals("java.lang.Object"))
             show_super = true;
         if (!show_super)
           {
-            buf.append(" extends ");
-            String supertypename = superType.getName();
-            supertypename = escapeInnerClass(supertypename);
-            buf.append(supertypename);
+            out.append(" extends ");
+            out.append(escapeInnerClass(superName));
           }
       }
-    ClassType[] interfaces = classType.getInterfaces();
+    String[] interfaces = classSummary.getInterfaceNames();
     if (interfaces != null)
       {
         if (interfaces.length > 0)
           {
-            if (classType.isInterface())
-              buf.append(" extends ");
+            if (classSummary.isInterface())
+              out.append(" extends ");
             else
-              buf.append(" implements ");
+              out.append(" implements ");
           }
         for (int i = 0; i < interfaces.length; i++)
           {
-            String interfacename = interfaces[i].getName();
-            interfacename = escapeInnerClass(interfacename);
-            buf.append(interfacename);
+            out.append(escapeInnerClass(interfaces[i]));
             if ((i + 1) < interfaces.length)
-              buf.append(", ");
+              out.append(", ");
           }
       }
-    if (!classType.isInterface())
-      buf.append(" {");
+    if (!classSummary.isInterface())
+      out.append(" {");
     else
-      buf.append(" "); // done only to match jdk javap on diff
-    out.println(buf.toString());
+      out.append(' '); // done only to match jdk javap on diff
+    out.newLine();
     if ((flags & Access.SYNCHRONIZED) == 0)
-      out.println("    /* ACC_SUPER bit NOT set */");
-    if (classType.isInterface())
-      out.println(CLASS_TABBING + "{");
+      out.append("    /* ACC_SUPER bit NOT set */").newLine();
+    if (classSummary.isInterface())
+      out.append(classTabbing).append('{').newLine();
     // output fields
-    buf = null;
-    Field field = classType.getFields();
-    while (field != null)
+    Iterator<ClassSummary.Member> members = classSummary.getFields().iterator();
+    while (members.hasNext())
       {
-        buf = new StringBuffer();
-        buf.append(TABBING);
+        ClassSummary.Member field = members.next();
         flags = field.getModifiers();
-        if ((flags & Access.PUBLIC) != 0)
-          {
-            buf.append("public ");
-            if (!isShowPublic())
-              {
-                field = field.getNext();
-                continue;
-              }
-          }
-        if ((flags & Access.PRIVATE) != 0)
-          {
-            buf.append("private ");
-            if (!isShowPrivate())
-              {
-                field = field.getNext();
-                continue;
-              }
-          }
-        if ((flags & Access.PROTECTED) != 0)
-          {
-            buf.append("protected ");
-            if (!isShowProtected())
-              {
-                field = field.getNext();
-                continue;
-              }
-          }
-        if ((flags & Access.STATIC) != 0)
-          buf.append("static ");
-        if ((flags & Access.FINAL) != 0)
-          buf.append("final ");
-        if ((flags & Access.SYNCHRONIZED) != 0)
-          buf.append("synchronized ");
-        if ((flags & Access.VOLATILE) != 0)
-          buf.append("volatile ");
-        if ((flags & Access.TRANSIENT) != 0)
-          buf.append("transient ");
-        if ((flags & Access.NATIVE) != 0)
-          buf.append("native ");
-        if ((flags & Access.ABSTRACT) != 0)
-          buf.append("abstract ");
-        if ((flags & Access.INTERFACE) != 0)
-          buf.append("interface ");
-        String fieldtypename = field.getType().getName();
-        fieldtypename = escapeInnerClass(fieldtypename);
-        buf.append(fieldtypename);
-        buf.append(" ");
-        buf.append(field.getSourceName());
-        buf.append(";");
-        out.println(buf.toString());
+        if (!isShown(flags))
+          continue;
+        out.append(tabbing);
+        out.append(MEMBER_MODIFIERS[flags & MODIFIER_MASK]);
+        out.append(escapeInnerClass(field.getTypeName()));
+        out.append(' ');
+        out.append(field.getName());
+        out.append(';').newLine();
         if (isPrintSignatures())
           {
-            buf = new StringBuffer();
-            buf.append(TABBING);
-            buf.append(TAB);
-            buf.append(COMMENT_START);
-            buf.append(field.getSignature());
-            buf.append(COMMENT_END);
-            out.println(buf.toString());
+            out.append(tabbing).append(TAB).append(COMMENT_START);
+            out.append(field.getSignature());
+            out.append(COMMENT_END).newLine();
           }
-        field = field.getNext();
       }
     // output methods
-    buf = null;
-    Method method = classType.getMethods();
-    while (method != null)
+    members = classSummary.getMethods().iterator();
+    while (members.hasNext())
       {
-        buf = new StringBuffer();
-        buf.append(TABBING);
-        flags = 1;
-        flags |= MODIFIERS | EXCEPTIONS | WITHSEMICOLON;
-        String methodStr = getMethod(classType, method, flags);
-        if (methodStr == null)
-          {
-            method = method.getNext();
-            continue;
-          }
-        buf.append(getMethod(classType, method, flags));
-        out.println(buf.toString());
-        buf = null;
+        ClassSummary.Member method = members.next();
+        buf.setLength(0);
+        if (!appendMethod(buf, classSummary, method,
+                          MODIFIERS | EXCEPTIONS | WITHSEMICOLON))
+          continue;
+        out.append(tabbing).append(buf).newLine();
         if (isPrintSignatures())
           {
-            buf = new StringBuffer();
-            buf.append(TABBING);
-            buf.append(TAB);
-            buf.append(COMMENT_START);
-            buf.append(method.getSignature());
-            buf.append(COMMENT_END);
-            out.println(buf.toString());
-            buf = null;
+            out.append(tabbing).append(TAB).append(COMMENT_START);
+            out.append(method.getSignature());
+            out.append(COMMENT_END).newLine();
           }
         if (isPrintStackSize() || isPrintNumberLocals() || isPrintMethodArgs())
           {
-            CodeAttr code = method.getCode();
-            if (code != null)
+            if (method.hasCode())
               {
-                buf = new StringBuffer();
-                buf.append(TABBING);
-                buf.append(TAB);
-                buf.append(COMMENT_START);
+                out.append(tabbing).append(TAB).append(COMMENT_START);
                 if (isPrintStackSize())
                   {
-                    buf.append("Stack=");
-                    buf.append(code.getMaxStack());
+                    out.append("Stack=");
+                    out.append(method.getMaxStack());
                   }
                 if (isPrintNumberLocals())
                   {
                     if (isPrintStackSize())
-                      buf.append(", ");
-                    buf.append("Locals=");
-                    buf.append(code.getMaxLocals());
+                      out.append(", ");
+                    out.append("Locals=");
+                    out.append(method.getMaxLocals());
                   }
                 if (isPrintMethodArgs())
                   {
                     if (isPrintStackSize() || isPrintNumberLocals())
-                      buf.append(", ");
-                    buf.append("Args_size=");
-                    Type[] paramTypes = method.getParameterTypes();
+                      out.append(", ");
+                    out.append("Args_size=");
+                    String[] paramTypes = method.getParameterTypeNames();
                     String methodName = method.getName();
                     int add = 1;
                     if (methodName.equals("<clinit>"))
                       add = 0;
-                    int args = paramTypes.length + add;
-                    buf.append(args);
+                    out.append(paramTypes.length + add);
                   }
-                buf.append(COMMENT_END);
-                out.println(buf.toString());
-                buf = null;
+                out.append(COMMENT_END).newLine();
               }
           }
-        method = method.getNext();
       }
-    InnerClassesAttr innerClassAttr = (InnerClassesAttr) Attribute
-      .get(classType, "InnerClasses");
-    if (innerClassAttr != null)
+    if (classSummary.getInnerClasses() != null)
       {
         //        String[][] innerClassNames = innerClassAttr.getClassNames();
         String[][] innerClassNames = new String[0][0];
-        //    System.out.println (TABBING + "DBG: " + classType.getName () + "
+        //    System.out.println (tabbing + "DBG: " + classType.getName () + "
         // THIS");
         //    for (int i = 0; i < innerClassNames.length; i++)
         //      {
-        //        System.out.println (TABBING + "DBG: " + innerClassNames[i][0]);
+        //        System.out.println (tabbing + "DBG: " + innerClassNames[i][0]);
         //      }
-        TABBING = TABBING + TAB;
-        CLASS_TABBING = CLASS_TABBING + TAB;
+        tabbing = tabbing + TAB;
+        classTabbing = classTabbing + TAB;
         for (int i = 0; i < innerClassNames.length; i++)
           {
             String tclassName = innerClassNames[i][0];
             tclassName = tclassName.replace('/', '.');
-            if (tclassName.indexOf(classType.getName()) == -1)
+            if (tclassName.indexOf(classSummary.getName()) == -1)
               continue;
-            if (tclassName.length() <= classType.getName().length())
+            if (tclassName.length() <= classSummary.getName().length())
               continue;
             String test = escapeInnerClass(tclassName);
             if (test.indexOf('$') != -1)
@@ -496,125 +428,295 @@ public class GnuByteCodeJavap extends Javap
                                    + ioe.getMessage());
               }
           }
-        TABBING = TABBING.substring(0, TABBING.length() - TAB.length());
-        CLASS_TABBING = CLASS_TABBING.substring(0, CLASS_TABBING.length()
-                                                   - TAB.length());
+        tabbing = tabbing.substring(0, tabbing.length() - TAB.length());
+        classTabbing = classTabbing.substring(0, classTabbing.length()
+                                                 - TAB.length());
       }
     // end of class
-    out.println(CLASS_TABBING + "}");
-    method = classType.getMethods();
+    out.append(classTabbing).append('}').newLine();
+    if (!decode)
+      return;
+    ClassType classType;
+    try
+      {
+        classType = ClassFileInput.readClassType(new ByteArrayInputStream(data));
+      }
+    catch (Throwable t)
+      {
+        out.append("Error: Class ").append(className)
+          .append(" could not be read.").newLine();
+        return;
+      }
+    // gnu.bytecode keeps the methods in class file order, as does the summary
+    members = classSummary.getMethods().iterator();
+    Method method = classType.getMethods();
     while (method != null)
       {
-        if (isDisassemble() || isPrintLineNumbers() || isPrintLocalVariables())
+        ClassSummary.Member declaration = members.next();
+        try
           {
-            try
+            CodeAttr code = (CodeAttr) Attribute.get(method, "Code");
+            if (code != null)
               {
-                CodeAttr code = (CodeAttr) Attribute.get(method, "Code");
-                if (code != null)
+                buf.setLength(0);
+                appendMethod(buf, classSummary, declaration, 0);
+                if (isDisassemble())
+                  {
+                    out.newLine();
+                    out.append("Method ").append(buf).newLine();
+                    int offset = 0;
+                    int length = code.getCodeLength();
+                    ClassTypeWriter writer = getClassTypeWriter(out, classType);
+                    code.disAssemble(writer, offset, length);
+                    // Don't close the writer, that would close out too.
+                    writer.flush();
+                  }
+                if (isPrintLineNumbers())
                   {
-                    if (isDisassemble())
+                    LineNumbersAttr lineNumbers = (LineNumbersAttr) Attribute
+                      .get(code, "LineNumberTable");
+                    if (lineNumbers != null)
                       {
-                        buf = new StringBuffer();
-                        String methodStr = getMethod(classType, method, 0);
-                        if (methodStr != null)
+                        out.newLine();
+                        out.append("Line numbers for method ").append(buf);
+                        out.newLine();
+                        int linenumber_count = lineNumbers.getLineCount();
+                        short[] linenumber_table = lineNumbers
+                          .getLineNumberTable();
+                        for (int i = 0; i < linenumber_count; i++)
                           {
-                            buf.append("Method ");
-                            buf.append(methodStr);
-                            out.println("");
-                            out.println(buf.toString());
+                            out.append("   line ");
+                            out.append(linenumber_table[2 * i + 1] & 0xFFFF);
+                            out.append(": ");
+                            out.append(linenumber_table[2 * i] & 0xFFFF);
+                            out.newLine();
                           }
-                        int offset = 0;
-                        int length = code.getCodeLength();
-                        buf = new StringBuffer();
-                        ClassTypeWriter writer = getClassTypeWriter(buf,
-                                                                    classType);
-                        code.disAssemble(writer, offset, length);
-                        writer.flush();
-                        writer.close();
-                        // swriter is set in getClasTypeWriter
-                        if (swriter != null)
-                          out.print(swriter.toString());
                       }
-                    if (isPrintLineNumbers())
+                  }
+                if (isPrintLocalVariables())
+                  {
+                    try
                       {
-                        LineNumbersAttr lineNumbers = (LineNumbersAttr) Attribute
-                          .get(code, "LineNumberTable");
-                        if (lineNumbers != null)
+                        LocalVarsAttr vars = (LocalVarsAttr) Attribute
+                          .get(code, "LocalVariableTable");
+                        if (vars != null)
                           {
-                            buf = new StringBuffer();
-                            String methodStr = getMethod(classType, method, 0);
-                            if (methodStr != null)
+                            out.newLine();
+                            out.append("Local variables for method ");
+                            out.append(buf).newLine();
+                            VarEnumerator varEnum = vars.allVars();
+                            Variable var = varEnum.nextVar();
+                            while (var != null)
                               {
-                                buf.append("Line numbers for method ");
-                                buf.append(methodStr);
-                                out.println("");
-                                out.println(buf.toString());
-                                int linenumber_count = lineNumbers
-                                  .getLineCount();
-                                short[] linenumber_table = lineNumbers
-                                  .getLineNumberTable();
-                                for (int i = 0; i < linenumber_count; i++)
-                                  {
-                                    out.print("   line ");
-                                    out
-                                      .print(linenumber_table[2 * i + 1] & 0xFFFF);
-                                    out.print(": ");
-                                    out
-                                      .println(linenumber_table[2 * i] & 0xFFFF);
-                                  }
+                                out.append("   ");
+                                out.append(var.getType().getName());
+                                out.append(' ');
+                                out.append(var.getName());
+                                out.append("  pc=");
+                                //                out.append(var.getStartPC());
+                                out.append(", length=");
+                                //                out.append(var.getEndPC() -
+                                // var.getStartPC());
+                                out.append(", slot=");
+                                //                out.append(var.getOffset());
+                                out.newLine();
+                                var = varEnum.nextVar();
                               }
                           }
                       }
-                    if (isPrintLocalVariables())
+                    catch (ClassCastException cce)
                       {
-                        try
-                          {
-                            LocalVarsAttr vars = (LocalVarsAttr) Attribute
-                              .get(code, "LocalVariableTable");
-                            if (vars != null)
-                              {
-                                buf = new StringBuffer();
-                                String methodStr = getMethod(classType, method,
-                                                             0);
-                                if (methodStr != null)
-                                  {
-                                    buf.append("Local variables for method ");
-                                    buf.append(methodStr);
-                                    out.println("");
-                                    out.println(buf.toString());
-                                    VarEnumerator varEnum = vars.allVars();
-                                    Variable var = varEnum.nextVar();
-                                    while (var != null)
-                                      {
-                                        buf = new StringBuffer();
-                                        buf.append("   ");
-                                        buf.append(var.getType().getName());
-                                        buf.append(" ");
-                                        buf.append(var.getName());
-                                        buf.append("  pc=");
-                                        //                        buf.append(var.getStartPC());
-                                        buf.append(", length=");
-                                        //                        buf.append(var.getEndPC() -
-                                        // var.getStartPC());
-                                        buf.append(", slot=");
-                                        //                        buf.append(var.getOffset());
-                                        out.println(buf.toString());
-                                        var = varEnum.nextVar();
-                                      }
-                                  }
-                              }
-                          }
-                        catch (ClassCastException cce)
-                          {
-                          }
                       }
-                  } // if (code != null)
+                  }
+              } // if (code != null)
+          }
+        catch (ClassCastException cce)
+          {
+          }
+        method = method.getNext();
+      }
+  }
+
+  /**
+   * Prints a class as one line of JSON, for programs which compare or
+   * index classes.  It is written straight from the class summary, and
+   * the line number and local variable tables requested with -l are read
+   * with it, so that nothing needs to be decoded by gnu.bytecode.  Members
+   * are filtered as for text, and disassembly is not supported.
+   */
+  private void printJSON(String className, ChannelWriter out)
+    throws IOException
+  {
+    boolean debug = isPrintLineNumbers() || isPrintLocalVariables();
+    ClassSummary classSummary;
+    try
+      {
+        if (debug)
+          classSummary = ClassSummary.read(ClassSummary
+            .readBytes(findClass(className)), true);
+        else
+          classSummary = getClassSummary(className);
+      }
+    catch (Throwable t)
+      {
+        out.append("{\"class\":");
+        appendJSON(out, className);
+        out.append(",\"error\":\"could not be found\"}").newLine();
+        return;
+      }
+    out.append("{\"class\":");
+    appendJSON(out, classSummary.getName());
+    out.append(",\"flags\":").append(classSummary.getModifiers());
+    if (classSummary.getSuperclassName() != null)
+      {
+        out.append(",\"super\":");
+        appendJSON(out, classSummary.getSuperclassName());
+      }
+    out.append(",\"interfaces\":");
+    appendJSON(out, classSummary.getInterfaceNames());
+    if (classSummary.getSourceFile() != null)
+      {
+        out.append(",\"source\":");
+        appendJSON(out, classSummary.getSourceFile());
+      }
+    out.append(",\"fields\":[");
+    boolean first = true;
+    Iterator<ClassSummary.Member> members = classSummary.getFields().iterator();
+    while (members.hasNext())
+      {
+        ClassSummary.Member field = members.next();
+        if (!isShown(field.getModifiers()))
+          continue;
+        if (!first)
+          out.append(',');
+        first = false;
+        appendMember(out, field);
+        Object value = field.getConstantValue();
+        if (value != null)
+          {
+            out.append(",\"value\":");
+            if (value instanceof String)
+              appendJSON(out, (String) value);
+            else if ((value instanceof Float
+                      && (((Float) value).isNaN() || ((Float) value).isInfinite()))
+                     || (value instanceof Double
+                         && (((Double) value).isNaN() || ((Double) value).isInfinite())))
+              appendJSON(out, value.toString());
+            else
+              out.append(value.toString());
+          }
+        out.append('}');
+      }
+    out.append("],\"methods\":[");
+    first = true;
+    members = classSummary.getMethods().iterator();
+    while (members.hasNext())
+      {
+        ClassSummary.Member method = members.next();
+        if (!isShown(method.getModifiers()))
+          continue;
+        if (!first)
+          out.append(',');
+        first = false;
+        appendMember(out, method);
+        if (method.getExceptions() != null)
+          {
+            out.append(",\"exceptions\":");
+            appendJSON(out, method.getExceptions());
+          }
+        if (method.hasCode())
+          {
+            out.append(",\"maxStack\":").append(method.getMaxStack());
+            out.append(",\"maxLocals\":").append(method.getMaxLocals());
+          }
+        int[] lines = method.getLineNumbers();
+        if (isPrintLineNumbers() && lines != null)
+          {
+            out.append(",\"lines\":[");
+            for (int i = 0; i < lines.length; i++)
+              {
+                if (i > 0)
+                  out.append(',');
+                out.append(lines[i]);
               }
-            catch (ClassCastException cce)
+            out.append(']');
+          }
+        List<ClassSummary.LocalVariable> vars = method.getLocalVariables();
+        if (isPrintLocalVariables() && vars != null)
+          {
+            out.append(",\"variables\":[");
+            for (int i = 0; i < vars.size(); i++)
               {
+                ClassSummary.LocalVariable var = vars.get(i);
+                if (i > 0)
+                  out.append(',');
+                out.append("{\"name\":");
+                appendJSON(out, var.getName());
+                out.append(",\"descriptor\":");
+                appendJSON(out, var.getSignature());
+                out.append(",\"pc\":").append(var.getStartPC());
+                out.append(",\"length\":").append(var.getLength());
+                out.append(",\"slot\":").append(var.getSlot()).append('}');
               }
+            out.append(']');
           }
-        method = method.getNext();
+        out.append('}');
+      }
+    out.append("]}").newLine();
+  }
+
+  /**
+   * Appends the start of the JSON object for a member, without the closing
+   * brace.
+   */
+  private static void appendMember(ChannelWriter out,
+                                   ClassSummary.Member member)
+    throws IOException
+  {
+    out.append("{\"name\":");
+    appendJSON(out, member.getName());
+    out.append(",\"flags\":").append(member.getModifiers());
+    out.append(",\"descriptor\":");
+    appendJSON(out, member.getSignature());
+  }
+
+  private static void appendJSON(ChannelWriter out, String[] strings)
+    throws IOException
+  {
+    out.append('[');
+    for (int i = 0; i < strings.length; i++)
+      {
+        if (i > 0)
+          out.append(',');
+        appendJSON(out, strings[i]);
+      }
+    out.append(']');
+  }
+
+  /**
+   * Appends a JSON string.  Characters outside printable ASCII are escaped,
+   * so that the output does not depend on the default character set.
+   */
+  private static void appendJSON(ChannelWriter out, String s)
+    throws IOException
+  {
+    out.append('"');
+    int start = 0;
+    int length = s.length();
+    for (int i = 0; i < length; i++)
+      {
+        char c = s.charAt(i);
+        if (c >= ' ' && c < 127 && c != '"' && c != '\\')
+          continue;
+        out.append(s, start, i);
+        start = i + 1;
+        if (c == '"' || c == '\\')
+          out.append('\\').append(c);
+        else
+          out.append("\\u").append(HEX[c >> 12]).append(HEX[(c >> 8) & 15])
+            .append(HEX[(c >> 4) & 15]).append(HEX[c & 15]);
       }
+    out.append(s, start, length);
+    out.append('"');
   }
-}
\ No newline at end of file
+}
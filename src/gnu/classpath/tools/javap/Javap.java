@@ -19,9 +19,23 @@
  02111-1307 USA. */
 package gnu.classpath.tools.javap;
 
-import gnu.classpath.tools.Util;
+import gnu.classpath.tools.ChannelWriter;
+import gnu.classpath.tools.ClassPath;
+import gnu.classpath.tools.ClassSummary;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * 
@@ -31,6 +45,12 @@ public abstract class Javap
 {
   private static final String JAVAP_IMPL = "gnu.classpath.tools.javap";
 
+  /**
+   * Creates the provider named by the gnu.classpath.tools.javap system
+   * property, or the default one.  Its options may be changed with the
+   * setters below, and it searches its own path, which it closes when it is
+   * closed.
+   */
   public final static Javap getInstance() throws ClassNotFoundException
   {
     String impl = "gnu.classpath.tools.javap.GnuByteCodeJavap";
@@ -49,19 +69,59 @@ public abstract class Javap
       }
     throw new ClassNotFoundException("Unable to create instance of " + impl);
   }
-  private boolean disassemble = false;
-  private boolean output_verbose = false;
-  private boolean print_compiled_from = true;
-  private boolean print_line_numbers = false;
-  private boolean print_local_variables = false;
-  private boolean print_method_args = false;
-  private boolean print_number_locals = false;
-  private boolean print_signatures = false;
-  private boolean print_stacksize = false;
-  private boolean show_private = false;
-  private boolean show_protected = true;
-  private boolean show_public = true;
-  private Util util = new Util();
+
+  /**
+   * Creates a provider, as {@link #getInstance()} does, with the given
+   * options which finds classes on the given path.  Its options cannot be
+   * changed, so it may be used by several threads at once, and kept for
+   * every request which needs the same options.  Closing it leaves the
+   * path open for its other users.
+   * 
+   * @param options the options
+   * @param classpath the path to find classes on
+   * @return the provider
+   * @throws ClassNotFoundException if the provider cannot be created
+   */
+  public final static Javap getInstance(JavapOptions options,
+                                        ClassPath classpath)
+    throws ClassNotFoundException
+  {
+    Javap p = getInstance();
+    p.options = options;
+    p.classpath = classpath;
+    p.shared = true;
+    return p;
+  }
+
+  private volatile JavapOptions options = new JavapOptions.Builder().build();
+  private boolean shared;
+  private ClassPath classpath;
+  private String path;
+  private File cacheDirectory;
+  private File workingDirectory;
+
+  /**
+   * Prints a single class into a buffer, so that it can be formatted on a
+   * worker thread and written out later.
+   */
+  private class ClassPrinter implements Callable<byte[]>
+  {
+    private final String className;
+
+    ClassPrinter(String className)
+    {
+      this.className = className;
+    }
+
+    public byte[] call() throws IOException
+    {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ChannelWriter out = new ChannelWriter(bytes);
+      printClassFile(className, out);
+      out.flush();
+      return bytes.toByteArray();
+    }
+  }
 
   /**
    * Output for class names of the form foo$1 should not be made foo.1.
@@ -86,14 +146,99 @@ public abstract class Javap
     return s;
   }
 
+  /**
+   * Releases any archives opened while searching for classes.
+   */
+  public final synchronized void close()
+  {
+    if (!shared && classpath != null)
+      classpath.close();
+  }
+
+  /**
+   * @return the path on which classes are found
+   */
+  public final synchronized ClassPath getClassPath()
+  {
+    if (classpath == null)
+      classpath = new ClassPath(path, cacheDirectory, workingDirectory);
+    return classpath;
+  }
+
+  /**
+   * Changes a setting of the path of an instance which is not shared,
+   * which is reopened on next use.
+   */
+  private synchronized void resetClassPath()
+  {
+    if (shared)
+      throw new IllegalStateException("The path of a shared instance cannot be changed");
+    if (classpath != null)
+      classpath.close();
+    classpath = null;
+  }
+
+  /**
+   * @return the options of this instance
+   */
+  public final JavapOptions getOptions()
+  {
+    return options;
+  }
+
+  /**
+   * Starts changing the options of an instance which is not shared.
+   */
+  private JavapOptions.Builder editOptions()
+  {
+    if (shared)
+      throw new IllegalStateException("The options of a shared instance cannot be changed");
+    return new JavapOptions.Builder(options);
+  }
+
   protected InputStream findClass(String className) throws ClassNotFoundException
   {
-    return util.findClass(className);
+    return getClassPath().findClass(className);
+  }
+
+  /**
+   * @see gnu.classpath.tools.ClassPath#getClassSummary(String)
+   */
+  protected ClassSummary getClassSummary(String className)
+    throws ClassNotFoundException, IOException
+  {
+    return getClassPath().getClassSummary(className);
   }
 
   public final String getSearchPath()
   {
-    return util.getSearchPath();
+    return getClassPath().getSearchPath();
+  }
+
+  /**
+   * Lists the classes in a directory, archive or package.  An instance
+   * which is not shared then searches a directory or archive before its
+   * path, so that the classes listed can be found; the path of a shared
+   * instance is left as it was, and must already hold them.
+   * 
+   * @see gnu.classpath.tools.ClassPath#listClasses(String,List,List)
+   */
+  public final List<String> listClasses(String source, List<String> includes,
+                                        List<String> excludes)
+    throws IOException
+  {
+    ClassPath cp = getClassPath();
+    List<String> classes = cp.listClasses(source, includes, excludes);
+    if (source != null && cp.getFile(source).exists())
+      synchronized (this)
+        {
+          if (!shared && classpath == cp)
+            {
+              classpath = cp.prepend(source);
+              cp.close();
+            }
+        }
+    return classes;
   }
 
   /**
@@ -101,77 +246,203 @@ public abstract class Javap
    */
   public final boolean isDisassemble()
   {
-    return disassemble;
+    return options.isDisassemble();
+  }
+
+  /**
+   * @return true if each class is printed as one line of JSON
+   */
+  public final boolean isOutputJSON()
+  {
+    return options.isOutputJSON();
   }
 
   public final boolean isOutputVerbose()
   {
-    return output_verbose;
+    return options.isOutputVerbose();
   }
 
   public boolean isPrintCompiledFrom()
   {
-    return print_compiled_from;
+    return options.isPrintCompiledFrom();
   }
 
   public final boolean isPrintLineNumbers()
   {
-    return print_line_numbers;
+    return options.isPrintLineNumbers();
   }
 
   public final boolean isPrintLocalVariables()
   {
-    return print_local_variables;
+    return options.isPrintLocalVariables();
   }
 
   public final boolean isPrintMethodArgs()
   {
-    return print_method_args;
+    return options.isPrintMethodArgs();
   }
 
   public final boolean isPrintNumberLocals()
   {
-    return print_number_locals;
+    return options.isPrintNumberLocals();
   }
 
   public final boolean isPrintSignatures()
   {
-    return print_signatures;
+    return options.isPrintSignatures();
   }
 
   public final boolean isPrintStackSize()
   {
-    return print_stacksize;
+    return options.isPrintStackSize();
   }
 
   public final boolean isShowPrivate()
   {
-    return show_private;
+    return options.isShowPrivate();
   }
 
   public final boolean isShowProtected()
   {
-    return show_protected;
+    return options.isShowProtected();
   }
 
   public final boolean isShowPublic()
   {
-    return show_public;
+    return options.isShowPublic();
+  }
+
+  /**
+   * @return the number of threads used by {@link #printClassFiles}
+   */
+  public final int getThreads()
+  {
+    return options.getThreads();
   }
 
   /**
    * Providers will implement this method to appropriately print the given class
-   * to the provided output stream in javap format. This format depends upon the
+   * to the provided writer in javap format. This format depends upon the
    * command line options specified.
    * 
+   * Implementations must allow this method to be called from several
+   * threads at once when {@link #getThreads()} is greater than one.
+   * 
+   * @param className The name of the class that would be examined
+   * @param out The writer to write to
+   * @throws IOException if writing fails
+   */
+  public abstract void printClassFile(String className, ChannelWriter out)
+    throws IOException;
+
+  /**
+   * Prints the given class to the provided output stream in javap format.
+   * 
    * @param className The name of the class that would be examined
    * @param out The output stream to write to
    */
-  public abstract void printClassFile(String className, PrintStream out);
+  public void printClassFile(String className, PrintStream out)
+  {
+    List<String> classNames = new LinkedList<String>();
+    classNames.add(className);
+    printClassFiles(classNames, out);
+  }
+
+  /**
+   * Prints each of the given classes in turn.  If more than one thread has
+   * been requested, the classes are formatted concurrently into separate
+   * buffers, which are written to <code>out</code> in the order given.  At
+   * most a few classes per thread are buffered ahead of the output.
+   * 
+   * @param classNames The names of the classes to examine
+   * @param out The output stream to write to
+   */
+  public void printClassFiles(List<String> classNames, OutputStream out)
+  {
+    int threads = getThreads();
+    if (threads <= 1 || classNames.size() <= 1)
+      {
+        ChannelWriter writer = new ChannelWriter(out);
+        try
+          {
+            for (Iterator<String> i = classNames.iterator(); i.hasNext();)
+              printClassFile(i.next(), writer);
+            writer.flush();
+          }
+        catch (IOException ioe)
+          {
+            System.err.println("Error: " + ioe.getMessage());
+          }
+        return;
+      }
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try
+      {
+        LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+        Iterator<String> i = classNames.iterator();
+        while (i.hasNext() || !pending.isEmpty())
+          {
+            while (i.hasNext() && pending.size() < threads * 4)
+              pending.add(pool.submit(new ClassPrinter(i.next())));
+            byte[] result = pending.removeFirst().get();
+            out.write(result, 0, result.length);
+          }
+        out.flush();
+      }
+    catch (IOException ioe)
+      {
+        System.err.println("Error: " + ioe.getMessage());
+      }
+    catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    catch (ExecutionException e)
+      {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException)
+          throw (RuntimeException) cause;
+        if (cause instanceof Error)
+          throw (Error) cause;
+        throw new RuntimeException(cause);
+      }
+    finally
+      {
+        pool.shutdownNow();
+      }
+  }
+
+  /**
+   * @param dir the directory in which to cache class summaries, or
+   *          <code>null</code> for no cache
+   */
+  public final synchronized void setCacheDirectory(File dir)
+  {
+    resetClassPath();
+    cacheDirectory = dir;
+  }
+
+  public final synchronized void setClasspath(String path)
+  {
+    resetClassPath();
+    this.path = path;
+  }
+
+  /**
+   * @see gnu.classpath.tools.Util#setWorkingDirectory(File)
+   */
+  public final synchronized void setWorkingDirectory(File dir)
+  {
+    resetClassPath();
+    workingDirectory = dir;
+  }
 
-  public final void setClasspath(String path)
+  /**
+   * @see gnu.classpath.tools.ClassPath#getFile(String)
+   */
+  public final File getFile(String name)
   {
-    util.setClasspath(path);
+    return getClassPath().getFile(name);
   }
 
   /**
@@ -179,61 +450,78 @@ public abstract class Javap
    */
   public final void setDisassemble(boolean disassemble)
   {
-    this.disassemble = disassemble;
+    options = editOptions().setDisassemble(disassemble).build();
+  }
+
+  /**
+   * @param output_json true if each class should be printed as one line
+   *          of JSON rather than as text
+   */
+  public final void setOutputJSON(boolean output_json)
+  {
+    options = editOptions().setOutputJSON(output_json).build();
   }
 
   public final void setOutputVerbose(boolean output_verbose)
   {
-    this.output_verbose = output_verbose;
+    options = editOptions().setOutputVerbose(output_verbose).build();
   }
 
   public void setPrintCompiledFrom(boolean print_compiled_from)
   {
-    this.print_compiled_from = print_compiled_from;
+    options = editOptions().setPrintCompiledFrom(print_compiled_from).build();
   }
 
   public final void setPrintLineNumbers(boolean print_line_numbers)
   {
-    this.print_line_numbers = print_line_numbers;
+    options = editOptions().setPrintLineNumbers(print_line_numbers).build();
   }
 
   public final void setPrintLocalVariables(boolean print_local_variables)
   {
-    this.print_local_variables = print_local_variables;
+    options = editOptions().setPrintLocalVariables(print_local_variables).build();
   }
 
   public final void setPrintMethodArgs(boolean print_method_args)
   {
-    this.print_method_args = print_method_args;
+    options = editOptions().setPrintMethodArgs(print_method_args).build();
   }
 
   public final void setPrintNumberLocals(boolean print_number_locals)
   {
-    this.print_number_locals = print_number_locals;
+    options = editOptions().setPrintNumberLocals(print_number_locals).build();
   }
 
   public final void setPrintSignatures(boolean print_signatures)
   {
-    this.print_signatures = print_signatures;
+    options = editOptions().setPrintSignatures(print_signatures).build();
   }
 
   public final void setPrintStackSize(boolean print_stacksize)
   {
-    this.print_stacksize = print_stacksize;
+    options = editOptions().setPrintStackSize(print_stacksize).build();
   }
 
   public final void setShowPrivate(boolean show_private)
   {
-    this.show_private = show_private;
+    options = editOptions().setShowPrivate(show_private).build();
   }
 
   public final void setShowProtected(boolean show_protected)
   {
-    this.show_protected = show_protected;
+    options = editOptions().setShowProtected(show_protected).build();
   }
 
   public final void setShowPublic(boolean show_public)
   {
-    this.show_public = show_public;
+    options = editOptions().setShowPublic(show_public).build();
+  }
+
+  /**
+   * @param threads The number of threads to format classes with.
+   */
+  public final void setThreads(int threads)
+  {
+    options = editOptions().setThreads(threads).build();
   }
 }
\ No newline at end of file
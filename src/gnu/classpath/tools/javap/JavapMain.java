@@ -19,18 +19,30 @@
  */
 package gnu.classpath.tools.javap;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 public class JavapMain
 {
   public static void main(String argv[])
   {
-    Javap p = parseArguments(argv);
+    run(argv, null);
     System.exit(0);
   }
 
   /**
-   * Parses the arguments to determine what this program should do.
+   * Runs javap with the given arguments.  Unlike {@link #main(String[])}
+   * this never exits the VM, so that a long-running process may call it
+   * for many requests, and from several threads at once.
+   * 
+   * @param argv the command line arguments
+   * @param dir the directory against which relative file names are
+   *          resolved, or <code>null</code> for the current directory
    */
-  private static Javap parseArguments(String s[])
+  public static void run(String argv[], File dir)
   {
     Javap p = null;
     try
@@ -40,20 +52,54 @@ public class JavapMain
     catch (ClassNotFoundException e)
       {
         System.err.println(e.getMessage());
-        return null;
+        return;
+      }
+    p.setWorkingDirectory(dir);
+    try
+      {
+        parseArguments(p, argv);
       }
+    finally
+      {
+        p.close();
+      }
+  }
+
+  /**
+   * Parses the arguments to determine what this program should do.
+   */
+  private static void parseArguments(Javap p, String s[])
+  {
     if (s.length == 0)
-      usage();
-    boolean processArguments = true;
+      {
+        usage();
+        return;
+      }
+    List<String> sources = new ArrayList<String>();
+    List<String> includes = new ArrayList<String>();
+    List<String> excludes = new ArrayList<String>();
     int i = 0;
-    while (processArguments)
+    while (i < s.length)
       {
-        if (s[i].equals("-c"))
+        if (s[i].equals("-batch"))
+          sources.add(s[++i]);
+        else if (s[i].equals("-c"))
           p.setDisassemble(true);
+        else if (s[i].equals("-cache"))
+          p.setCacheDirectory(p.getFile(s[++i]));
         else if (s[i].equals("-classpath"))
           p.setClasspath(s[++i]);
+        else if (s[i].equals("-exclude"))
+          excludes.add(s[++i]);
         else if (s[i].equals("-help"))
-          usage();
+          {
+            usage();
+            return;
+          }
+        else if (s[i].equals("-include"))
+          includes.add(s[++i]);
+        else if (s[i].equals("-json"))
+          p.setOutputJSON(true);
         else if (s[i].equals("-l"))
           {
             p.setPrintLineNumbers(true);
@@ -67,6 +113,19 @@ public class JavapMain
           p.setShowPrivate(true);
         else if (s[i].equals("-s"))
           p.setPrintSignatures(true);
+        else if (s[i].equals("-threads"))
+          {
+            try
+              {
+                p.setThreads(Integer.parseInt(s[++i]));
+              }
+            catch (NumberFormatException e)
+              {
+                System.err.println("Invalid thread count: " + s[i]);
+                usage();
+                return;
+              }
+          }
         else if (s[i].equals("-verbose"))
           {
             p.setPrintStackSize(true);
@@ -77,16 +136,35 @@ public class JavapMain
           {
             System.err.println("Invalid flag: " + s[i]);
             usage();
+            return;
           }
         else
           break;
         i++;
       }
-    if (s.length - i == 0)
-      usage();
+    if (s.length - i == 0 && sources.isEmpty())
+      {
+        usage();
+        return;
+      }
+    List<String> classes = new ArrayList<String>();
     for (int j = i; j < s.length; j++)
-      p.printClassFile(s[j], System.out);
-    return p;
+      classes.add(s[j]);
+    p.printClassFiles(classes, System.out);
+    for (Iterator<String> j = sources.iterator(); j.hasNext();)
+      {
+        String source = j.next();
+        try
+          {
+            classes = p.listClasses(source, includes, excludes);
+          }
+        catch (IOException ioe)
+          {
+            System.err.println("Error: " + source + ": " + ioe.getMessage());
+            continue;
+          }
+        p.printClassFiles(classes, System.out);
+      }
   }
 
   /**
@@ -97,10 +175,20 @@ public class JavapMain
     System.out.println("Usage: javap [OPTION]... [CLASS]...");
     System.out.println("Provide information about the given classes.");
     System.out.println("");
+    System.out
+      .println("   -batch SOURCE             Process every class in a jar, directory or package");
     System.out.println("   -c                        Disassemble the code");
+    System.out
+      .println("   -cache DIR                Cache class summaries in DIR between runs");
     System.out
       .println("   -classpath PATH           Specify where to find user class files");
+    System.out
+      .println("   -exclude GLOB             Skip batch classes matching GLOB");
     System.out.println("   -help                     Print this usage message");
+    System.out
+      .println("   -include GLOB             Only process batch classes matching GLOB");
+    System.out
+      .println("   -json                     Print each class as a line of JSON");
     System.out
       .println("   -l                        Print line number and local variable tables");
     System.out
@@ -111,8 +199,9 @@ public class JavapMain
       .println("   -private                  Show all classes and members");
     System.out
       .println("   -s                        Print internal type signatures");
+    System.out
+      .println("   -threads N                Format classes on N threads");
     System.out
       .println("   -verbose                  Print stack size, number of locals and args for methods");
-    System.exit(0);
   }
 }
\ No newline at end of file
@@ -0,0 +1,293 @@
+/* gnu.classpath.tools.javap.JavapOptions
+ Copyright (C) 2026 Free Software Foundation, Inc.
+
+ This file is part of GNU Classpath.
+
+ GNU Classpath is free software; you can redistribute it and/or modify
+ it under the terms of the GNU General Public License as published by
+ the Free Software Foundation; either version 2, or (at your option)
+ any later version.
+
+ GNU Classpath is distributed in the hope that it will be useful, but
+ WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with GNU Classpath; see the file COPYING.  If not, write to the
+ Free Software Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA
+ 02111-1307 USA. */
+package gnu.classpath.tools.javap;
+
+/**
+ * The options of a {@link Javap}, which cannot be changed once built, so
+ * that they may be shared between threads.  The defaults are those of
+ * the javap command:
+ * 
+ * <pre>
+ * JavapOptions options = new JavapOptions.Builder().setDisassemble(true)
+ *   .setShowPrivate(true).build();
+ * </pre>
+ */
+public final class JavapOptions
+{
+  private final boolean disassemble;
+  private final boolean output_json;
+  private final boolean output_verbose;
+  private final boolean print_compiled_from;
+  private final boolean print_line_numbers;
+  private final boolean print_local_variables;
+  private final boolean print_method_args;
+  private final boolean print_number_locals;
+  private final boolean print_signatures;
+  private final boolean print_stacksize;
+  private final boolean show_private;
+  private final boolean show_protected;
+  private final boolean show_public;
+  private final int threads;
+
+  /**
+   * Collects the options for a {@link JavapOptions}.
+   */
+  public static final class Builder
+  {
+    private boolean disassemble = false;
+    private boolean output_json = false;
+    private boolean output_verbose = false;
+    private boolean print_compiled_from = true;
+    private boolean print_line_numbers = false;
+    private boolean print_local_variables = false;
+    private boolean print_method_args = false;
+    private boolean print_number_locals = false;
+    private boolean print_signatures = false;
+    private boolean print_stacksize = false;
+    private boolean show_private = false;
+    private boolean show_protected = true;
+    private boolean show_public = true;
+    private int threads = 1;
+
+    /**
+     * Starts with the default options.
+     */
+    public Builder()
+    {
+    }
+
+    /**
+     * Starts with the given options.
+     */
+    public Builder(JavapOptions options)
+    {
+      disassemble = options.disassemble;
+      output_json = options.output_json;
+      output_verbose = options.output_verbose;
+      print_compiled_from = options.print_compiled_from;
+      print_line_numbers = options.print_line_numbers;
+      print_local_variables = options.print_local_variables;
+      print_method_args = options.print_method_args;
+      print_number_locals = options.print_number_locals;
+      print_signatures = options.print_signatures;
+      print_stacksize = options.print_stacksize;
+      show_private = options.show_private;
+      show_protected = options.show_protected;
+      show_public = options.show_public;
+      threads = options.threads;
+    }
+
+    public JavapOptions build()
+    {
+      return new JavapOptions(this);
+    }
+
+    /**
+     * @param disassemble The value is true if bytecode should be shown.
+     */
+    public Builder setDisassemble(boolean disassemble)
+    {
+      this.disassemble = disassemble;
+      return this;
+    }
+
+    /**
+     * @param output_json true if each class should be printed as one line
+     *          of JSON rather than as text
+     */
+    public Builder setOutputJSON(boolean output_json)
+    {
+      this.output_json = output_json;
+      return this;
+    }
+
+    public Builder setOutputVerbose(boolean output_verbose)
+    {
+      this.output_verbose = output_verbose;
+      return this;
+    }
+
+    public Builder setPrintCompiledFrom(boolean print_compiled_from)
+    {
+      this.print_compiled_from = print_compiled_from;
+      return this;
+    }
+
+    public Builder setPrintLineNumbers(boolean print_line_numbers)
+    {
+      this.print_line_numbers = print_line_numbers;
+      return this;
+    }
+
+    public Builder setPrintLocalVariables(boolean print_local_variables)
+    {
+      this.print_local_variables = print_local_variables;
+      return this;
+    }
+
+    public Builder setPrintMethodArgs(boolean print_method_args)
+    {
+      this.print_method_args = print_method_args;
+      return this;
+    }
+
+    public Builder setPrintNumberLocals(boolean print_number_locals)
+    {
+      this.print_number_locals = print_number_locals;
+      return this;
+    }
+
+    public Builder setPrintSignatures(boolean print_signatures)
+    {
+      this.print_signatures = print_signatures;
+      return this;
+    }
+
+    public Builder setPrintStackSize(boolean print_stacksize)
+    {
+      this.print_stacksize = print_stacksize;
+      return this;
+    }
+
+    public Builder setShowPrivate(boolean show_private)
+    {
+      this.show_private = show_private;
+      return this;
+    }
+
+    public Builder setShowProtected(boolean show_protected)
+    {
+      this.show_protected = show_protected;
+      return this;
+    }
+
+    public Builder setShowPublic(boolean show_public)
+    {
+      this.show_public = show_public;
+      return this;
+    }
+
+    /**
+     * @param threads The number of threads to format classes with.
+     */
+    public Builder setThreads(int threads)
+    {
+      this.threads = threads;
+      return this;
+    }
+  }
+
+  private JavapOptions(Builder b)
+  {
+    disassemble = b.disassemble;
+    output_json = b.output_json;
+    output_verbose = b.output_verbose;
+    print_compiled_from = b.print_compiled_from;
+    print_line_numbers = b.print_line_numbers;
+    print_local_variables = b.print_local_variables;
+    print_method_args = b.print_method_args;
+    print_number_locals = b.print_number_locals;
+    print_signatures = b.print_signatures;
+    print_stacksize = b.print_stacksize;
+    show_private = b.show_private;
+    show_protected = b.show_protected;
+    show_public = b.show_public;
+    threads = b.threads;
+  }
+
+  /**
+   * @return Returns true if bytecode should be shown.
+   */
+  public boolean isDisassemble()
+  {
+    return disassemble;
+  }
+
+  /**
+   * @return true if each class is printed as one line of JSON
+   */
+  public boolean isOutputJSON()
+  {
+    return output_json;
+  }
+
+  public boolean isOutputVerbose()
+  {
+    return output_verbose;
+  }
+
+  public boolean isPrintCompiledFrom()
+  {
+    return print_compiled_from;
+  }
+
+  public boolean isPrintLineNumbers()
+  {
+    return print_line_numbers;
+  }
+
+  public boolean isPrintLocalVariables()
+  {
+    return print_local_variables;
+  }
+
+  public boolean isPrintMethodArgs()
+  {
+    return print_method_args;
+  }
+
+  public boolean isPrintNumberLocals()
+  {
+    return print_number_locals;
+  }
+
+  public boolean isPrintSignatures()
+  {
+    return print_signatures;
+  }
+
+  public boolean isPrintStackSize()
+  {
+    return print_stacksize;
+  }
+
+  public boolean isShowPrivate()
+  {
+    return show_private;
+  }
+
+  public boolean isShowProtected()
+  {
+    return show_protected;
+  }
+
+  public boolean isShowPublic()
+  {
+    return show_public;
+  }
+
+  /**
+   * @return the number of threads used to format classes
+   */
+  public int getThreads()
+  {
+    return threads;
+  }
+}
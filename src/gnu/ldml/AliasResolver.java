@@ -0,0 +1,194 @@
+/*
+ * gnu.ldml.AliasResolver
+ * Copyright (C) 2026 Free Software Foundation, Inc.
+ *
+ * This file is part of GNU Classpath.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2, or (at your option) any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * GNU Classpath; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gnu.ldml;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves alias elements to the elements they stand for.  The documents
+ * aliases refer to are taken from a {@link DocumentCache}, and each
+ * alias into a document of the cache is remembered by the document, list
+ * and element it names, so that the aliases of the locales which refer to
+ * it are looked up once.  A resolver may be shared by any
+ * number of threads.
+ */
+public final class AliasResolver
+{
+  /** Remembered for an alias which names nothing. */
+  private static final Object NONE = new Object();
+
+  private final DocumentCache documents;
+  private final ConcurrentHashMap<String,Object> resolved =
+    new ConcurrentHashMap<String,Object>();
+
+  /**
+   * Creates a resolver reading the documents aliases refer to from a
+   * cache.
+   *
+   * @param documents the documents.
+   */
+  public AliasResolver(DocumentCache documents)
+  {
+    this.documents = documents;
+  }
+
+  /**
+   * Returns the element an alias stands for.  If that element is itself
+   * an alias, it is followed in turn.
+   *
+   * @param alias the alias.
+   * @return the element, or {@code null} if the document or the list
+   *         the alias names cannot be found.
+   * @throws IOException if a document cannot be read.
+   * @throws ParseException if the alias is malformed, names an unknown
+   *         element or is part of a cycle.
+   */
+  public Element resolve(AliasElement alias)
+    throws IOException, ParseException
+  {
+    return resolve(alias, new HashSet<String>());
+  }
+
+  private Element resolve(AliasElement alias, Set<String> active)
+    throws IOException, ParseException
+  {
+    Parser target;
+    if ("locale".equals(alias.aliasing))
+      target = alias.parentParser;
+    else
+      target = documents.find(alias.aliasing);
+    if (target == null)
+      return null;
+
+    Element e = alias.superElement;
+    while (e != Element.ROOT && !(e instanceof ListDataElement))
+      e = e.superElement;
+    if (e == Element.ROOT)
+      throw new ParseException("Incorrect aliasing element " + alias
+                               + " in " + alias.parentParser.getName());
+    ListDataElement source = (ListDataElement) e;
+
+    String key = target.getName() + '\0' + locator(source) + '\0'
+      + alias.replacingElement;
+    // Only the elements of shared documents are remembered; an alias
+    // within a document of its own is found there again on each call.
+    boolean shared = documents.holds(target);
+    if (shared)
+      {
+        Object cached = resolved.get(key);
+        if (cached != null)
+          return cached == NONE ? null : (Element) cached;
+      }
+
+    if (!active.add(key))
+      throw new ParseException("Aliasing cycle through "
+                               + alias.replacingElement + " in "
+                               + target.getName());
+    try
+      {
+        Element list = locate(source, target);
+        Element result = null;
+        if (list != null)
+          {
+            if (!(list instanceof ListDataElement))
+              throw new ParseException("Incorrect aliasing element "
+                                       + list.getFullName() + " in "
+                                       + alias.parentParser.getName()
+                                       + " while looking in "
+                                       + target.getName());
+            result = ((ListDataElement) list).getElement(alias.replacingElement);
+            if (result == null)
+              throw new ParseException("Unknown aliasing element "
+                                       + alias.replacingElement + " in "
+                                       + target.getName());
+            AliasElement next = getAlias(result);
+            if (next != null)
+              result = resolve(next, active);
+          }
+        if (shared)
+          resolved.put(key, result == null ? NONE : result);
+        return result;
+      }
+    finally
+      {
+        active.remove(key);
+      }
+  }
+
+  /**
+   * Returns the element of another document at the same place as a list,
+   * or {@code null} if it has none.  Lists under a detailed list element,
+   * such as the eras of one calendar, are looked up under the detailed
+   * list element of the same type.
+   */
+  private static Element locate(ListDataElement list, Parser target)
+  {
+    Element top = list;
+    while (!top.isPathRoot())
+      top = top.superElement;
+    PathIndex index;
+    if (top instanceof DetailedListElement)
+      {
+        Element parent = locate((ListDataElement) top.superElement, target);
+        if (!(parent instanceof ListDataElement))
+          return null;
+        String type = ((DetailedListElement) top).getTypeName();
+        Element detail = ((ListDataElement) parent).getElement(type);
+        if (detail == null)
+          return null;
+        index = detail.getIndex();
+      }
+    else
+      index = target.rootElement.getIndex();
+    return index.getSingle(list.getPath().symbol);
+  }
+
+  /**
+   * Returns a string naming the place of a list in any document, as
+   * calendars[gregorian]/calendar.months.
+   */
+  private static String locator(ListDataElement list)
+  {
+    Element top = list;
+    while (!top.isPathRoot())
+      top = top.superElement;
+    if (top instanceof DetailedListElement)
+      return locator((ListDataElement) top.superElement) + "["
+        + ((DetailedListElement) top).getTypeName() + "]/"
+        + list.getFullName();
+    return list.getFullName();
+  }
+
+  /**
+   * Returns the alias among the children of an element, or {@code null}.
+   */
+  static AliasElement getAlias(Element e)
+  {
+    List<Element> children = e.children;
+    for (int i = 0; i < children.size(); i++)
+      if (children.get(i) instanceof AliasElement)
+        return (AliasElement) children.get(i);
+    return null;
+  }
+}
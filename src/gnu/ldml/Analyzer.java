@@ -24,52 +24,50 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.net.URL;
+import java.io.ByteArrayInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
+import org.xml.sax.InputSource;
 import org.xml.sax.XMLReader;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
 
 public class Analyzer
 {
 
+  /**
+   * Indexes the elements of a branch by full name.  The branch is walked
+   * breadth first, so that each element finds the full name of its parent
+   * already computed, and the elements of a name are listed in document
+   * order.
+   */
   static Map<String,List<Element>> flattenBranch(Element e)
   {
     Map<String,List<Element>> table = new HashMap<String,List<Element>>();
-    List<Element> stack = new ArrayList<Element>();
-    int stackSize;
-    stack.add(e);
-    while (stack.size() != 0)
+    LinkedList<Element> queue = new LinkedList<Element>();
+    queue.add(e);
+    while (!queue.isEmpty())
       {
-        stackSize = stack.size();
-        for (int i = 0; i < stackSize; i++)
+        Element elt = queue.removeFirst();
+        if (elt == null)
+          continue;
+        queue.addAll(elt.children);
+        String fullName = elt.getFullName();
+        List<Element> elms = table.get(fullName);
+        if (elms == null)
           {
-            Element elt = stack.get(i);
-            if (elt != null)
-              {
-                if (elt.children.size() != 0)
-                  {
-                    stack.addAll(elt.children);
-                  }
-                String fullName = elt.getFullName();
-                List<Element> elms = table.get(fullName);
-                if (elms == null)
-                  {
-                    elms = new ArrayList<Element>();
-                    table.put(elt.getFullName(), elms);
-                  }
-                boolean added = elms.add(elt);
-                if (!added)
-                  throw new Error("Couldn't add " + elt);
-              }
+            elms = new ArrayList<Element>(1);
+            table.put(fullName, elms);
           }
-        stack.subList(0, stackSize).clear();
+        elms.add(elt);
       }
     return table;
   }
@@ -92,58 +90,95 @@ public class Analyzer
     return elms.get(0);
   }
 
+  private static final int IDENTITY_LANGUAGE =
+    PathIndex.compile("ldml.identity.language");
+  private static final int IDENTITY_TERRITORY =
+    PathIndex.compile("ldml.identity.territory");
+  private static final int IDENTITY_VARIANT =
+    PathIndex.compile("ldml.identity.variant");
+  private static final int IDENTITY_SCRIPT =
+    PathIndex.compile("ldml.identity.script");
+  private static final int COLLATIONS = PathIndex.compile("ldml.collations");
+
+  /**
+   * The factory of the XML readers, looked up once since the lookup goes
+   * through system properties and service files.
+   */
+  private static SAXParserFactory factory;
+
+  /**
+   * An XML reader for each thread, reused for every file it parses.
+   */
+  private static final ThreadLocal<XMLReader> readers = new ThreadLocal<XMLReader>();
+
+  /**
+   * Set on an idle reader, so that it does not keep the last document.
+   */
+  private static final DefaultHandler NO_HANDLER = new DefaultHandler();
+
   private boolean is_collation;
   private Collection<String> locales;
   private Parser mainParser;
-  private Hashtable<String,Parser> parserTable = new Hashtable<String,Parser>();
+  private PathIndex index;
+  private AliasResolver aliases;
   private Map<String,List<Element>> treeFlattened;
 
   public Analyzer(URL mainFile) throws IOException, ParseException
   {
     addResourceFile(mainFile);
-    // Don't bother with aliasing until not completely broken
-    //resolveDependencies();
   }
 
-  private Parser addResourceFile(URL resourceFile) throws IOException,
+  /**
+   * Analyzes a document already parsed, such as one held by a
+   * {@link DocumentCache}.  The document is only read, so it may be
+   * shared.
+   *
+   * @param document the parser holding the document.
+   * @throws ParseException if the document has no identity.
+   */
+  public Analyzer(Parser document) throws ParseException
+  {
+    mainParser = document;
+    readIdentity();
+  }
+
+  /**
+   * Parses a file into a document, named after the file.
+   *
+   * @param resourceFile the file, ending with .xml.
+   * @return the parser holding the document.
+   */
+  static Parser parse(URL resourceFile) throws IOException, ParseException
+  {
+    return parse(resourceFile, null);
+  }
+
+  /**
+   * Parses a file whose contents have already been read.
+   *
+   * @param resourceFile the file, ending with .xml.
+   * @param content the contents of the file, or {@code null} to read it.
+   * @return the parser holding the document.
+   */
+  static Parser parse(URL resourceFile, byte[] content) throws IOException,
     ParseException
   {
-    Parser parser = new Parser();
-    XMLReader reader;
+    Parser parser = newParser(resourceFile);
+    XMLReader reader = getReader(resourceFile);
+    boolean reusable = false;
     try
       {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(true); // because we use localName
-        SAXParser saxParser = factory.newSAXParser();
-        reader = saxParser.getXMLReader();
-      }
-    catch (ParserConfigurationException e)
-      {
-        IOException e2 = new IOException("Error creating the SAX parser for "
-                                         + resourceFile);
-        e2.initCause(e);
-        throw e2;
-      }
-    catch (SAXException e)
-      {
-        IOException e2 = new IOException("Error creating the XML reader for "
-                                         + resourceFile);
-        e2.initCause(e);
-        throw e2;
+        if (content == null)
+          parser.parse(reader);
+        else
+          parser.parse(reader, new InputSource(new ByteArrayInputStream(content)));
+        reusable = true;
       }
-    if (mainParser == null)
-      mainParser = parser;
-    parser.setURL(resourceFile);
-    String fileName = resourceFile.getFile();
-    int idx, idx2;
-    if ((idx = fileName.lastIndexOf(".xml")) < 0)
-      throw new Error("file does not end with .xml");
-    if ((idx2 = fileName.lastIndexOf("/")) < 0)
-      idx2 = -1;
-    parser.setName(fileName.substring(idx2 + 1, idx));
-    try
+    catch (FileNotFoundException e)
       {
-        parser.parse(reader);
+        // The file could not be opened, so the reader was not used.
+        reusable = true;
+        throw e;
       }
     catch (SAXException e)
       {
@@ -152,29 +187,53 @@ public class Analyzer
         e2.initCause(e);
         throw e2;
       }
-    Map<String,List<Element>> table = flattenTree();
+    finally
+      {
+        // A reader which failed may be left in any state, so it is dropped.
+        if (reusable)
+          reader.setContentHandler(NO_HANDLER);
+        else
+          readers.remove();
+      }
+    return parser;
+  }
+
+  private void addResourceFile(URL resourceFile) throws IOException,
+    ParseException
+  {
+    mainParser = parse(resourceFile);
+    readIdentity();
+  }
+
+  /**
+   * Reads the locale, and whether this is a collation, from the identity
+   * of the main file.
+   */
+  private void readIdentity() throws ParseException
+  {
+    PathIndex table = mainParser.rootElement.getIndex();
     locales = new HashSet<String>();
-    Element elt = getSingleElement(table.get("ldml.identity.language"));
+    Element elt = table.getSingle(IDENTITY_LANGUAGE);
     String mainIdentity;
     if (elt == null)
       throw new ParseException(
                                "No identity.language tag in XML. Cannot identify the resource file.");
     mainIdentity = elt.defaultType.intern();
-    elt = getSingleElement(table.get("ldml.identity.territory"));
+    elt = table.getSingle(IDENTITY_TERRITORY);
     if (elt != null)
       {
         mainIdentity += "_" + elt.defaultType;
-        elt = getSingleElement(table.get("ldml.identity.variant"));
+        elt = table.getSingle(IDENTITY_VARIANT);
         if (elt != null)
           mainIdentity += "_" + elt.defaultType;
       }
-    elt = getSingleElement(table.get("ldml.identity.script"));
+    elt = table.getSingle(IDENTITY_SCRIPT);
     if (elt != null)
       mainIdentity += "_" + elt.defaultType;
     locales.add(mainIdentity);
     // Process ldml/collations@validSublocales
     ListDataElement collations = (ListDataElement)
-      getSingleElement(table.get("ldml.collations"));
+      table.getSingle(COLLATIONS);
     if (collations != null)
       {
         /*
@@ -190,130 +249,86 @@ public class Analyzer
         */
         is_collation = true;
       }
-    for (Iterator<String> i = locales.iterator(); i.hasNext();)
-      {
-        String locale = i.next();
-        parserTable.put(locale, parser);
-      }
-    return parser;
   }
 
-  private void buildAliasList(List<AliasElement> alist, Parser p)
+  /**
+   * Creates a parser for a file, named after the file as en_GB for
+   * en_GB.xml, without parsing it.
+   */
+  static Parser newParser(URL resourceFile)
   {
-    if (p.getParentElement() == null)
-      return;
-    ArrayList<Element> stack = new ArrayList<Element>();
-    stack.add(p.getParentElement());
-    while (stack.size() != 0)
-      {
-        int sz = stack.size();
-        for (int i = 0; i < sz; i++)
-          {
-            Element e = stack.get(i);
-            if (e instanceof AliasElement)
-              alist.add((AliasElement) e);
-            else
-              stack.addAll(e.children);
-          }
-        stack.subList(0, sz).clear();
-      }
+    Parser parser = new Parser();
+    parser.setURL(resourceFile);
+    String fileName = resourceFile.getFile();
+    int idx, idx2;
+    if ((idx = fileName.lastIndexOf(".xml")) < 0)
+      throw new Error("file does not end with .xml");
+    if ((idx2 = fileName.lastIndexOf("/")) < 0)
+      idx2 = -1;
+    parser.setName(fileName.substring(idx2 + 1, idx));
+    return parser;
   }
 
-  private Element fetchResource(AliasElement alias) throws IOException,
-    ParseException
+  /**
+   * Returns the XML reader of the current thread, creating it on first use.
+   */
+  private static XMLReader getReader(URL resourceFile) throws IOException
   {
-    Parser p = null;
-    String resName = alias.aliasing;
-    String replacement = alias.replacingElement;
-    if (resName.equals("locale"))
-      {
-        // Special value, referring to the current locale
-        p = alias.parentParser;
-      }
-    else
+    XMLReader reader = readers.get();
+    if (reader != null)
+      return reader;
+    try
       {
-        /*
-         * First, we look for the resource file. The names are of the XXX_YYY
-         * (recursively on XXX). If we fail on this file and there is no parse
-         * exceptions, then we try XXX.
-         */
-        do
+        // SAXParserFactory is not required to be thread safe.
+        synchronized (Analyzer.class)
           {
-            p = parserTable.get(resName);
-            if (p == null)
+            if (factory == null)
               {
-                try
-                  {
-                    p = addResourceFile(new URL(alias.parentParser.getURL(),
-                                                resName + ".xml"));
-                  }
-                catch (ParseException e)
-                  {
-                    throw e;
-                  }
-                catch (FileNotFoundException e)
-                  {
-                    // Ignored; proceed to next file.
-                  }
-                catch (IOException e)
-                  {
-                    throw e;
-                  }
-                if (p == null)
-                  {
-                    // Alter resName to try again
-                    int idx = resName.lastIndexOf('_');
-                    if (idx < 0)
-                      idx = 0;
-                    resName = resName.substring(0, idx);
-                  }
+                factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true); // because we use localName
               }
-          } while (p == null && resName.length() != 0);
+            SAXParser saxParser = factory.newSAXParser();
+            reader = saxParser.getXMLReader();
+          }
       }
-    if (p == null)
+    catch (ParserConfigurationException e)
       {
-        System.err.println("Could not resolve aliasing element: " + alias);
-        return null;
+        IOException e2 = new IOException("Error creating the SAX parser for "
+                                         + resourceFile);
+        e2.initCause(e);
+        throw e2;
       }
-    /*
-     * Now we have parsed the good resource file. We must go in the tree and
-     * find the right element specified by the position and the argument of
-     * AliasElement.
-     */
-    Map<String,List<Element>> table = flattenBranch(p.rootElement);
-    String elementName = alias.superElement.getFullName();
-    while (elementName.length() != 0)
+    catch (SAXException e)
       {
-        Element e = getSingleElement(table.get(elementName));
-        if (e == null)
-          {
-            int idx = elementName.lastIndexOf('.');
-            if (idx < 0)
-              elementName = "";
-            else
-              elementName = elementName.substring(0, idx);
-            continue;
-          }
-        /* We have found a candidate. Check if it is a list */
-        if (!(e instanceof ListDataElement))
-          {
-            System.err.println("Incorrect aliasing element " + e.getFullName() + " in "
-                               + alias.parentParser.getName()
-                               + " while looking in " + p.getName());
-            return null;
-          }
-        /* It is a list element, look for the right sub-tree */
-        ListDataElement lst = (ListDataElement) e;
-        e = lst.getElement(replacement);
-        System.err.println("lst: " + lst);
-        if (e == null)
-          throw new ParseException("Unknown aliasing element " + replacement
-                                   + " in " + p.getName());
-        return e;
+        IOException e2 = new IOException("Error creating the XML reader for "
+                                         + resourceFile);
+        e2.initCause(e);
+        throw e2;
+      }
+    readers.set(reader);
+    return reader;
+  }
+
+  private void buildAliasList(List<AliasElement> alist, Parser p)
+  {
+    if (p.rootElement == null)
+      return;
+    LinkedList<Element> queue = new LinkedList<Element>();
+    queue.add(p.rootElement);
+    while (!queue.isEmpty())
+      {
+        Element e = queue.removeFirst();
+        if (e instanceof AliasElement)
+          alist.add((AliasElement) e);
+        else
+          queue.addAll(e.children);
       }
-    return null;
   }
 
+  /**
+   * Returns the elements of the main file by path.  {@link #getIndex()}
+   * holds the same elements and is cheaper to query.
+   */
   public Map<String,List<Element>> flattenTree()
   {
     if (treeFlattened != null)
@@ -322,6 +337,82 @@ public class Analyzer
     return treeFlattened;
   }
 
+  /**
+   * Returns the index of the main file by path, built once and shared by
+   * every caller.  Once {@link #inherit(DocumentCache)} has been called,
+   * paths the main file lacks are looked up in its parent locales.
+   */
+  public PathIndex getIndex()
+  {
+    PathIndex i = index;
+    if (i == null)
+      i = mainParser.rootElement.getIndex();
+    return i;
+  }
+
+  /**
+   * Makes the main file inherit from its parent locales, as en_GB from en
+   * and en from root, taken from a cache so that each parent is parsed
+   * once however many locales inherit from it.  Nothing is copied: the
+   * index of this file falls through to the shared index of its parent.
+   *
+   * @param parents the documents of the parent locales.
+   * @throws IOException if the file of a parent cannot be read.
+   * @throws ParseException if the file of a parent is not valid LDML.
+   */
+  public void inherit(DocumentCache parents) throws IOException,
+    ParseException
+  {
+    String parent = DocumentCache.getParent(mainParser.getName());
+    PathIndex own = mainParser.rootElement.getIndex();
+    index = own.inherit(parent == null ? null : parents.getIndex(parent));
+  }
+
+  /**
+   * Makes {@link #getLeafIndex(PathIndex,ListDataElement,String)} follow
+   * aliases, with a resolver reading the documents next to the main file.
+   *
+   * @param aliases the resolver, or {@code null} to leave aliases as
+   *        they are.
+   */
+  public void setAliasResolver(AliasResolver aliases)
+  {
+    this.aliases = aliases;
+  }
+
+  /**
+   * Returns the index of an entry of a list looked up in an index of the
+   * main file, as by {@link PathIndex#getLeafIndex(ListDataElement,String)}.
+   * If the entry holds an alias, as a calendar may stand for another, and
+   * a resolver has been set, the index of the entry the alias names is
+   * returned instead.
+   *
+   * @param tree the index the list was found in.
+   * @param list the list.
+   * @param type the type of the entry.
+   * @return the index of the entry, or {@code null} if there is none or
+   *         the alias names a document or list which cannot be found.
+   * @throws IOException if the document an alias names cannot be read.
+   * @throws ParseException if an alias cannot be resolved.
+   */
+  public PathIndex getLeafIndex(PathIndex tree, ListDataElement list,
+                                String type)
+    throws IOException, ParseException
+  {
+    if (aliases != null)
+      {
+        Element entry = list.getElement(type);
+        AliasElement alias = entry == null ? null
+          : AliasResolver.getAlias(entry);
+        if (alias != null)
+          {
+            Element target = aliases.resolve(alias);
+            return target == null ? null : target.getIndex();
+          }
+      }
+    return tree.getLeafIndex(list, type);
+  }
+
   public Collection<String> getLocales()
   {
     return locales;
@@ -332,26 +423,27 @@ public class Analyzer
     return is_collation;
   }
 
-  private void resolveDependencies() throws IOException, ParseException
+  /**
+   * Resolves every alias of the main file.  Aliases which name a document
+   * or element that cannot be found are left out of the result.
+   *
+   * @param resolver the resolver, which may be shared by many analyzers.
+   * @return the element each alias stands for, in document order.
+   * @throws ParseException if an alias is malformed or part of a cycle.
+   */
+  public Map<AliasElement,Element> resolveAliases(AliasResolver resolver)
+    throws IOException, ParseException
   {
-    /*
-     * Here we look for alias elements in the tree. We resolve dependencies
-     * relatively to the main file.
-     */
-    Iterator<Parser> i = parserTable.values().iterator();
-    ArrayList<AliasElement> aliasList = new ArrayList<AliasElement>();
-    HashMap<String,Parser> pm = new HashMap<String,Parser>();
-    while (i.hasNext())
-      {
-        Parser p = i.next();
-        pm.put(p.getName(), p);
-        buildAliasList(aliasList, p);
-      }
-    Iterator<AliasElement> aliasIter = aliasList.iterator();
-    while (aliasIter.hasNext())
+    List<AliasElement> aliases = new ArrayList<AliasElement>();
+    buildAliasList(aliases, mainParser);
+    Map<AliasElement,Element> resolved = new LinkedHashMap<AliasElement,Element>();
+    for (Iterator<AliasElement> i = aliases.iterator(); i.hasNext();)
       {
-        AliasElement alias = aliasIter.next();
-        fetchResource(alias);
+        AliasElement alias = i.next();
+        Element target = resolver.resolve(alias);
+        if (target != null)
+          resolved.put(alias, target);
       }
+    return resolved;
   }
 }
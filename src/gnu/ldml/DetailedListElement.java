@@ -22,18 +22,34 @@ package gnu.ldml;
 
 public class DetailedListElement extends Element
 {
+  private final String typeName;
 
   public DetailedListElement(Parser p, ListDataElement parent, String name,
                              String typeName)
   {
     super(p, parent, name);
+    this.typeName = typeName;
     DetailedListElement elm = parent.addElement(typeName, this);
     if (elm != null)
       throw new IllegalArgumentException("typeName " + typeName + " already in use.");
   }
 
-  public String getFullName()
+  /**
+   * Returns the type name under which this is held by its list.
+   *
+   * @return the type name.
+   */
+  public String getTypeName()
   {
-    return qualifiedName;
+    return typeName;
+  }
+
+  /**
+   * The path of a detailed list element starts from it, so that its
+   * flattened leaf is indexed as in currency.symbol.
+   */
+  boolean isPathRoot()
+  {
+    return true;
   }
 }
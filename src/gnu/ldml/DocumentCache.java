@@ -0,0 +1,249 @@
+/*
+ * gnu.ldml.DocumentCache
+ * Copyright (C) 2026 Free Software Foundation, Inc.
+ *
+ * This file is part of GNU Classpath.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2, or (at your option) any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * GNU Classpath; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gnu.ldml;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The LDML documents of a directory, keyed by locale and parsed on first
+ * use.  Each document is parsed once however many threads ask for it, and
+ * is then shared, so it must not be changed.  A locale without a file of
+ * its own is remembered as such.
+ */
+public final class DocumentCache
+{
+  private final URL directory;
+  private final TreeCache trees;
+  private final ConcurrentHashMap<String,FutureTask<Parser>> documents =
+    new ConcurrentHashMap<String,FutureTask<Parser>>();
+  private final ConcurrentHashMap<String,PathIndex> inherited =
+    new ConcurrentHashMap<String,PathIndex>();
+
+  /**
+   * Parses the file of one locale.
+   */
+  private class Loader implements Callable<Parser>
+  {
+    private final String locale;
+
+    Loader(String locale)
+    {
+      this.locale = locale;
+    }
+
+    public Parser call() throws IOException, ParseException
+    {
+      try
+        {
+          URL file = new URL(directory, locale + ".xml");
+          if (trees != null)
+            return trees.load(file);
+          return Analyzer.parse(file);
+        }
+      catch (FileNotFoundException e)
+        {
+          return null;
+        }
+    }
+  }
+
+  /**
+   * Creates a cache of the files of a directory, such as the main
+   * directory of CLDR, each named after its locale, as in en_GB.xml.
+   *
+   * @param directory the directory.
+   * @throws MalformedURLException if the directory is not a valid URL.
+   */
+  public DocumentCache(URL directory) throws MalformedURLException
+  {
+    this(directory, null);
+  }
+
+  /**
+   * Creates a cache of the files of a directory which loads documents
+   * saved by earlier runs when their files have not changed.
+   *
+   * @param directory the directory.
+   * @param trees the documents saved by earlier runs, or {@code null}
+   *        to parse every file.
+   * @throws MalformedURLException if the directory is not a valid URL.
+   */
+  public DocumentCache(URL directory, TreeCache trees)
+    throws MalformedURLException
+  {
+    String dir = directory.toExternalForm();
+    if (!dir.endsWith("/"))
+      directory = new URL(dir + "/");
+    this.directory = directory;
+    this.trees = trees;
+  }
+
+  /**
+   * Returns the document of a locale, parsing it if it has not been yet.
+   *
+   * @param locale the locale, such as en_GB or root.
+   * @return the document, or {@code null} if the locale has no file.
+   * @throws IOException if the file cannot be read.
+   * @throws ParseException if the file is not valid LDML.
+   */
+  public Parser get(String locale) throws IOException, ParseException
+  {
+    FutureTask<Parser> task = documents.get(locale);
+    if (task == null)
+      {
+        FutureTask<Parser> created = new FutureTask<Parser>(new Loader(locale));
+        task = documents.putIfAbsent(locale, created);
+        if (task == null)
+          {
+            task = created;
+            task.run();
+          }
+      }
+    try
+      {
+        return task.get();
+      }
+    catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+        throw (IOException) new IOException("Interrupted while loading "
+                                            + locale).initCause(e);
+      }
+    catch (ExecutionException e)
+      {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException)
+          throw (IOException) cause;
+        if (cause instanceof ParseException)
+          throw (ParseException) cause;
+        if (cause instanceof RuntimeException)
+          throw (RuntimeException) cause;
+        if (cause instanceof Error)
+          throw (Error) cause;
+        throw new RuntimeException(cause);
+      }
+  }
+
+  /**
+   * Returns the document of a locale or, if it has none, of the nearest
+   * locale it falls back to by dropping its last part, as en_GB falls
+   * back to en.  root is not tried unless asked for.
+   *
+   * @param locale the locale.
+   * @return the document, or {@code null} if none was found.
+   * @throws IOException if a file cannot be read.
+   * @throws ParseException if a file is not valid LDML.
+   */
+  public Parser find(String locale) throws IOException, ParseException
+  {
+    while (locale.length() != 0)
+      {
+        Parser document = get(locale);
+        if (document != null)
+          return document;
+        int idx = locale.lastIndexOf('_');
+        if (idx < 0)
+          idx = 0;
+        locale = locale.substring(0, idx);
+      }
+    return null;
+  }
+
+  /**
+   * Returns the parent of a locale in the inheritance chain, which ends
+   * with root: the parent of en_GB is en, and that of en is root.
+   *
+   * @param locale the locale.
+   * @return the parent, or {@code null} for root.
+   */
+  public static String getParent(String locale)
+  {
+    if (locale.length() == 0 || locale.equals("root"))
+      return null;
+    int idx = locale.lastIndexOf('_');
+    if (idx <= 0)
+      return "root";
+    return locale.substring(0, idx);
+  }
+
+  /**
+   * Returns the index of a locale resolved through its parents.  Paths the
+   * document of the locale lacks are looked up in that of its parent, and
+   * so on up to root; a locale without a document of its own is the same
+   * as its parent.  The chain of a locale is built once and shared with
+   * every locale inheriting from it.
+   *
+   * @param locale the locale.
+   * @return the index, or {@code null} if neither the locale nor any of
+   *         its parents has a document.
+   * @throws IOException if a file cannot be read.
+   * @throws ParseException if a file is not valid LDML.
+   */
+  public PathIndex getIndex(String locale) throws IOException,
+    ParseException
+  {
+    PathIndex index = inherited.get(locale);
+    if (index != null)
+      return index;
+    String parentLocale = getParent(locale);
+    PathIndex parent = parentLocale == null ? null : getIndex(parentLocale);
+    Parser document = get(locale);
+    if (document == null)
+      return parent;
+    index = document.rootElement.getIndex().inherit(parent);
+    PathIndex other = inherited.putIfAbsent(locale, index);
+    return other == null ? index : other;
+  }
+
+  /**
+   * Tells whether a document is one held by this cache, and so shared.
+   */
+  boolean holds(Parser document)
+  {
+    FutureTask<Parser> task = documents.get(document.getName());
+    if (task == null || !task.isDone())
+      return false;
+    try
+      {
+        return task.get() == document;
+      }
+    catch (Exception e)
+      {
+        return false;
+      }
+  }
+
+  /**
+   * Returns the directory the documents are read from.
+   *
+   * @return the directory.
+   */
+  public URL getDirectory()
+  {
+    return directory;
+  }
+}
@@ -33,6 +33,8 @@ public class Element
   public Element superElement;
   private Draft draft;
   private String altText;
+  private PathTable.Path path;
+  private PathIndex index;
 
   private Element()
   {
@@ -105,11 +107,64 @@ public class Element
     children.add(e);
   }
 
+  /**
+   * Returns the path of this element, such as ldml.dates.calendars.  It
+   * is computed once, from the path of the parent, and is shared with
+   * every element of the same path.
+   *
+   * @return the full name.
+   */
   public String getFullName()
   {
-    if (superElement == ROOT)
-      return qualifiedName;
-    return superElement.getFullName() + "." + qualifiedName;
+    return getPath().name;
+  }
+
+  /**
+   * Returns the entry of this element's path in the path table.
+   *
+   * @return the path and its symbol.
+   */
+  PathTable.Path getPath()
+  {
+    PathTable.Path p = path;
+    if (p == null)
+      {
+        if (isPathRoot())
+          p = PathTable.get(qualifiedName);
+        else
+          p = PathTable.get(superElement.getPath().name + "." + qualifiedName);
+        path = p;
+      }
+    return p;
+  }
+
+  /**
+   * Returns the index of the branch rooted at this element, by path.  It
+   * is built on first use and then shared, so the branch should be
+   * complete by then.
+   *
+   * @return the index.
+   */
+  public PathIndex getIndex()
+  {
+    PathIndex i = index;
+    if (i == null)
+      {
+        i = new PathIndex(this);
+        index = i;
+      }
+    return i;
+  }
+
+  /**
+   * Returns true if the path of this element starts from it rather than
+   * from its parent.
+   *
+   * @return true at the root of a tree.
+   */
+  boolean isPathRoot()
+  {
+    return superElement == ROOT;
   }
 
   @Override
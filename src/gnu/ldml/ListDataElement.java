@@ -45,6 +45,22 @@ public class ListDataElement extends Element
     return Analyzer.flattenBranch(listObject);
   }
 
+  /**
+   * Returns the index of the element of the given type, which holds the
+   * same elements as {@link #flattenLeaf(String)} but is built once and
+   * shared.
+   *
+   * @param name the type name.
+   * @return the index, or {@code null} if there is no such element.
+   */
+  public PathIndex getLeafIndex(String name)
+  {
+    Element listObject = listElms.get(name);
+    if (listObject == null)
+      return null;
+    return listObject.getIndex();
+  }
+
   public Iterator<String> leaves()
   {
     return listData.keySet().iterator();
@@ -728,8 +728,21 @@ public class Parser extends DefaultHandler
   }
 
   public void parse(XMLReader reader) throws IOException, SAXException
+  {
+    parse(reader, new InputSource(url.openStream()));
+  }
+
+  /**
+   * Parses a document read from somewhere other than its URL, such as
+   * contents read in advance.
+   *
+   * @param reader the XML reader.
+   * @param source the document.
+   */
+  public void parse(XMLReader reader, InputSource source) throws IOException,
+    SAXException
   {
     reader.setContentHandler(this);
-    reader.parse(new InputSource(url.openStream()));
+    reader.parse(source);
   }
 }
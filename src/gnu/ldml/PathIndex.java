@@ -0,0 +1,319 @@
+/*
+ * gnu.ldml.PathIndex
+ * Copyright (C) 2026 Free Software Foundation, Inc.
+ *
+ * This file is part of GNU Classpath.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2, or (at your option) any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * GNU Classpath; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gnu.ldml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * The elements of a branch indexed by path, as by
+ * {@link Analyzer#flattenBranch(Element)} but without a map of strings.
+ * Paths are compiled once to symbols with {@link #compile(String)}, and
+ * looked up in an open-addressing table of symbols.  An index is built
+ * once for a branch, by {@link Element#getIndex()}, and may then be
+ * shared by any number of readers; the lists it returns cannot be
+ * changed.  An index may {@link #inherit(PathIndex)} from the index of a
+ * parent locale, which then answers for the paths it lacks.
+ */
+public final class PathIndex
+{
+  private final int[] symbols;
+  private final List<Element>[] elements;
+  private final int mask;
+  private final int size;
+  private final PathIndex parent;
+
+  @SuppressWarnings("unchecked")
+  PathIndex(Element root)
+  {
+    // The list is its own queue: walking it breadth first finds each
+    // parent's path computed, and lists the elements of a path in
+    // document order.
+    ArrayList<Element> branch = new ArrayList<Element>();
+    branch.add(root);
+    for (int i = 0; i < branch.size(); i++)
+      {
+        List<Element> children = branch.get(i).children;
+        for (int j = 0; j < children.size(); j++)
+          if (children.get(j) != null)
+            branch.add(children.get(j));
+      }
+    int capacity = 2;
+    while (capacity < branch.size() * 2)
+      capacity <<= 1;
+    symbols = new int[capacity];
+    elements = (List<Element>[]) new List<?>[capacity];
+    mask = capacity - 1;
+    int count = 0;
+    for (int i = 0; i < branch.size(); i++)
+      {
+        Element elt = branch.get(i);
+        int symbol = elt.getPath().symbol;
+        int slot = slot(symbol);
+        List<Element> list = elements[slot];
+        if (list == null)
+          {
+            symbols[slot] = symbol;
+            elements[slot] = list = new ArrayList<Element>(1);
+            count++;
+          }
+        list.add(elt);
+      }
+    for (int i = 0; i < capacity; i++)
+      if (elements[i] != null)
+        elements[i] = Collections.unmodifiableList(elements[i]);
+    size = count;
+    parent = null;
+  }
+
+  /**
+   * Shares the table of an index, falling through to another parent.
+   */
+  private PathIndex(PathIndex own, PathIndex parent)
+  {
+    symbols = own.symbols;
+    elements = own.elements;
+    mask = own.mask;
+    size = own.size;
+    this.parent = parent;
+  }
+
+  /**
+   * Returns the slot holding a symbol, or the empty slot where it would
+   * go.
+   */
+  private int slot(int symbol)
+  {
+    int h = symbol * 0x9e3779b9;
+    int i = (h ^ (h >>> 16)) & mask;
+    while (symbols[i] != 0 && symbols[i] != symbol)
+      i = (i + 1) & mask;
+    return i;
+  }
+
+  /**
+   * Compiles a path, such as ldml.numbers.symbols.decimal, to the symbol
+   * by which it is looked up.  Symbols are the same for every index.
+   *
+   * @param path the path.
+   * @return its symbol.
+   */
+  public static int compile(String path)
+  {
+    return PathTable.get(path).symbol;
+  }
+
+  /**
+   * Returns the elements of a path.
+   *
+   * @param symbol the symbol of the path.
+   * @return the elements in document order, which cannot be changed, or
+   *         {@code null} if there are none.
+   */
+  public List<Element> get(int symbol)
+  {
+    if (symbol <= 0)
+      return null;
+    List<Element> list = elements[slot(symbol)];
+    if (list == null && parent != null)
+      return parent.get(symbol);
+    return list;
+  }
+
+  /**
+   * Returns the elements of a path not compiled in advance.
+   *
+   * @param path the path.
+   * @return the elements in document order, or {@code null} if there
+   *         are none.
+   */
+  public List<Element> get(String path)
+  {
+    return get(PathTable.find(path));
+  }
+
+  /**
+   * Returns the element of a path, as by
+   * {@link Analyzer#getSingleElement(List)}.
+   *
+   * @param symbol the symbol of the path.
+   * @return the element, the one without alternative text if there are
+   *         several, or {@code null} if there is none.
+   */
+  public Element getSingle(int symbol)
+  {
+    return Analyzer.getSingleElement(get(symbol));
+  }
+
+  /**
+   * Returns the index of an entry of a list, such as the gregorian
+   * calendar of the calendars, which was looked up in this index.  If
+   * this index inherits, the entry falls through to the same entry of the
+   * parent's list, so that a locale with only part of a calendar takes
+   * the rest from its parent.
+   *
+   * @param list the list.
+   * @param type the type of the entry.
+   * @return the index of the entry, or {@code null} if neither the list
+   *         nor those it inherits from have the entry.
+   */
+  public PathIndex getLeafIndex(ListDataElement list, String type)
+  {
+    int symbol = list.getPath().symbol;
+    PathIndex owner = getOwner(symbol, list);
+    ListDataElement above = owner.getInherited(symbol);
+    PathIndex inherited = null;
+    if (above != null)
+      inherited = owner.parent.getLeafIndex(above, type);
+    PathIndex leaf = list.getLeafIndex(type);
+    if (leaf == null)
+      return inherited;
+    return leaf.inherit(inherited);
+  }
+
+  /**
+   * Returns the data of a list which was looked up in this index, as by
+   * {@link ListDataElement#getData()}.  If this index inherits, the data
+   * of the same list in the parents is included, the child's winning, so
+   * that a locale naming a few languages keeps the others of its parent.
+   *
+   * @param list the list.
+   * @return the data by type name, which must not be changed.
+   */
+  public Map<String,SortedSet<Leaf>> getData(ListDataElement list)
+  {
+    int symbol = list.getPath().symbol;
+    PathIndex owner = getOwner(symbol, list);
+    ListDataElement above = owner.getInherited(symbol);
+    if (above == null)
+      return list.getData();
+    Map<String,SortedSet<Leaf>> data =
+      new HashMap<String,SortedSet<Leaf>>(owner.parent.getData(above));
+    data.putAll(list.getData());
+    return data;
+  }
+
+  /**
+   * Returns the type names of the entries of a list which was looked up
+   * in this index, as by {@link ListDataElement#elmKeys()}, together with
+   * those of the same list in the parents if this index inherits.
+   *
+   * @param list the list.
+   * @return the type names.
+   */
+  public Set<String> getElementKeys(ListDataElement list)
+  {
+    int symbol = list.getPath().symbol;
+    PathIndex owner = getOwner(symbol, list);
+    ListDataElement above = owner.getInherited(symbol);
+    Set<String> keys;
+    if (above == null)
+      keys = new HashSet<String>();
+    else
+      keys = owner.parent.getElementKeys(above);
+    for (Iterator<String> i = list.elmKeys(); i.hasNext();)
+      keys.add(i.next());
+    return keys;
+  }
+
+  /**
+   * Returns the index along the chain of parents whose own table holds
+   * an element, or the last of the chain if none does.
+   */
+  private PathIndex getOwner(int symbol, Element elt)
+  {
+    PathIndex index = this;
+    while (index.parent != null)
+      {
+        List<Element> own = index.elements[index.slot(symbol)];
+        if (own != null && own.contains(elt))
+          break;
+        index = index.parent;
+      }
+    return index;
+  }
+
+  /**
+   * Returns the list of a path in the parent of this index, or
+   * {@code null} if there is none to inherit from.
+   */
+  private ListDataElement getInherited(int symbol)
+  {
+    if (parent == null)
+      return null;
+    Element above;
+    try
+      {
+        above = parent.getSingle(symbol);
+      }
+    catch (IllegalArgumentException e)
+      {
+        // Only alternatives, none of them the default.
+        return null;
+      }
+    if (above instanceof ListDataElement)
+      return (ListDataElement) above;
+    return null;
+  }
+
+  /**
+   * Returns an index of the same branch which looks up the paths the
+   * branch lacks in another index, as a locale does in its parent.  The
+   * table is shared, not copied, and this index is left as it was.
+   *
+   * @param parent the index to fall through to, or {@code null} for
+   *        none.
+   * @return the inheriting index.
+   */
+  public PathIndex inherit(PathIndex parent)
+  {
+    if (parent == this.parent)
+      return this;
+    return new PathIndex(this, parent);
+  }
+
+  /**
+   * Returns the index this one falls through to.
+   *
+   * @return the parent index, or {@code null} if there is none.
+   */
+  public PathIndex getParent()
+  {
+    return parent;
+  }
+
+  /**
+   * Returns the number of distinct paths in the branch, not counting
+   * those only found in a parent.
+   *
+   * @return the number of paths.
+   */
+  public int size()
+  {
+    return size;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * gnu.ldml.PathTable
+ * Copyright (C) 2026 Free Software Foundation, Inc.
+ *
+ * This file is part of GNU Classpath.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2, or (at your option) any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * GNU Classpath; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gnu.ldml;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The table of element paths, such as ldml.dates.calendars, shared by
+ * every document.  Each path is kept once, with a symbol: a small
+ * positive number by which a {@link PathIndex} finds its elements.  The
+ * many documents of a run thus share their keys, and a path need only be
+ * compiled to its symbol once.
+ */
+final class PathTable
+{
+  /**
+   * A path and its symbol.
+   */
+  static final class Path
+  {
+    final String name;
+    final int symbol;
+
+    Path(String name, int symbol)
+    {
+      this.name = name;
+      this.symbol = symbol;
+    }
+  }
+
+  private static final ConcurrentHashMap<String,Path> paths =
+    new ConcurrentHashMap<String,Path>();
+  private static final AtomicInteger symbols = new AtomicInteger();
+
+  private PathTable()
+  {
+  }
+
+  /**
+   * Returns the shared entry of a path, adding it if it is new.
+   *
+   * @param name the path.
+   * @return the path held in the table.
+   */
+  static Path get(String name)
+  {
+    Path path = paths.get(name);
+    if (path == null)
+      {
+        path = new Path(name, symbols.incrementAndGet());
+        Path shared = paths.putIfAbsent(name, path);
+        if (shared != null)
+          path = shared;
+      }
+    return path;
+  }
+
+  /**
+   * Returns the symbol of a path, without adding it.
+   *
+   * @param name the path.
+   * @return the symbol, or 0 if no element has that path.
+   */
+  static int find(String name)
+  {
+    Path path = paths.get(name);
+    return path == null ? 0 : path.symbol;
+  }
+}
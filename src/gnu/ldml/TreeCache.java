@@ -0,0 +1,560 @@
+/*
+ * gnu.ldml.TreeCache
+ * Copyright (C) 2026 Free Software Foundation, Inc.
+ *
+ * This file is part of GNU Classpath.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2, or (at your option) any later version.
+ *
+ * GNU Classpath is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * GNU Classpath; see the file COPYING. If not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package gnu.ldml;
+
+import gnu.classpath.tools.AtomicOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * A directory of LDML documents parsed by earlier runs, so that unchanged
+ * files need not be parsed again.
+ * 
+ * Each document is saved in a file named after a digest of its URL.  The
+ * file starts with the URL and the length and CRC-32 checksum of the
+ * contents the document was parsed from, and is only used while they
+ * match; the contents are read and checked on every load, so a changed
+ * file is parsed again even if its modification time is not.
+ * The rest of the file is a table of the distinct strings of the document
+ * followed by one record for each element, parents first, holding the
+ * indexes of its strings and, for a list, its leaves.  Loading maps the
+ * file and builds the elements through the same constructors as the
+ * parser, so that the document is the same in every respect, without
+ * going through XML.
+ * 
+ * Stale files are never removed; the directory can simply be deleted.
+ * Errors reading or writing the cache are ignored, in which case the
+ * document is parsed as if there were no cache.
+ */
+public final class TreeCache
+{
+  private static final int MAGIC = 0x4c445431; // LDT1
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  // The kinds of element records.
+  private static final int ELEMENT = 0;
+  private static final int DATA = 1;
+  private static final int ALIAS = 2;
+  private static final int LIST = 3;
+  private static final int DETAILED = 4;
+  private static final int ORDERED = 5;
+  private static final int EXPANSION = 6;
+  private static final int RESET = 7;
+
+  /**
+   * A buffer for each thread, through which files are read to be checked.
+   */
+  private static final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>();
+
+  private final File dir;
+  private final ConcurrentHashMap<String,File> files =
+    new ConcurrentHashMap<String,File>();
+
+  /**
+   * @param dir the cache directory, which is created if needed
+   */
+  public TreeCache(File dir)
+  {
+    this.dir = dir;
+  }
+
+  public File getDirectory()
+  {
+    return dir;
+  }
+
+  /**
+   * Returns the document of a file, as saved by an earlier run if the
+   * file has not changed since, or else parsed and saved.
+   *
+   * @param source the file, ending with .xml.
+   * @return the parser holding the document.
+   * @throws IOException if the file cannot be read.
+   * @throws ParseException if the file is not valid LDML.
+   */
+  public Parser load(URL source) throws IOException, ParseException
+  {
+    String key = source.toExternalForm();
+    File f = getFile(key);
+    if (f.isFile())
+      {
+        // Only the checksum is needed to use the saved document, so the
+        // file is not kept in memory.
+        CRC32 crc = new CRC32();
+        long length = 0;
+        byte[] buf = getBuffer();
+        InputStream in = source.openStream();
+        try
+          {
+            int n;
+            while ((n = in.read(buf)) != -1)
+              {
+                crc.update(buf, 0, n);
+                length += n;
+              }
+          }
+        finally
+          {
+            in.close();
+          }
+        try
+          {
+            Parser parser = readFrom(f, source, key, length,
+                                     (int) crc.getValue());
+            if (parser != null)
+              return parser;
+          }
+        catch (IOException e)
+          {
+          }
+        catch (RuntimeException e)
+          {
+            // A damaged file is replaced below.
+          }
+      }
+    // The checksum saved is that of the contents parsed, even if the file
+    // changes meanwhile.
+    byte[] content = read(source);
+    CRC32 crc = new CRC32();
+    crc.update(content);
+    Parser parser = Analyzer.parse(source, content);
+    save(f, key, content.length, (int) crc.getValue(), parser);
+    return parser;
+  }
+
+  private static byte[] getBuffer()
+  {
+    byte[] buf = buffers.get();
+    if (buf == null)
+      {
+        buf = new byte[8192];
+        buffers.set(buf);
+      }
+    return buf;
+  }
+
+  private static byte[] read(URL source) throws IOException
+  {
+    InputStream in = source.openStream();
+    try
+      {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = getBuffer();
+        int n;
+        while ((n = in.read(buf)) != -1)
+          out.write(buf, 0, n);
+        return out.toByteArray();
+      }
+    finally
+      {
+        in.close();
+      }
+  }
+
+  private File getFile(String key)
+  {
+    File f = files.get(key);
+    if (f != null)
+      return f;
+    byte[] digest;
+    try
+      {
+        digest = MessageDigest.getInstance("SHA-1").digest(key
+          .getBytes("UTF-8"));
+      }
+    catch (NoSuchAlgorithmException e)
+      {
+        throw new Error("SHA-1 not supported", e);
+      }
+    catch (IOException e)
+      {
+        throw new Error("UTF-8 not supported", e);
+      }
+    char[] name = new char[digest.length * 2];
+    for (int i = 0; i < digest.length; i++)
+      {
+        name[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+        name[i * 2 + 1] = HEX[digest[i] & 0xF];
+      }
+    f = new File(dir, new String(name));
+    files.put(key, f);
+    return f;
+  }
+
+  /**
+   * Saves a document.  It is written with an {@link AtomicOutputStream},
+   * so that a concurrent run never sees a partial file.
+   */
+  private void save(File f, String key, long length, int crc, Parser parser)
+  {
+    if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory())
+      return;
+    AtomicOutputStream file = new AtomicOutputStream(f, false);
+    try
+      {
+        DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(file));
+        out.writeInt(MAGIC);
+        out.writeInt(key.length());
+        out.writeChars(key);
+        out.writeLong(length);
+        out.writeInt(crc);
+        new Encoder(parser.rootElement).writeTo(out);
+        out.close();
+      }
+    catch (IOException e)
+      {
+      }
+    finally
+      {
+        file.discard();
+      }
+  }
+
+  /**
+   * Lays out the records of a document, numbering its elements and strings
+   * as it goes.
+   */
+  private static final class Encoder
+  {
+    private final Map<Element,Integer> elements =
+      new IdentityHashMap<Element,Integer>();
+    private final List<OrderedListBaseElement> lists =
+      new ArrayList<OrderedListBaseElement>();
+    private final Map<String,Integer> strings = new HashMap<String,Integer>();
+    private final List<String> table = new ArrayList<String>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream records = new DataOutputStream(bytes);
+
+    Encoder(Element root) throws IOException
+    {
+      add(root);
+      records.writeInt(lists.size());
+      for (int i = 0; i < lists.size(); i++)
+        {
+          OrderedListBaseElement list = lists.get(i);
+          records.writeInt(elements.get(list).intValue());
+          records.writeInt(list.listData.size());
+          for (int j = 0; j < list.listData.size(); j++)
+            records.writeInt(elements.get(list.listData.get(j)).intValue());
+        }
+    }
+
+    /**
+     * Writes the record of an element, then those of the elements it
+     * holds, in the order they were created.  The items of an ordered
+     * list need not be its children, and come after them.
+     */
+    private void add(Element e) throws IOException
+    {
+      elements.put(e, Integer.valueOf(elements.size()));
+      int kind = getKind(e);
+      records.writeByte(kind);
+      if (e.superElement == Element.ROOT)
+        records.writeInt(-1);
+      else
+        records.writeInt(elements.get(e.superElement).intValue());
+      writeString(e.qualifiedName);
+      writeString(e.defaultType);
+      writeString(e.displayName);
+      switch (kind)
+        {
+        case DATA:
+          records.writeByte(e.getDraft().ordinal());
+          writeString(e.getAltText());
+          writeString(((DataElement) e).data);
+          break;
+        case ALIAS:
+          writeString(((AliasElement) e).aliasing);
+          writeString(((AliasElement) e).replacingElement);
+          break;
+        case DETAILED:
+          writeString(((DetailedListElement) e).getTypeName());
+          break;
+        case EXPANSION:
+          writeString(((ExpansionElement) e).extendData);
+          writeString(((ExpansionElement) e).extendOperator);
+          writeString(((ExpansionElement) e).extendOperatorData);
+          break;
+        case RESET:
+          records.writeByte(((ResetElement) e).before);
+          records.writeByte(((ResetElement) e).logicalReset);
+          writeString(((ResetElement) e).data);
+          break;
+        case LIST:
+          writeLeaves(((ListDataElement) e).getData());
+          break;
+        }
+      List<Element> children = e.children;
+      for (int i = 0; i < children.size(); i++)
+        add(children.get(i));
+      if (e instanceof OrderedListBaseElement)
+        {
+          OrderedListBaseElement list = (OrderedListBaseElement) e;
+          for (int i = 0; i < list.listData.size(); i++)
+            if (!elements.containsKey(list.listData.get(i)))
+              add(list.listData.get(i));
+          if (list.listData.size() != 0)
+            lists.add(list);
+        }
+    }
+
+    private static int getKind(Element e) throws IOException
+    {
+      Class<?> c = e.getClass();
+      if (c == Element.class)
+        return ELEMENT;
+      if (c == DataElement.class)
+        return DATA;
+      if (c == AliasElement.class)
+        return ALIAS;
+      if (c == ListDataElement.class)
+        return LIST;
+      if (c == DetailedListElement.class)
+        return DETAILED;
+      if (c == OrderedListElement.class)
+        return ORDERED;
+      if (c == ExpansionElement.class)
+        return EXPANSION;
+      if (c == ResetElement.class)
+        return RESET;
+      throw new IOException("Cannot save " + c.getName());
+    }
+
+    private void writeLeaves(Map<String,SortedSet<Leaf>> data)
+      throws IOException
+    {
+      int count = 0;
+      for (Iterator<SortedSet<Leaf>> i = data.values().iterator(); i.hasNext();)
+        count += i.next().size();
+      records.writeInt(count);
+      for (Iterator<Map.Entry<String,SortedSet<Leaf>>> i =
+             data.entrySet().iterator(); i.hasNext();)
+        {
+          Map.Entry<String,SortedSet<Leaf>> entry = i.next();
+          for (Iterator<Leaf> j = entry.getValue().iterator(); j.hasNext();)
+            {
+              Leaf leaf = j.next();
+              writeString(entry.getKey());
+              writeString(leaf.getData());
+              writeString(leaf.getType());
+              records.writeByte(leaf.getDraftStatus().ordinal());
+              writeString(leaf.getAlternative());
+            }
+        }
+    }
+
+    private void writeString(String s) throws IOException
+    {
+      if (s == null)
+        {
+          records.writeInt(-1);
+          return;
+        }
+      Integer id = strings.get(s);
+      if (id == null)
+        {
+          id = Integer.valueOf(table.size());
+          strings.put(s, id);
+          table.add(s);
+        }
+      records.writeInt(id.intValue());
+    }
+
+    void writeTo(DataOutputStream out) throws IOException
+    {
+      out.writeInt(table.size());
+      for (int i = 0; i < table.size(); i++)
+        {
+          String s = table.get(i);
+          out.writeInt(s.length());
+          out.writeChars(s);
+        }
+      out.writeInt(elements.size());
+      bytes.writeTo(out);
+    }
+  }
+
+  /**
+   * Loads a saved document.
+   *
+   * @return the document, or {@code null} if the file was saved for
+   *         another URL or other contents.
+   */
+  private static Parser readFrom(File f, URL source, String key,
+                                 long length, int crc)
+    throws IOException
+  {
+    MappedByteBuffer map;
+    RandomAccessFile raf = new RandomAccessFile(f, "r");
+    try
+      {
+        FileChannel channel = raf.getChannel();
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+    finally
+      {
+        // The mapping remains valid once the channel is closed.
+        raf.close();
+      }
+    if (map.getInt() != MAGIC || map.getInt() != key.length())
+      return null;
+    for (int i = 0; i < key.length(); i++)
+      if (map.getChar() != key.charAt(i))
+        return null;
+    if (map.getLong() != length || map.getInt() != crc)
+      return null;
+
+    String[] strings = new String[map.getInt()];
+    char[] buf = new char[256];
+    for (int i = 0; i < strings.length; i++)
+      {
+        int size = map.getInt();
+        if (size > buf.length)
+          buf = new char[Math.max(size, buf.length * 2)];
+        for (int j = 0; j < size; j++)
+          buf[j] = map.getChar();
+        strings[i] = new String(buf, 0, size);
+      }
+
+    Parser parser = Analyzer.newParser(source);
+    Draft[] drafts = Draft.values();
+    Element[] elements = new Element[map.getInt()];
+    if (elements.length == 0)
+      return null;
+    for (int i = 0; i < elements.length; i++)
+      {
+        int kind = map.get();
+        int parentId = map.getInt();
+        Element parent = parentId < 0 ? Element.ROOT : elements[parentId];
+        String name = getString(map, strings);
+        String defaultType = getString(map, strings);
+        String displayName = getString(map, strings);
+        Element e;
+        switch (kind)
+          {
+          case ELEMENT:
+            e = new Element(parser, parent, name);
+            break;
+          case DATA:
+            {
+              Draft draft = drafts[map.get()];
+              String altText = getString(map, strings);
+              DataElement data = new DataElement(parser, parent, name, draft,
+                                                 altText);
+              data.data = getString(map, strings);
+              e = data;
+            }
+            break;
+          case ALIAS:
+            {
+              AliasElement alias = new AliasElement(parser, parent, name);
+              alias.aliasing = getString(map, strings);
+              alias.replacingElement = getString(map, strings);
+              e = alias;
+            }
+            break;
+          case LIST:
+            {
+              ListDataElement list = new ListDataElement(parser, parent, name);
+              for (int count = map.getInt(); count > 0; count--)
+                {
+                  String type = getString(map, strings);
+                  String data = getString(map, strings);
+                  String leafType = getString(map, strings);
+                  Draft draft = drafts[map.get()];
+                  String alternative = getString(map, strings);
+                  list.addData(type, new Leaf(data, leafType, draft,
+                                              alternative));
+                }
+              e = list;
+            }
+            break;
+          case DETAILED:
+            e = new DetailedListElement(parser, (ListDataElement) parent,
+                                        name, getString(map, strings));
+            break;
+          case ORDERED:
+            e = new OrderedListElement(parser, parent, name);
+            break;
+          case EXPANSION:
+            {
+              ExpansionElement expansion = new ExpansionElement(parser, parent,
+                                                                name);
+              expansion.extendData = getString(map, strings);
+              expansion.extendOperator = getString(map, strings);
+              expansion.extendOperatorData = getString(map, strings);
+              e = expansion;
+            }
+            break;
+          case RESET:
+            {
+              ResetElement reset = new ResetElement(parser, parent, name);
+              reset.before = map.get();
+              reset.logicalReset = map.get();
+              reset.data = getString(map, strings);
+              e = reset;
+            }
+            break;
+          default:
+            throw new IOException("Unknown element kind " + kind + " in " + f);
+          }
+        e.defaultType = defaultType;
+        e.displayName = displayName;
+        elements[i] = e;
+      }
+    for (int count = map.getInt(); count > 0; count--)
+      {
+        OrderedListBaseElement list =
+          (OrderedListBaseElement) elements[map.getInt()];
+        int size = map.getInt();
+        list.listData.ensureCapacity(size);
+        for (int i = 0; i < size; i++)
+          list.listData.add(elements[map.getInt()]);
+      }
+    parser.rootElement = elements[0];
+    return parser;
+  }
+
+  private static String getString(MappedByteBuffer map, String[] strings)
+  {
+    int id = map.getInt();
+    return id < 0 ? null : strings[id];
+  }
+}
@@ -19,59 +19,226 @@
  */
 package gnu.localegen;
 
+import gnu.ldml.AliasResolver;
 import gnu.ldml.Analyzer;
+import gnu.ldml.DocumentCache;
+import gnu.ldml.Parser;
+import gnu.ldml.TreeCache;
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 
 public class Main
 {
 
+  /**
+   * Parses and indexes one CLDR file.  With a cache, the file is taken
+   * from it and a locale inherits from its parents in the same cache.
+   * With saved trees, an unchanged file is loaded rather than parsed.
+   * The aliases of the file are followed with the resolver of its
+   * directory.
+   */
+  private static class AnalyzerTask implements Callable<Analyzer>
+  {
+    private final URL url;
+    private final DocumentCache documents;
+    private final TreeCache trees;
+    private final AliasResolver aliases;
+
+    AnalyzerTask(URL url, DocumentCache documents, TreeCache trees,
+                 AliasResolver aliases)
+    {
+      this.url = url;
+      this.documents = documents;
+      this.trees = trees;
+      this.aliases = aliases;
+    }
+
+    public Analyzer call() throws Exception
+    {
+      Analyzer a = analyze();
+      a.setAliasResolver(aliases);
+      return a;
+    }
+
+    private Analyzer analyze() throws Exception
+    {
+      if (documents == null && trees != null)
+        return new Analyzer(trees.load(url));
+      if (documents == null)
+        return new Analyzer(url);
+      String name = url.getFile();
+      name = name.substring(name.lastIndexOf('/') + 1);
+      if (name.endsWith(".xml"))
+        name = name.substring(0, name.length() - 4);
+      Parser document = documents.get(name);
+      if (document == null)
+        throw new FileNotFoundException(url.toString());
+      Analyzer a = new Analyzer(document);
+      if (!a.isCollation())
+        a.inherit(documents);
+      return a;
+    }
+  }
+
+  /**
+   * Generates the properties of one locale.  Its analyzers are only used
+   * by this task once it has been submitted.
+   */
+  private static class GeneratorTask implements Callable<Object>
+  {
+    private final String locale;
+    private final List<Analyzer> analyzers;
+
+    GeneratorTask(String locale, List<Analyzer> analyzers)
+    {
+      this.locale = locale;
+      this.analyzers = analyzers;
+    }
+
+    public Object call() throws IOException
+    {
+      PropertiesGenerator generator = new PropertiesGenerator("gnu.java.locale",
+                                                              analyzers, locale);
+      generator.generate(null);
+      return null;
+    }
+  }
+
   static public void main(String args[]) throws Exception
   {
     printVersion();
-    if (args.length == 0)
+    int threads = Runtime.getRuntime().availableProcessors();
+    boolean inherit = false;
+    TreeCache trees = null;
+    int first = 0;
+    while (first < args.length)
+      {
+        if (args[first].equals("-inherit"))
+          {
+            inherit = true;
+            first++;
+          }
+        else if (args.length > first + 1 && args[first].equals("-cache"))
+          {
+            trees = new TreeCache(new File(args[first + 1]));
+            first += 2;
+          }
+        else if (args.length > first + 1 && args[first].equals("-threads"))
+          {
+            try
+              {
+                threads = Integer.parseInt(args[first + 1]);
+              }
+            catch (NumberFormatException e)
+              {
+                System.out.println("Invalid thread count: " + args[first + 1]);
+                printUsage();
+                return;
+              }
+            first += 2;
+          }
+        else
+          break;
+      }
+    if (args.length == first)
       {
         System.out.println("Invalid number of arguments.");
         printUsage();
         return;
       }
-    Map<String,Analyzer> localeAnalyzers = new HashMap<String,Analyzer>();
-    Map<String,Analyzer> collationAnalyzers = new HashMap<String,Analyzer>();
-    for (int i = 0; i < args.length; i++)
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    try
+      {
+        run(pool, Math.max(1, threads), inherit, trees,
+            Arrays.asList(args).subList(first, args.length));
+      }
+    finally
       {
+        pool.shutdownNow();
+      }
+  }
+
+  /**
+   * Parses every file on the pool, joins the locale and collation data of
+   * each locale, then generates the locales on the pool.  Progress is
+   * reported, and the analyzers joined, in the order of the arguments and
+   * then of the locale names, so that the output does not depend on the
+   * number of threads.  The first failure stops the run.  If locales
+   * inherit, the files of each directory are read through one cache, so
+   * that a parent named on the command line is not parsed again.  With
+   * saved trees, files unchanged since an earlier run are not parsed at
+   * all.  Aliases are resolved by one resolver per directory, which
+   * parses the files they name on first use.
+   */
+  private static void run(ExecutorService pool, int threads,
+                          boolean inherit, TreeCache trees, List<String> args)
+    throws Exception
+  {
+    List<Callable<Analyzer>> parses = new ArrayList<Callable<Analyzer>>();
+    Map<String,DocumentCache> caches = new HashMap<String,DocumentCache>();
+    Map<String,AliasResolver> resolvers = new HashMap<String,AliasResolver>();
+    List<String> progress = new ArrayList<String>();
+    for (Iterator<String> i = args.iterator(); i.hasNext();)
+      {
+        String arg = i.next();
         URL u;
-        Analyzer a;
         try
           {
-            try
-              {
-                u = new URL(args[i]);
-              }
-            catch (MalformedURLException e)
-              {
-                u = new URL("file:" + args[i]);
-              }
-            System.out.println("Parsing/Analyzing initial URL " + u);
-            a = new Analyzer(u);
+            u = new URL(arg);
+          }
+        catch (MalformedURLException e)
+          {
+            u = new URL("file:" + arg);
           }
-        catch (IOException e)
+        String dir = new URL(u, ".").toExternalForm();
+        DocumentCache documents = caches.get(dir);
+        if (documents == null)
           {
-            System.out
-              .println("It is impossible to grab the requested file (reason="
-                       + e.getMessage() + ")");
-            e.printStackTrace();
-            System.out.println("Exiting.");
-            return;
+            documents = new DocumentCache(new URL(dir), trees);
+            caches.put(dir, documents);
+            resolvers.put(dir, new AliasResolver(documents));
           }
-        a.flattenTree();
+        parses.add(new AnalyzerTask(u, inherit ? documents : null, trees,
+                                    resolvers.get(dir)));
+        progress.add("Parsing/Analyzing initial URL " + u);
+      }
+    List<Analyzer> parsed;
+    try
+      {
+        parsed = runInOrder(pool, threads, parses, progress);
+      }
+    catch (IOException e)
+      {
+        System.out
+          .println("It is impossible to grab the requested file (reason="
+                   + e.getMessage() + ")");
+        e.printStackTrace();
+        System.out.println("Exiting.");
+        return;
+      }
+    Map<String,Analyzer> localeAnalyzers = new HashMap<String,Analyzer>();
+    Map<String,Analyzer> collationAnalyzers = new HashMap<String,Analyzer>();
+    for (Iterator<Analyzer> i = parsed.iterator(); i.hasNext();)
+      {
+        Analyzer a = i.next();
         Collection<String> locales = a.getLocales();
         for (Iterator<String> j = locales.iterator(); j.hasNext();)
           {
@@ -86,24 +253,68 @@ public class Main
               }
           }
       }
-    for (Iterator<String> i = localeAnalyzers.keySet().iterator(); i.hasNext();)
+    List<Callable<Object>> generators = new ArrayList<Callable<Object>>();
+    progress.clear();
+    for (Iterator<String> i = new TreeSet<String>(localeAnalyzers.keySet())
+           .iterator(); i.hasNext();)
       {
         String locale = i.next();
         Analyzer a = localeAnalyzers.get(locale);
         Analyzer ca = collationAnalyzers.get(locale);
         List<Analyzer> analyzers = (ca == null) ? Collections.singletonList(a) : Arrays
           .asList(new Analyzer[] { a, ca });
-        System.out.println("Generating Java source code for " + locale
-                           + " in gnu.java.locale");
-        PropertiesGenerator generator = new PropertiesGenerator("gnu.java.locale",
-                                                    analyzers, locale);
-        generator.generate(null);
+        generators.add(new GeneratorTask(locale, analyzers));
+        progress.add("Generating Java source code for " + locale
+                     + " in gnu.java.locale");
       }
+    runInOrder(pool, threads, generators, progress);
+  }
+
+  /**
+   * Runs tasks on a pool, keeping at most a few per thread queued ahead of
+   * the oldest unfinished one, and returns their results in order.  Each
+   * progress message is printed as its task is waited for.  If a task
+   * fails, its exception is thrown once the tasks before it are done, and
+   * the tasks after it are cancelled.
+   */
+  private static <T> List<T> runInOrder(ExecutorService pool, int threads,
+                                        List<? extends Callable<T>> tasks,
+                                        List<String> progress)
+    throws Exception
+  {
+    List<T> results = new ArrayList<T>(tasks.size());
+    LinkedList<Future<T>> pending = new LinkedList<Future<T>>();
+    Iterator<? extends Callable<T>> i = tasks.iterator();
+    try
+      {
+        while (i.hasNext() || !pending.isEmpty())
+          {
+            while (i.hasNext() && pending.size() < threads * 4)
+              pending.add(pool.submit(i.next()));
+            System.out.println(progress.get(results.size()));
+            results.add(pending.removeFirst().get());
+          }
+      }
+    catch (ExecutionException e)
+      {
+        Throwable cause = e.getCause();
+        if (cause instanceof Exception)
+          throw (Exception) cause;
+        if (cause instanceof Error)
+          throw (Error) cause;
+        throw e;
+      }
+    finally
+      {
+        for (Iterator<Future<T>> j = pending.iterator(); j.hasNext();)
+          j.next().cancel(true);
+      }
+    return results;
   }
 
   static void printUsage()
   {
-    System.out.println(" Usage: [URLs]");
+    System.out.println(" Usage: [-threads N] [-inherit] [-cache DIR] [URLs]");
     System.out.println();
     System.out
       .println("The generator takes only URL on command line. The corresponding files will be retrieved and parsed.");
@@ -111,6 +322,12 @@ public class Main
       .println("The Java source code for GNU Classpath is generated in gnu/java/locale/LocaleInformation_[name]");
     System.out
       .println("where \"name\" is the proper name of the original XML file (atm), i.e. the base file name.");
+    System.out
+      .println("Files are parsed and locales generated on N threads, by default one per processor.");
+    System.out
+      .println("With -inherit, a locale also takes the data its file lacks from its parents, as en_GB from en and root, found next to it.");
+    System.out
+      .println("With -cache, the parsed files are saved in DIR, and loaded from there by later runs while the files are unchanged.");
     System.exit(1);
   }
   static void printVersion()
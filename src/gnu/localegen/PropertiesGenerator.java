@@ -19,16 +19,19 @@
  */
 package gnu.localegen;
 
+import gnu.classpath.tools.AtomicOutputStream;
 import gnu.ldml.Analyzer;
 import gnu.ldml.DataElement;
 import gnu.ldml.Element;
 import gnu.ldml.Leaf;
 import gnu.ldml.ListDataElement;
 import gnu.ldml.OrderedListElement;
+import gnu.ldml.ParseException;
+import gnu.ldml.PathIndex;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -56,14 +59,89 @@ public class PropertiesGenerator
                                                         "mediumTimeFormat",
                                                         "longTimeFormat",
                                                         "fullTimeFormat" };
-  private static final String[] classpathZoneOrder = { "zone.long.standard",
-                                                      "zone.short.standard",
-                                                      "zone.long.daylight",
-                                                      "zone.short.daylight" };
-  private static final String[] classpathMetazoneOrder = { "metazone.long.standard",
-                                                      "metazone.short.standard",
-                                                      "metazone.long.daylight",
-                                                      "metazone.short.daylight" };
+  private static final int[] classpathZoneOrder = {
+    PathIndex.compile("zone.long.standard"),
+    PathIndex.compile("zone.short.standard"),
+    PathIndex.compile("zone.long.daylight"),
+    PathIndex.compile("zone.short.daylight") };
+  private static final int[] classpathMetazoneOrder = {
+    PathIndex.compile("metazone.long.standard"),
+    PathIndex.compile("metazone.short.standard"),
+    PathIndex.compile("metazone.long.daylight"),
+    PathIndex.compile("metazone.short.daylight") };
+
+  /*
+   * The paths read from the documents, compiled once.
+   */
+  private static final int NUMBERS_SYMBOLS_PERCENT_SIGN =
+    PathIndex.compile("ldml.numbers.symbols.percentSign");
+  private static final int NUMBERS_SYMBOLS_PER_MILLE =
+    PathIndex.compile("ldml.numbers.symbols.perMille");
+  private static final int NUMBERS_SYMBOLS_EXPONENTIAL =
+    PathIndex.compile("ldml.numbers.symbols.exponential");
+  private static final int NUMBERS_SYMBOLS_INFINITY =
+    PathIndex.compile("ldml.numbers.symbols.infinity");
+  private static final int NUMBERS_SYMBOLS_NAN =
+    PathIndex.compile("ldml.numbers.symbols.nan");
+  private static final int NUMBERS_SYMBOLS_MINUS_SIGN =
+    PathIndex.compile("ldml.numbers.symbols.minusSign");
+  private static final int NUMBERS_SYMBOLS_NATIVE_ZERO_DIGIT =
+    PathIndex.compile("ldml.numbers.symbols.nativeZeroDigit");
+  private static final int NUMBERS_SYMBOLS_DECIMAL =
+    PathIndex.compile("ldml.numbers.symbols.decimal");
+  private static final int NUMBERS_SYMBOLS_GROUP =
+    PathIndex.compile("ldml.numbers.symbols.group");
+  private static final int NUMBERS_SYMBOLS_PATTERN_DIGIT =
+    PathIndex.compile("ldml.numbers.symbols.patternDigit");
+  private static final int NUMBERS_PERCENT_FORMAT =
+    PathIndex.compile("ldml.numbers.percentFormats.percentFormatLength.percentFormat.pattern");
+  private static final int NUMBERS_CURRENCY_FORMAT =
+    PathIndex.compile("ldml.numbers.currencyFormats.currencyFormatLength.currencyFormat.pattern");
+  private static final int NUMBERS_CURRENCIES =
+    PathIndex.compile("ldml.numbers.currencies");
+  private static final int CURRENCY_DISPLAY_NAME =
+    PathIndex.compile("currency.displayName");
+  private static final int CURRENCY_SYMBOL =
+    PathIndex.compile("currency.symbol");
+  private static final int DATES_LOCALIZED_PATTERN_CHARS =
+    PathIndex.compile("ldml.dates.localizedPatternChars");
+  private static final int DATES_CALENDARS =
+    PathIndex.compile("ldml.dates.calendars");
+  private static final int DATES_TIME_ZONE_NAMES =
+    PathIndex.compile("ldml.dates.timeZoneNames");
+  private static final int CALENDAR_MONTHS_ABBREVIATED =
+    PathIndex.compile("calendar.months.monthContext.monthWidth.abbreviated");
+  private static final int CALENDAR_MONTHS_WIDE =
+    PathIndex.compile("calendar.months.monthContext.monthWidth.wide");
+  private static final int CALENDAR_DAYS_ABBREVIATED =
+    PathIndex.compile("calendar.days.dayContext.dayWidth.abbreviated");
+  private static final int CALENDAR_DAYS_WIDE =
+    PathIndex.compile("calendar.days.dayContext.dayWidth.wide");
+  private static final int CALENDAR_WEEK_MIN_DAYS =
+    PathIndex.compile("calendar.week.minDays");
+  private static final int CALENDAR_WEEK_FIRST_DAY =
+    PathIndex.compile("calendar.week.firstDay");
+  private static final int CALENDAR_ERA_ABBR =
+    PathIndex.compile("calendar.eras.eraAbbr");
+  private static final int CALENDAR_AM = PathIndex.compile("calendar.am");
+  private static final int CALENDAR_PM = PathIndex.compile("calendar.pm");
+  private static final int CALENDAR_DATE_FORMATS =
+    PathIndex.compile("calendar.dateFormats");
+  private static final int CALENDAR_TIME_FORMATS =
+    PathIndex.compile("calendar.timeFormats");
+  private static final int DATE_FORMAT_PATTERN =
+    PathIndex.compile("dateFormatLength.dateFormat.pattern");
+  private static final int TIME_FORMAT_PATTERN =
+    PathIndex.compile("timeFormatLength.timeFormat.pattern");
+  private static final int COLLATIONS = PathIndex.compile("ldml.collations");
+  private static final int COLLATION_RULES =
+    PathIndex.compile("collation.rules");
+  private static final int DISPLAY_NAMES_TERRITORIES =
+    PathIndex.compile("ldml.localeDisplayNames.territories");
+  private static final int DISPLAY_NAMES_LANGUAGES =
+    PathIndex.compile("ldml.localeDisplayNames.languages");
+  private static final int DISPLAY_NAMES_VARIANTS =
+    PathIndex.compile("ldml.localeDisplayNames.variants");
   private static final String collatorIdentifiers = "<=,;@&!";
 
   /*
@@ -312,11 +390,13 @@ public class PropertiesGenerator
 
   class TimeZoneContent implements JavaContent
   {
+    PathIndex tree;
     ListDataElement listElt;
     boolean usable;
 
-    public TimeZoneContent(ListDataElement elt)
+    public TimeZoneContent(PathIndex tree, ListDataElement elt)
     {
+      this.tree = tree;
       this.listElt = elt;
       usable = false;
     }
@@ -341,10 +421,7 @@ public class PropertiesGenerator
       int index;
       SortedSet<String> sortedKeys;
 
-      sortedKeys = new TreeSet<String>();
-      Iterator<String> unsortedKeys = listElt.elmKeys();
-      while (unsortedKeys.hasNext())
-        sortedKeys.add(unsortedKeys.next());
+      sortedKeys = new TreeSet<String>(tree.getElementKeys(listElt));
       Iterator<String> keys = sortedKeys.iterator();
       StringBuilder buffer = new StringBuilder();
       buffer.append("zoneStrings=");
@@ -353,7 +430,7 @@ public class PropertiesGenerator
       while (keys.hasNext())
         {
           String zoneName = keys.next();
-          Map<String,List<Element>> zoneTable;
+          PathIndex zoneTable;
           List<Element> zoneData;
           StringBuilder buffer2 = new StringBuilder();
           boolean zoneDataFound = false;
@@ -361,7 +438,7 @@ public class PropertiesGenerator
           buffer2.append(zoneName);
           buffer2.append("\\u00ae");
 
-          zoneTable = listElt.flattenLeaf(zoneName);
+          zoneTable = tree.getLeafIndex(listElt, zoneName);
           for (int j = 0; j < classpathZoneOrder.length; j++)
           {
             zoneData = zoneTable.get(classpathZoneOrder[j]);
@@ -472,10 +549,9 @@ public class PropertiesGenerator
     this.locale = locale;
   }
 
-  public void addCurrencyFormatContent(Map<String,List<Element>> tree)
+  public void addCurrencyFormatContent(PathIndex tree)
   {
-    DataElement dataElt = (DataElement)
-      Analyzer.getSingleElement(tree.get("ldml.numbers.currencyFormats.currencyFormatLength.currencyFormat.pattern"));
+    DataElement dataElt = (DataElement) tree.getSingle(NUMBERS_CURRENCY_FORMAT);
 
     if (dataElt == null)
       return;
@@ -488,14 +564,11 @@ public class PropertiesGenerator
     localeContents.add(new StringContent("currencyFormat", data));
   }
 
-  public void addStringContent(Map<String,List<Element>> tree, String ref, String name)
+  public void addStringContent(PathIndex tree, int ref, String name)
   {
-    DataElement dataElt = (DataElement) Analyzer.getSingleElement(tree.get(ref));
+    DataElement dataElt = (DataElement) tree.getSingle(ref);
     if (dataElt == null)
       return;
-    // Java doesn't have the 'v' pattern character so replace with z
-    if (ref.startsWith("timeFormat"))
-      dataElt.data = dataElt.data.replace('v','z').replace('V','z');
    localeContents.add(new StringContent(name, dataElt.data));
   }
 
@@ -510,7 +583,7 @@ public class PropertiesGenerator
                                               prependNull, appendNull));
   }
 
-  private void addContextualContent(Map<String,List<Element>> tree, String ref,
+  private void addContextualContent(PathIndex tree, int ref,
                                     String name, String[] order, int prependNull,
                                     int appendNull)
   {
@@ -529,42 +602,64 @@ public class PropertiesGenerator
       }
   }
 
-  private void computeCalendar(Map<String,List<Element>> flattree)
+  /**
+   * Returns the index of an entry of a list, following an alias which
+   * stands for the entry.
+   */
+  private PathIndex getLeafIndex(Analyzer analyzer, PathIndex tree,
+                                 ListDataElement list, String type)
+    throws IOException
+  {
+    try
+      {
+        return analyzer.getLeafIndex(tree, list, type);
+      }
+    catch (ParseException e)
+      {
+        IOException e2 = new IOException("Error resolving the alias of "
+                                         + type + " in " + locale);
+        e2.initCause(e);
+        throw e2;
+      }
+  }
+
+  private void computeCalendar(Analyzer analyzer, PathIndex flattree)
+    throws IOException
   {
     ListDataElement calendarElement;
-    calendarElement = (ListDataElement)
-      Analyzer.getSingleElement(flattree.get("ldml.dates.calendars"));
+    calendarElement = (ListDataElement) flattree.getSingle(DATES_CALENDARS);
     if (calendarElement != null)
       {
         // GNU Classpath only supports gregorian calendar ATM. We will upgrade
         // the code
         // once it has been done in GNU Classpath.
-        Map<String,List<Element>> calendarLeaf = calendarElement.flattenLeaf("gregorian");
+        PathIndex calendarLeaf = getLeafIndex(analyzer, flattree,
+                                              calendarElement, "gregorian");
         int i = 0;
         if (calendarLeaf == null)
           return;
         addContextualContent(
                               calendarLeaf,
-                              "calendar.months.monthContext.monthWidth.abbreviated",
+                              CALENDAR_MONTHS_ABBREVIATED,
                               "shortMonths", gnu.ldml.Constants.monthsOrder[i],
                               0, 1);
         addContextualContent(calendarLeaf,
-                              "calendar.months.monthContext.monthWidth.wide",
+                              CALENDAR_MONTHS_WIDE,
                               "months", gnu.ldml.Constants.monthsOrder[i], 0, 1);
         addContextualContent(calendarLeaf,
-                              "calendar.days.dayContext.dayWidth.abbreviated",
+                              CALENDAR_DAYS_ABBREVIATED,
                               "shortWeekdays", gnu.ldml.Constants.daysOrder, 1,
                               0);
         addContextualContent(calendarLeaf,
-                              "calendar.days.dayContext.dayWidth.wide",
+                              CALENDAR_DAYS_WIDE,
                               "weekdays", gnu.ldml.Constants.daysOrder, 1, 0);
         /* WEEKS */
-        List<Element> minDays = calendarLeaf.get("calendar.week.minDays");
+        List<Element> minDays = calendarLeaf.get(CALENDAR_WEEK_MIN_DAYS);
         if(minDays != null)
           localeContents
             .add(new StringContent("minNumberOfDaysInFirstWeek",
                                    Analyzer.getSingleElement(minDays).defaultType));
-        List<Element> firstDay = calendarLeaf.get("calendar.week.firstDay");
+        List<Element> firstDay = calendarLeaf.get(CALENDAR_WEEK_FIRST_DAY);
         if(firstDay != null)
           localeContents
             .add(new StringContent("firstDayOfWeek",
@@ -572,7 +667,7 @@ public class PropertiesGenerator
 
         /* ERAS */
         ListDataElement eraElement = (ListDataElement)
-          Analyzer.getSingleElement(calendarLeaf.get("calendar.eras.eraAbbr"));
+          calendarLeaf.getSingle(CALENDAR_ERA_ABBR);
         if (eraElement != null)
           {
             SortedSet<Leaf> ac = eraElement.getData("0");
@@ -584,60 +679,65 @@ public class PropertiesGenerator
           }
         DataElement amElement, pmElement;
         /* AM-PM */
-        amElement = (DataElement)
-          Analyzer.getSingleElement(calendarLeaf.get("calendar.am"));
-        pmElement = (DataElement)
-          Analyzer.getSingleElement(calendarLeaf.get("calendar.pm"));
+        amElement = (DataElement) calendarLeaf.getSingle(CALENDAR_AM);
+        pmElement = (DataElement) calendarLeaf.getSingle(CALENDAR_PM);
         if (amElement != null && pmElement != null)
           localeContents.add(new ManualListContent("ampms", amElement.data,
                                                    pmElement.data));
         /* Compute all date formats */
         ListDataElement dateFormats = (ListDataElement)
-          Analyzer.getSingleElement(calendarLeaf.get("calendar.dateFormats"));
+          calendarLeaf.getSingle(CALENDAR_DATE_FORMATS);
         if (dateFormats != null)
           {
             for (int j = 0; j < gnu.ldml.Constants.dateFormats.length; j++)
               {
-                Map<String,List<Element>> dateFormat = dateFormats
-                  .flattenLeaf(gnu.ldml.Constants.dateFormats[j]);
+                PathIndex dateFormat = getLeafIndex(analyzer, calendarLeaf,
+                                                    dateFormats,
+                                                    gnu.ldml.Constants.dateFormats[j]);
                 if (dateFormat == null)
                   continue;
-                addStringContent(dateFormat,
-                                 "dateFormatLength.dateFormat.pattern",
+                addStringContent(dateFormat, DATE_FORMAT_PATTERN,
                                  classpathDateFormats[j]);
               }
           }
         /* Compute all time formats */
         ListDataElement timeFormats = (ListDataElement)
-          Analyzer.getSingleElement(calendarLeaf.get("calendar.timeFormats"));
+          calendarLeaf.getSingle(CALENDAR_TIME_FORMATS);
         if (timeFormats != null)
           {
             for (int j = 0; j < gnu.ldml.Constants.timeFormats.length; j++)
               {
-                Map<String,List<Element>> timeFormat = timeFormats
-                  .flattenLeaf(gnu.ldml.Constants.timeFormats[j]);
+                PathIndex timeFormat = getLeafIndex(analyzer, calendarLeaf,
+                                                    timeFormats,
+                                                    gnu.ldml.Constants.timeFormats[j]);
                 if (timeFormat == null)
                   continue;
-                addStringContent(timeFormat,
-                                 "timeFormatLength.timeFormat.pattern",
-                                 classpathTimeFormats[j]);
+                DataElement pattern = (DataElement)
+                  timeFormat.getSingle(TIME_FORMAT_PATTERN);
+                if (pattern == null)
+                  continue;
+                // Java doesn't have the 'v' pattern character so replace with z
+                localeContents.add(new StringContent(classpathTimeFormats[j],
+                                                     pattern.data.replace('v', 'z')
+                                                     .replace('V', 'z')));
               }
           }
       }
   }
 
-  private void computeCollations(Map<String,List<Element>> flattree)
+  private void computeCollations(Analyzer analyzer, PathIndex flattree)
+    throws IOException
   {
     ListDataElement collations = (ListDataElement)
-      Analyzer.getSingleElement(flattree.get("ldml.collations"));
+      flattree.getSingle(COLLATIONS);
     if (collations == null)
       return;
-    Map<String,List<Element>> table = collations.flattenLeaf("standard");
+    PathIndex table = getLeafIndex(analyzer, flattree, collations, "standard");
     if (table == null)
       return;
     System.err.println("Found UCA table for collation rules");
     OrderedListElement listElt = (OrderedListElement)
-      Analyzer.getSingleElement(table.get("collation.rules"));
+      table.getSingle(COLLATION_RULES);
     if (listElt == null)
       return;
     System.err.println("Found rules");
@@ -647,46 +747,50 @@ public class PropertiesGenerator
       .toCollationRule()));
   }
 
-  private void computeTimeZones(Map<String,List<Element>> flattree)
+  private void computeTimeZones(PathIndex flattree)
   {
-    Element elt = Analyzer.getSingleElement(flattree.get("ldml.dates.timeZoneNames"));
+    Element elt = flattree.getSingle(DATES_TIME_ZONE_NAMES);
     if (elt != null)
-      localeContents.add(new TimeZoneContent((ListDataElement) elt));
+      localeContents.add(new TimeZoneContent(flattree, (ListDataElement) elt));
   }
 
-  private void computeLocalNames(Map<String,List<Element>> flattree)
+  private void computeLocalNames(PathIndex flattree)
   {
     ListDataElement elt = (ListDataElement)
-      Analyzer.getSingleElement(flattree.get("ldml.localeDisplayNames.territories"));
+      flattree.getSingle(DISPLAY_NAMES_TERRITORIES);
     if (elt != null)
-      localeContents.add(new HashtableContent("territories", elt.getData()));
-    elt = (ListDataElement)
-      Analyzer.getSingleElement(flattree.get("ldml.localeDisplayNames.languages"));
+      localeContents.add(new HashtableContent("territories",
+                                              flattree.getData(elt)));
+    elt = (ListDataElement) flattree.getSingle(DISPLAY_NAMES_LANGUAGES);
     if (elt != null)
-      localeContents.add(new HashtableContent("languages", elt.getData()));
-    elt = (ListDataElement)
-      Analyzer.getSingleElement(flattree.get("ldml.localeDisplayNames.variants"));
+      localeContents.add(new HashtableContent("languages",
+                                              flattree.getData(elt)));
+    elt = (ListDataElement) flattree.getSingle(DISPLAY_NAMES_VARIANTS);
     if (elt != null)
-      localeContents.add(new HashtableContent("variants", elt.getData()));
+      localeContents.add(new HashtableContent("variants",
+                                              flattree.getData(elt)));
   }
 
-  private void computeCurrencies(Map<String,List<Element>> flattree)
+  private void computeCurrencies(Analyzer analyzer, PathIndex flattree)
+    throws IOException
   {
     ListDataElement elt = (ListDataElement)
-      Analyzer.getSingleElement(flattree.get("ldml.numbers.currencies"));
+      flattree.getSingle(NUMBERS_CURRENCIES);
     if (elt == null)
       return;
-    Iterator<String> currencyKeys = elt.elmKeys();
+    Iterator<String> currencyKeys = flattree.getElementKeys(elt).iterator();
     SortedMap<String,String> currencyName = new TreeMap<String,String>();
     SortedMap<String,String> currencySymbol = new TreeMap<String,String>();
     while (currencyKeys.hasNext())
       {
         String code = currencyKeys.next();
-        Map<String,List<Element>> currencyTable = elt.flattenLeaf(code);
+        PathIndex currencyTable = getLeafIndex(analyzer, flattree, elt, code);
+        if (currencyTable == null)
+          continue;
         DataElement displayName = (DataElement)
-          Analyzer.getSingleElement(currencyTable.get("currency.displayName"));
+          currencyTable.getSingle(CURRENCY_DISPLAY_NAME);
         DataElement symbol = (DataElement)
-          Analyzer.getSingleElement(currencyTable.get("currency.symbol"));
+          currencyTable.getSingle(CURRENCY_SYMBOL);
         if (displayName != null)
           currencyName.put(code, displayName.data);
         if (symbol != null)
@@ -696,38 +800,30 @@ public class PropertiesGenerator
     localeContents.add(new HashtableContent(currencySymbol, "currenciesSymbol"));
   }
 
-  private void computeContents()
+  private void computeContents() throws IOException
   {
     for (Iterator<Analyzer> i = analyzers.iterator(); i.hasNext();)
       {
         Analyzer analyzer = i.next();
-        Map<String,List<Element>> flattree = analyzer.flattenTree();
-        addStringContent(flattree, "ldml.numbers.symbols.percentSign",
-                         "percent");
-        addStringContent(flattree, "ldml.numbers.symbols.perMille", "perMill");
-        addStringContent(flattree, "ldml.numbers.symbols.exponential",
-                         "exponential");
-        addStringContent(flattree, "ldml.numbers.symbols.infinity", "infinity");
-        addStringContent(flattree, "ldml.numbers.symbols.nan", "NaN");
-        addStringContent(flattree, "ldml.numbers.symbols.minusSign",
-                         "minusSign");
-        addStringContent(flattree, "ldml.numbers.symbols.nativeZeroDigit",
+        PathIndex flattree = analyzer.getIndex();
+        addStringContent(flattree, NUMBERS_SYMBOLS_PERCENT_SIGN, "percent");
+        addStringContent(flattree, NUMBERS_SYMBOLS_PER_MILLE, "perMill");
+        addStringContent(flattree, NUMBERS_SYMBOLS_EXPONENTIAL, "exponential");
+        addStringContent(flattree, NUMBERS_SYMBOLS_INFINITY, "infinity");
+        addStringContent(flattree, NUMBERS_SYMBOLS_NAN, "NaN");
+        addStringContent(flattree, NUMBERS_SYMBOLS_MINUS_SIGN, "minusSign");
+        addStringContent(flattree, NUMBERS_SYMBOLS_NATIVE_ZERO_DIGIT,
                          "zeroDigit");
-        addStringContent(flattree, "ldml.numbers.symbols.decimal",
-                         "decimalSeparator");
-        addStringContent(flattree, "ldml.numbers.symbols.group",
-                         "groupingSeparator");
-        addStringContent(flattree, "ldml.numbers.symbols.patternDigit", "digit");
-        addStringContent(
-                         flattree,
-                         "ldml.numbers.percentFormats.percentFormatLength.percentFormat.pattern",
-                         "percentFormat");
+        addStringContent(flattree, NUMBERS_SYMBOLS_DECIMAL, "decimalSeparator");
+        addStringContent(flattree, NUMBERS_SYMBOLS_GROUP, "groupingSeparator");
+        addStringContent(flattree, NUMBERS_SYMBOLS_PATTERN_DIGIT, "digit");
+        addStringContent(flattree, NUMBERS_PERCENT_FORMAT, "percentFormat");
         addCurrencyFormatContent(flattree);
-        addStringContent(flattree, "ldml.dates.localizedPatternChars",
+        addStringContent(flattree, DATES_LOCALIZED_PATTERN_CHARS,
                          "localPatternChars");
-        computeCurrencies(flattree);
-        computeCalendar(flattree);
-        computeCollations(flattree);
+        computeCurrencies(analyzer, flattree);
+        computeCalendar(analyzer, flattree);
+        computeCollations(analyzer, flattree);
         computeTimeZones(flattree);
         computeLocalNames(flattree);
       }
@@ -770,9 +866,21 @@ public class PropertiesGenerator
           javaFile.delete();
         return;
       }
-    FileWriter output = new FileWriter(javaFile);
-    PrintWriter java_output = new PrintWriter(new BufferedWriter(output), true);
-    generateJavaHeader(java_output);
-    generateJavaClass(java_output);
+    AtomicOutputStream output = new AtomicOutputStream(javaFile);
+    try
+      {
+        PrintWriter java_output = new PrintWriter(
+          new BufferedWriter(new OutputStreamWriter(output)));
+        generateJavaHeader(java_output);
+        generateJavaClass(java_output);
+        java_output.flush();
+        if (java_output.checkError())
+          throw new IOException("Unable to write " + javaFile);
+        output.close();
+      }
+    finally
+      {
+        output.discard();
+      }
   }
 }